@@ -0,0 +1,140 @@
+package dev.jqve.serverscanner.scan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The probe engines against loopback targets. {@code batch} measures probes per second with a full
+ * window in flight, {@code single} samples the latency of one probe on an idle engine for the tail
+ * percentiles. Run with the GC profiler (the default in the build) for allocation per probe.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProbeBenchmark {
+    private static final int BATCH = 256;
+    private static final int POOL_SIZE = 50;
+    private static final int TIMEOUT_MS = 200;
+    /** Blackholed probes only ever time out, so keep them short enough for a sensible iteration count. */
+    private static final int BLACKHOLE_TIMEOUT_MS = 50;
+
+    public enum Target {
+        /** A listener that accepts and immediately closes. */
+        OPEN,
+        /** A loopback port nobody listens on, so the kernel answers with RST. */
+        REFUSED,
+        /** TEST-NET-1 (RFC 5737) is never routed, so nothing answers at all. */
+        BLACKHOLED
+    }
+
+    @Param
+    public Target target;
+
+    @Param({"SELECTOR", "FIXED_POOL", "VIRTUAL_THREADS"})
+    public ExecutionMode mode;
+
+    private ServerSocket listener;
+    private Thread acceptor;
+    private Prober prober;
+    private int address;
+    private int port;
+    private int timeoutMs;
+
+    private volatile CountDownLatch pending;
+    private volatile ProbeResult lastResult;
+    // Built once so the callback itself doesn't show up in the allocation figures
+    private final ProbeCallback callback = (address, port, result, rttNanos, status) -> {
+        lastResult = result;
+        pending.countDown();
+    };
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        InetAddress loopback = InetAddress.getByName("127.0.0.1");
+        timeoutMs = TIMEOUT_MS;
+        switch (target) {
+            case OPEN -> {
+                listener = new ServerSocket(0, BATCH * 4, loopback);
+                address = Ipv4.parse("127.0.0.1");
+                port = listener.getLocalPort();
+                acceptor = new Thread(this::acceptLoop, "Benchmark-Acceptor");
+                acceptor.setDaemon(true);
+                acceptor.start();
+            }
+            case REFUSED -> {
+                // Bind and release, so the port is known to be free
+                try (ServerSocket socket = new ServerSocket(0, 1, loopback)) {
+                    port = socket.getLocalPort();
+                }
+                address = Ipv4.parse("127.0.0.1");
+            }
+            case BLACKHOLED -> {
+                address = Ipv4.parse("192.0.2.1");
+                port = 25565;
+                timeoutMs = BLACKHOLE_TIMEOUT_MS;
+            }
+        }
+        prober = mode.createProber(BATCH, POOL_SIZE, "Benchmark");
+    }
+
+    private void acceptLoop() {
+        while (!listener.isClosed()) {
+            try (Socket ignored = listener.accept()) {
+                // Closing right away is all an open port needs
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        prober.close();
+        if (listener != null) {
+            listener.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH)
+    public ProbeResult batch() throws InterruptedException {
+        pending = new CountDownLatch(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            prober.probe(address, port, timeoutMs, callback);
+        }
+        pending.await();
+        return lastResult;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ProbeResult single() throws InterruptedException {
+        pending = new CountDownLatch(1);
+        prober.probe(address, port, timeoutMs, callback);
+        pending.await();
+        return lastResult;
+    }
+}
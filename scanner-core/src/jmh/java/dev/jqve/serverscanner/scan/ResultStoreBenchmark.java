@@ -0,0 +1,87 @@
+package dev.jqve.serverscanner.scan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts into the stores results land in: the port scanner's state map, the result cache and the
+ * progress counters. Scores are inserts per second; the cache runs past its load limit, so eviction
+ * is part of the figure.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultStoreBenchmark {
+    private static final int OPS = 1 << 16;
+    private static final int CACHE_CAPACITY = 1 << 15;
+    private static final long TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final ProbeResult[] RESULTS = ProbeResult.values();
+    private static final PortStateMap.State[] STATES = PortStateMap.State.values();
+    private static final ServerStatus STATUS = new ServerStatus("A Minecraft Server", "Paper 1.21.3", 768, 3, 100, 12, PingProtocol.MODERN);
+
+    private int[] addresses;
+    private int[] ports;
+    private int[] picks;
+    private PortStateMap portStates;
+    private ResultCache cache;
+    private ScanProgress progress;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        addresses = new int[OPS];
+        ports = new int[OPS];
+        picks = new int[OPS];
+        for (int i = 0; i < OPS; i++) {
+            addresses[i] = random.nextInt();
+            ports[i] = 1 + random.nextInt(65535);
+            picks[i] = random.nextInt(Integer.MAX_VALUE);
+        }
+        portStates = new PortStateMap(1, 65535);
+        cache = ResultCache.inMemory(CACHE_CAPACITY, TTL_MILLIS);
+        progress = new ScanProgress(Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public int portStates() {
+        for (int i = 0; i < OPS; i++) {
+            portStates.set(ports[i], STATES[picks[i] % STATES.length]);
+        }
+        return portStates.resolved();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public int cacheRecord() {
+        for (int i = 0; i < OPS; i++) {
+            ProbeResult result = RESULTS[picks[i] % RESULTS.length];
+            cache.record(addresses[i], ports[i], result, 1_000_000L, result == ProbeResult.OPEN ? STATUS : null);
+        }
+        return cache.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public long progress() {
+        for (int i = 0; i < OPS; i++) {
+            progress.recordSettled((picks[i] & 1) == 0);
+        }
+        return progress.snapshot().settled();
+    }
+}
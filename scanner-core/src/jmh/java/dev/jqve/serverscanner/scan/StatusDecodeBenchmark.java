@@ -0,0 +1,97 @@
+package dev.jqve.serverscanner.scan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding Server List Ping responses, from the raw JSON alone and from a whole status frame fed
+ * through {@link StatusSession} the way the engine does it. Scores are responses per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatusDecodeBenchmark {
+    private static final int STATUS_PACKET = 0x00;
+
+    /** Size of the favicon PNG before base64; real ones run from nothing to a few tens of kilobytes. */
+    @Param({"0", "8192"})
+    public int faviconBytes;
+
+    private byte[] json;
+    private byte[] frame;
+
+    @Setup
+    public void setup() {
+        json = statusJson(faviconBytes).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 16);
+        int payloadLength = VarInts.size(STATUS_PACKET) + VarInts.size(json.length) + json.length;
+        VarInts.write(buffer, payloadLength);
+        VarInts.write(buffer, STATUS_PACKET);
+        VarInts.write(buffer, json.length);
+        buffer.put(json);
+        frame = new byte[buffer.position()];
+        buffer.flip().get(frame);
+    }
+
+    private static String statusJson(int faviconBytes) {
+        byte[] png = new byte[faviconBytes];
+        new Random(42).nextBytes(png);
+        String favicon = faviconBytes == 0 ? ""
+                : ",\"favicon\":\"data:image/png;base64," + Base64.getEncoder().encodeToString(png) + "\"";
+        return "{\"version\":{\"name\":\"Paper 1.21.3\",\"protocol\":768},"
+                + "\"players\":{\"max\":100,\"online\":3,\"sample\":["
+                + "{\"name\":\"Alex\",\"id\":\"8667ba71-b85a-4004-af54-457a9734eed7\"},"
+                + "{\"name\":\"Steve\",\"id\":\"ec561538-f3fd-461d-aff5-086b22154bce\"}]},"
+                + "\"description\":{\"text\":\"\",\"extra\":[{\"text\":\"A Minecraft \",\"color\":\"gold\"},"
+                + "{\"text\":\"Server \\u2014 \\\"escaped\\\"\",\"bold\":true}]},"
+                + "\"enforcesSecureChat\":true" + favicon + "}";
+    }
+
+    @Benchmark
+    public ServerStatus json() {
+        return StatusJsonReader.read(json, 0, json.length);
+    }
+
+    @Benchmark
+    public ServerStatus session() {
+        StatusSession session = new StatusSession(0x7F000001, 25565);
+        drain(session);
+
+        int offset = 0;
+        while (offset < frame.length && !session.wantsWrite() && !session.isFinished()) {
+            ByteBuffer inbound = session.inbound();
+            int length = Math.min(inbound.remaining(), frame.length - offset);
+            inbound.put(frame, offset, length);
+            offset += length;
+            session.onRead();
+        }
+        // Send the ping, then hang up like a server that never answers it; the status still counts
+        drain(session);
+        session.onEndOfStream();
+        return session.status();
+    }
+
+    private static void drain(StatusSession session) {
+        ByteBuffer outbound = session.outbound();
+        outbound.position(outbound.limit());
+        session.onWritten();
+    }
+}
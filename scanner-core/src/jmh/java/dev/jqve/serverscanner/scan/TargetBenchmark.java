@@ -0,0 +1,97 @@
+package dev.jqve.serverscanner.scan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Target generation: how fast the feeder can turn a target spec into packed address:port pairs.
+ * Scores are targets per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TargetBenchmark {
+    /** Several ranges, so lookups have to cross range boundaries. */
+    private static final String HOSTS = "10.0.0.0/17,10.1.0.0-10.1.127.255,192.168.1.0/24";
+    private static final int HOST_TARGETS = 1 << 16;
+    private static final int PORT_TARGETS = 65535;
+    private static final int CHUNK_SIZE = 1024;
+
+    private TargetSpec spec;
+    private TargetSource hosts;
+    private TargetSource permutedHosts;
+    private TargetSource ports;
+
+    @Setup
+    public void setup() {
+        spec = TargetSpec.parse(HOSTS);
+        hosts = TargetSource.hosts(spec, 25565);
+        permutedHosts = TargetSource.permuted(hosts, 42);
+        ports = TargetSource.ports(Ipv4.parse("127.0.0.1"), 1, PORT_TARGETS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HOST_TARGETS)
+    public long hostsByIndex() {
+        long acc = 0;
+        for (long i = 0; i < HOST_TARGETS; i++) {
+            acc += hosts.targetAt(i);
+        }
+        return acc;
+    }
+
+    /**
+     * The random order the scanner screens use: a Feistel permutation in front of the indexed lookup.
+     */
+    @Benchmark
+    @OperationsPerInvocation(HOST_TARGETS)
+    public long hostsPermuted() {
+        long acc = 0;
+        for (long i = 0; i < HOST_TARGETS; i++) {
+            acc += permutedHosts.targetAt(i);
+        }
+        return acc;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HOST_TARGETS)
+    public long hostsIterator() {
+        long acc = 0;
+        TargetIterator it = spec.iterator();
+        for (int i = 0; i < HOST_TARGETS && it.hasNext(); i++) {
+            acc += it.nextInt();
+        }
+        return acc;
+    }
+
+    /**
+     * Same access pattern as the scheduler's feeder: claim a chunk, then walk it by index.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PORT_TARGETS)
+    public long portsByChunk() {
+        long acc = 0;
+        ChunkCursor cursor = new ChunkCursor(ports.size(), CHUNK_SIZE);
+        for (long start = cursor.claim(); start >= 0; start = cursor.claim()) {
+            long end = cursor.end(start);
+            for (long i = start; i < end; i++) {
+                acc += ports.targetAt(i);
+            }
+        }
+        return acc;
+    }
+}
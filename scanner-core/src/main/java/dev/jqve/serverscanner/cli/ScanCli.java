@@ -0,0 +1,414 @@
+package dev.jqve.serverscanner.cli;
+
+import dev.jqve.serverscanner.scan.ExecutionMode;
+import dev.jqve.serverscanner.scan.HostDiscovery;
+import dev.jqve.serverscanner.scan.Ipv4;
+import dev.jqve.serverscanner.scan.PortSpec;
+import dev.jqve.serverscanner.scan.ProbeResult;
+import dev.jqve.serverscanner.scan.ProbeType;
+import dev.jqve.serverscanner.scan.ResultCache;
+import dev.jqve.serverscanner.scan.ResultFormat;
+import dev.jqve.serverscanner.scan.ResultReader;
+import dev.jqve.serverscanner.scan.ResultWriter;
+import dev.jqve.serverscanner.scan.ScanCheckpoint;
+import dev.jqve.serverscanner.scan.ScanCompletion;
+import dev.jqve.serverscanner.scan.ScanMetrics;
+import dev.jqve.serverscanner.scan.ScanScheduler;
+import dev.jqve.serverscanner.scan.ScanSummary;
+import dev.jqve.serverscanner.scan.Scanner;
+import dev.jqve.serverscanner.scan.ServerStatus;
+import dev.jqve.serverscanner.scan.TargetSource;
+import dev.jqve.serverscanner.scan.TargetSpec;
+import dev.jqve.serverscanner.scan.TokenBucket;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command line front end for the scanner core, for scans on machines without a game client.
+ * <p>
+ * Prints one tab-separated line per hit to stdout and a summary to stderr:
+ * <pre>
+ * address:port  open  rtt-ms                                       (--connect)
+ * address:port  version  online/max  ping-ms  protocol  motd       (default, Server List Ping)
+ * </pre>
+ * where protocol is the ping the server answered: {@code modern}, {@code legacy} (1.4 to 1.6) or
+ * {@code beta} (Beta 1.8 to 1.3). {@code --output} also streams the hits to an NDJSON or binary
+ * result file, and {@code --input} prints (or converts) such files instead of scanning.
+ */
+public final class ScanCli {
+    private static final String USAGE = """
+            Usage: scanner-core [options] <targets>
+                   scanner-core --input <file> [--input <file>...] [--output <file>]
+
+              <targets>              CIDR blocks, ranges or addresses, comma separated
+                                     (e.g. 10.0.0.0/16,192.168.1.10-50)
+              --port <ports>         ports to scan on every target, comma separated ports and ranges
+                                     (e.g. 25565,25566-25600; default 25565)
+              --connect              only check whether ports are open, skip the Server List Ping
+              --discover             first find out which hosts are up with a few probes each, then
+                                     sweep only those; pays off when scanning many ports per host
+              --mode <mode>          selector, fixed-pool or virtual-threads (default selector)
+              --max-in-flight <n>    concurrent probe limit (default 512)
+              --timeout <ms>         initial connect timeout (default 200)
+              --rate <pps>           spread probes evenly at this many per second (default unlimited)
+              --burst <n>            probes allowed back to back under --rate (default 1/20 of the rate)
+              --seed <n>             seed of the random target order (default random); fixes the order
+              --sequential           probe targets in ascending order instead of a random one
+              --shard <i/n>          probe only the i-th of n disjoint parts (1-based), e.g. one per machine;
+                                     every shard needs the same --seed
+              --cache <file>         result cache to skip recently probed targets
+              --checkpoint <file>    save progress here and resume from it if it matches the scan
+              --summary <dir>        write scan metrics as JSON and CSV into this directory
+              --output <file>        also write every hit to this file as it is found: NDJSON (.ndjson)
+                                     or 14-byte binary records (.msr)
+              --input <file>         print the hits of a result file instead of scanning; repeat to
+                                     merge several, and add --output to convert them
+            """;
+
+    /** Checkpoint key of a randomly ordered scan: targets, ports, seed and optionally the shard. */
+    private static final Pattern SEEDED_KEY = Pattern.compile("(.+) seed (-?\\d+)( shard \\d+/\\d+)?");
+
+    private ScanCli() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            System.exit(run(args, System.out, System.err));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Runs a scan to completion.
+     *
+     * @return the process exit code
+     * @throws IllegalArgumentException if the arguments are invalid
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) throws IOException, InterruptedException {
+        String targets = null;
+        String ports = "25565";
+        ProbeType probeType = ProbeType.STATUS;
+        ExecutionMode mode = ExecutionMode.SELECTOR;
+        int maxInFlight = 512;
+        int timeoutMs = 200;
+        int rate = 0;
+        int burst = 0;
+        Path cacheFile = null;
+        Path summaryDir = null;
+        Path checkpointFile = null;
+        Path outputFile = null;
+        List<Path> inputFiles = new ArrayList<>();
+        Long seed = null;
+        boolean sequential = false;
+        boolean discover = false;
+        int shard = 0;
+        int shards = 1;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--port" -> ports = value(args, ++i, arg);
+                case "--connect" -> probeType = ProbeType.CONNECT;
+                case "--discover" -> discover = true;
+                case "--mode" -> mode = parseMode(value(args, ++i, arg));
+                case "--max-in-flight" -> maxInFlight = parseInt(value(args, ++i, arg), arg, 1, 65535);
+                case "--timeout" -> timeoutMs = parseInt(value(args, ++i, arg), arg, 1, 60000);
+                case "--rate" -> rate = parseInt(value(args, ++i, arg), arg, 0, 10_000_000);
+                case "--burst" -> burst = parseInt(value(args, ++i, arg), arg, 1, 10_000_000);
+                case "--cache" -> cacheFile = Path.of(value(args, ++i, arg));
+                case "--seed" -> seed = parseSeed(value(args, ++i, arg));
+                case "--sequential" -> sequential = true;
+                case "--shard" -> {
+                    String value = value(args, ++i, arg);
+                    int slash = value.indexOf('/');
+                    if (slash < 0) {
+                        throw new IllegalArgumentException("--shard needs the form i/n, e.g. 1/4");
+                    }
+                    shards = parseInt(value.substring(slash + 1), arg, 1, 65535);
+                    shard = parseInt(value.substring(0, slash), arg, 1, shards) - 1;
+                }
+                case "--checkpoint" -> checkpointFile = Path.of(value(args, ++i, arg));
+                case "--summary" -> summaryDir = Path.of(value(args, ++i, arg));
+                case "--output" -> outputFile = Path.of(value(args, ++i, arg));
+                case "--input" -> inputFiles.add(Path.of(value(args, ++i, arg)));
+                case "-h", "--help" -> {
+                    out.print(USAGE);
+                    return 0;
+                }
+                default -> {
+                    if (arg.startsWith("--") || targets != null) {
+                        throw new IllegalArgumentException("Unexpected argument: " + arg);
+                    }
+                    targets = arg;
+                }
+            }
+        }
+        if (outputFile != null && ResultFormat.of(outputFile) == null) {
+            throw new IllegalArgumentException("Unknown --output file type: " + outputFile + " (use .ndjson or .msr)");
+        }
+        if (!inputFiles.isEmpty()) {
+            if (targets != null) {
+                throw new IllegalArgumentException("--input reads results instead of scanning, so it takes no targets");
+            }
+            for (Path file : inputFiles) {
+                if (ResultFormat.of(file) == null) {
+                    throw new IllegalArgumentException("Unknown --input file type: " + file + " (use .ndjson or .msr)");
+                }
+            }
+            return printResults(inputFiles, outputFile, out, err);
+        }
+        if (targets == null) {
+            throw new IllegalArgumentException("No targets given");
+        }
+
+        if (shards > 1 && seed == null && !sequential) {
+            throw new IllegalArgumentException("--shard needs --seed so every shard uses the same order");
+        }
+        if (discover && (shards > 1 || checkpointFile != null)) {
+            // Each run may find a different set of live hosts, so neither would line up
+            throw new IllegalArgumentException("--discover can't be combined with --shard or --checkpoint");
+        }
+        TargetSpec spec = TargetSpec.parse(targets);
+        PortSpec portSpec = parsePorts(ports);
+        TargetSpec sweep = spec;
+        if (discover) {
+            sweep = discoverLiveHosts(spec, mode, rate, err);
+            if (sweep.size() == 0) {
+                return 0;
+            }
+        }
+        // Every port of a host is just another target, so ports share the window and the random order
+        TargetSource source = TargetSource.hosts(sweep, portSpec);
+        String scanKey = spec + ":" + portSpec;
+        if (!sequential) {
+            if (seed == null && checkpointFile != null) {
+                // Resuming needs the order the checkpoint was written with
+                seed = savedSeed(checkpointFile, scanKey);
+            }
+            long orderSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
+            source = TargetSource.permuted(source, orderSeed);
+            scanKey += " seed " + orderSeed;
+        }
+        if (shards > 1) {
+            source = TargetSource.shard(source, shard, shards);
+            scanKey += " shard " + (shard + 1) + "/" + shards;
+        }
+        ScanCheckpoint checkpoint = checkpointFile != null ? openCheckpoint(checkpointFile, scanKey, source, err) : null;
+        ResultCache cache = cacheFile != null
+                ? ResultCache.open(cacheFile, 1 << 18, TimeUnit.HOURS.toMillis(6))
+                : null;
+        ResultWriter output = outputFile != null ? ResultWriter.open(outputFile) : null;
+
+        AtomicLong hits = new AtomicLong();
+        ProbeType type = probeType;
+        ScanScheduler scan = Scanner.builder()
+                .targets(source)
+                .probeType(type)
+                .executionMode(mode)
+                .concurrency(maxInFlight, Math.min(128, maxInFlight), Math.min(8, maxInFlight))
+                .timeouts(timeoutMs, 30, 2000)
+                .rateLimit(rate, burst > 0 ? burst : TokenBucket.defaultBurst(rate))
+                .cache(cache)
+                .checkpoint(checkpoint)
+                .threadName("Scan-Cli")
+                .start((address, port, result, rttNanos, status) -> {
+                    if (type == ProbeType.CONNECT && result == ProbeResult.OPEN || status != null) {
+                        hits.incrementAndGet();
+                        printHit(out, address, port, rttNanos, status);
+                        if (output != null) {
+                            output.write(address, port, rttNanos, status);
+                        }
+                    }
+                });
+        Thread shutdownHook = new Thread(scan::stop);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        ScanCompletion completion = scan.completion().join();
+        scan.stop();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Interrupted by Ctrl-C: the hook has stopped the scan (and saved any checkpoint)
+        }
+        if (cache != null) {
+            cache.close();
+        }
+        out.flush();
+        if (output != null) {
+            closeOutput(output, err);
+        }
+
+        ScanMetrics.Snapshot metrics = scan.metrics().snapshot();
+        if (summaryDir != null) {
+            Path file = new ScanSummary(spec + ":" + portSpec, mode, completion, metrics).write(summaryDir);
+            err.println("Summary written to " + file);
+        }
+
+        double seconds = completion.elapsedNanos() / 1e9;
+        err.printf(Locale.ROOT, "%d targets in %.1fs (%.0f/s), %d %s, rtt p50 %dus p99 %dus%n", completion.reported(),
+                seconds, completion.reported() / Math.max(seconds, 1e-9), hits.get(),
+                type == ProbeType.CONNECT ? "open" : "servers",
+                metrics.rttPercentileMicros(0.5), metrics.rttPercentileMicros(0.99));
+        return 0;
+    }
+
+    /**
+     * One stdout line per hit, see the class comment. Open ports without a status print as connect
+     * hits.
+     */
+    private static void printHit(PrintStream out, int address, int port, long rttNanos, ServerStatus status) {
+        String target = Ipv4.format(address) + ":" + port;
+        synchronized (out) {
+            if (status == null) {
+                out.println(target + "\topen\t" + TimeUnit.NANOSECONDS.toMillis(rttNanos));
+            } else {
+                out.println(target + "\t" + status.versionName() + "\t" + status.onlinePlayers() + "/"
+                        + status.maxPlayers() + "\t" + status.pingMillis() + "\t"
+                        + status.protocol().name().toLowerCase(Locale.ROOT) + "\t"
+                        + status.motd().replace('\n', ' '));
+            }
+        }
+    }
+
+    /**
+     * Prints the hits of result files, and copies them to {@code outputFile} if given. Records are
+     * streamed one by one; entries in several files are printed once per file.
+     */
+    private static int printResults(List<Path> inputFiles, Path outputFile, PrintStream out, PrintStream err)
+            throws IOException {
+        ResultWriter output = outputFile != null ? ResultWriter.open(outputFile) : null;
+        long total = 0;
+        try {
+            for (Path file : inputFiles) {
+                total += ResultReader.read(file, (address, port, rttNanos, statusHash, status) -> {
+                    printHit(out, address, port, rttNanos, status);
+                    if (output != null) {
+                        output.write(address, port, rttNanos, statusHash, status);
+                    }
+                });
+            }
+        } finally {
+            out.flush();
+            if (output != null) {
+                closeOutput(output, err);
+            }
+        }
+        err.println(total + " results read from " + inputFiles.size() + " files");
+        return 0;
+    }
+
+    private static void closeOutput(ResultWriter output, PrintStream err) throws IOException {
+        output.close();
+        err.println(output.count() + " results written to " + output.file());
+    }
+
+    private static TargetSpec discoverLiveHosts(TargetSpec spec, ExecutionMode mode, int rate, PrintStream err)
+            throws InterruptedException {
+        HostDiscovery discovery = HostDiscovery.start(spec, mode, rate, "Scan-Cli-Discovery");
+        long start = System.nanoTime();
+        try {
+            TargetSpec live = discovery.result().get();
+            err.printf(Locale.ROOT, "%d of %d hosts are up (%.1fs)%n", live.size(), spec.size(),
+                    (System.nanoTime() - start) / 1e9);
+            return live;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Host discovery failed", e.getCause());
+        } finally {
+            discovery.stop();
+        }
+    }
+
+    /**
+     * @return the seed of the checkpoint in {@code file} if it is for the scan {@code baseKey}, else {@code null}
+     */
+    private static Long savedSeed(Path file, String baseKey) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            Matcher key = SEEDED_KEY.matcher(ScanCheckpoint.load(file).scanKey());
+            return key.matches() && key.group(1).equals(baseKey) ? Long.valueOf(key.group(2)) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resumes from {@code file} if it holds a checkpoint of the same scan, otherwise starts a new one.
+     */
+    private static ScanCheckpoint openCheckpoint(Path file, String scanKey, TargetSource source, PrintStream err) {
+        if (Files.exists(file)) {
+            try {
+                ScanCheckpoint checkpoint = ScanCheckpoint.load(file);
+                if (checkpoint.scanKey().equals(scanKey) && checkpoint.targetCount() == source.size()) {
+                    err.printf(Locale.ROOT, "Resuming: %d of %d targets already done%n",
+                            checkpoint.completedTargets(), checkpoint.targetCount());
+                    return checkpoint;
+                }
+                err.println("Checkpoint " + file + " is for another scan, starting over");
+            } catch (IOException e) {
+                err.println("Could not read checkpoint " + file + ": " + e.getMessage());
+            }
+        }
+        return ScanCheckpoint.create(file, scanKey, source.size());
+    }
+
+    private static PortSpec parsePorts(String ports) {
+        try {
+            return PortSpec.parse(ports);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid --port: " + e.getMessage());
+        }
+    }
+
+    private static long parseSeed(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for --seed: " + value);
+        }
+    }
+
+    private static ExecutionMode parseMode(String value) {
+        return switch (value) {
+            case "selector" -> ExecutionMode.SELECTOR;
+            case "fixed-pool" -> ExecutionMode.FIXED_POOL;
+            case "virtual-threads" -> ExecutionMode.VIRTUAL_THREADS;
+            default -> throw new IllegalArgumentException("Unknown mode: " + value);
+        };
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[index];
+    }
+
+    private static int parseInt(String value, String option, int min, int max) {
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed < min || parsed > max) {
+                throw new IllegalArgumentException(option + " must be between " + min + " and " + max);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+        }
+    }
+}
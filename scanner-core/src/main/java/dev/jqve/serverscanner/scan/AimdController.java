@@ -0,0 +1,126 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Additive-increase / multiplicative-decrease limit on the number of probes in flight.
+ * <p>
+ * Consumer routers keep a small connection table, and a burst of SYNs past its size makes them drop
+ * packets from hosts that are actually up. The window grows by a fixed amount per window's worth of
+ * results while the loss rate stays low, and halves (at most once per window) when it spikes.
+ * <p>
+ * What counts as a loss is decided by the caller; {@link ScanScheduler} reports a timeout against a
+ * host that has answered before as a loss. Results that say nothing about the path, such as timeouts
+ * against addresses that never answered, are released with {@link #releaseUnmeasured()}: they still let
+ * the window grow but stay out of the loss rate, so a sweep over mostly dead addresses doesn't dilute it.
+ */
+public final class AimdController {
+    /** Window growth per full window of results, like TCP's one segment per RTT. */
+    private static final double ADDITIVE_INCREASE = 16;
+    private static final double MULTIPLICATIVE_DECREASE = 0.5;
+    /** Smoothing factor of the loss rate average. */
+    private static final double LOSS_ALPHA = 1.0 / 64;
+    /** Below this loss rate the window may grow. */
+    private static final double HEALTHY_LOSS_RATE = 0.02;
+    /** Above this loss rate the window is cut. */
+    private static final double CONGESTED_LOSS_RATE = 0.10;
+
+    private final int minWindow;
+    private final int maxWindow;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private double window;
+    private double lossRate;
+    private int inFlight;
+    private long resultsSinceCut;
+    // Window before the last cut, i.e. how many results may still stem from probes sent before it
+    private long cutWindow;
+
+    public AimdController(int initialWindow, int minWindow, int maxWindow) {
+        this.minWindow = minWindow;
+        this.maxWindow = maxWindow;
+        this.window = Math.max(minWindow, Math.min(maxWindow, initialWindow));
+    }
+
+    /**
+     * Waits until the number of probes in flight is below the current window, then takes a slot.
+     */
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= (int) window) {
+                slotFreed.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a slot and adjusts the window.
+     *
+     * @param loss whether this result indicates a dropped probe
+     */
+    public void release(boolean loss) {
+        release(true, loss);
+    }
+
+    /**
+     * Returns a slot without counting the result toward the loss rate, for results that can't tell a
+     * dropped probe from a dead address.
+     */
+    public void releaseUnmeasured() {
+        release(false, false);
+    }
+
+    private void release(boolean measured, boolean loss) {
+        lock.lock();
+        try {
+            inFlight--;
+            resultsSinceCut++;
+            if (measured) {
+                lossRate += ((loss ? 1.0 : 0.0) - lossRate) * LOSS_ALPHA;
+            }
+            if (lossRate > CONGESTED_LOSS_RATE) {
+                // Only cut on a loss, and once per window of results sent before the last cut, so one
+                // burst of losses (and the slow average it leaves behind) halves the window once
+                if (loss && resultsSinceCut >= cutWindow) {
+                    cutWindow = (long) window;
+                    window = Math.max(minWindow, window * MULTIPLICATIVE_DECREASE);
+                    resultsSinceCut = 0;
+                }
+            } else if (lossRate < HEALTHY_LOSS_RATE && !loss) {
+                window = Math.min(maxWindow, window + ADDITIVE_INCREASE / window);
+            }
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the current window, i.e. how many probes may be in flight
+     */
+    public int window() {
+        lock.lock();
+        try {
+            return (int) window;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return smoothed fraction of measured results that were losses
+     */
+    public double lossRate() {
+        lock.lock();
+        try {
+            return lossRate;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package dev.jqve.serverscanner.scan;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs each probe as a blocking {@link Socket#connect} on an {@link ExecutorService}.
+ * <p>
+ * A semaphore caps the number of concurrent probes, so the executor never queues more work than it
+ * can run. With a fixed platform pool the cap equals the pool size; with a virtual-thread-per-task
+ * executor the cap is the only limit, and thousands of blocking connects are cheap.
+ */
+public final class BlockingProber implements Prober {
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean closed;
+
+    public BlockingProber(ExecutorService executor, int maxInFlight) {
+        this.executor = executor;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public void probe(int address, int port, int timeoutMs, ProbeType type, ProbeCallback callback) throws InterruptedException {
+        permits.acquire();
+        if (closed) {
+            permits.release();
+            throw new IllegalStateException("Prober is closed");
+        }
+        inFlight.incrementAndGet();
+        try {
+            executor.execute(() -> run(address, port, timeoutMs, type, callback));
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            permits.release();
+            throw new IllegalStateException("Prober is closed", e);
+        }
+    }
+
+    private void run(int address, int port, int timeoutMs, ProbeType type, ProbeCallback callback) {
+        long start = System.nanoTime();
+        ProbeResult result;
+        long rtt;
+        ServerStatus status = null;
+        Socket socket = new Socket();
+        try {
+            result = connect(socket, address, port, timeoutMs);
+            rtt = System.nanoTime() - start;
+            if (result == ProbeResult.OPEN && type == ProbeType.STATUS) {
+                status = queryStatus(socket, address, port, timeoutMs);
+            }
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Closing a probe socket can't meaningfully fail
+            }
+        }
+        inFlight.decrementAndGet();
+        permits.release();
+        if (!closed) {
+            callback.onResult(address, port, result, rtt, status);
+        }
+    }
+
+    /**
+     * The classic blocking probe: a plain socket connect with a timeout.
+     */
+    static ProbeResult connect(Socket socket, int address, int port, int timeoutMs) {
+        try {
+            socket.connect(Ipv4.toSocketAddress(address, port), timeoutMs);
+            return ProbeResult.OPEN;
+        } catch (ConnectException e) {
+            return ProbeResult.CLOSED;
+        } catch (SocketTimeoutException e) {
+            return ProbeResult.TIMEOUT;
+        } catch (IOException e) {
+            return ProbeResult.UNREACHABLE;
+        }
+    }
+
+    /**
+     * Runs the status exchange, falling back to the legacy ping on a second connection within the
+     * same deadline if the server doesn't speak the modern one. See {@link StatusSession}.
+     */
+    private static ServerStatus queryStatus(Socket socket, int address, int port, int timeoutMs) {
+        int exchangeMs = (int) StatusSession.exchangeTimeoutMs(timeoutMs);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(exchangeMs);
+        StatusSession session = new StatusSession(address, port);
+        try {
+            socket.setSoTimeout(exchangeMs);
+            session.runBlocking(socket.getInputStream(), socket.getOutputStream());
+        } catch (SocketTimeoutException e) {
+            // Out of time; a silent server is still open
+            return null;
+        } catch (IOException e) {
+            session.onEndOfStream();
+        }
+        if (!session.wantsReconnect()) {
+            return session.status();
+        }
+        try (Socket legacy = new Socket()) {
+            int remainingMs = (int) TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0) {
+                return null;
+            }
+            legacy.connect(Ipv4.toSocketAddress(address, port), remainingMs);
+            legacy.setSoTimeout(Math.max(1, (int) TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            session.onReconnected();
+            return session.runBlocking(legacy.getInputStream(), legacy.getOutputStream());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,37 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out contiguous chunks of target indices to whoever asks next. Workers pull a chunk, walk it,
+ * and come back for another, so nothing is queued per target and several workers can share one scan.
+ */
+public final class ChunkCursor {
+    private final long size;
+    private final int chunkSize;
+    private final AtomicLong next = new AtomicLong();
+
+    public ChunkCursor(long size, int chunkSize) {
+        this.size = size;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return the start index of the claimed chunk, or -1 once everything has been handed out
+     */
+    public long claim() {
+        long start = next.getAndAdd(chunkSize);
+        return start < size ? start : -1;
+    }
+
+    /**
+     * @return the exclusive end of the chunk starting at {@code start}
+     */
+    public long end(long start) {
+        return Math.min(size, start + chunkSize);
+    }
+
+    public long size() {
+        return size;
+    }
+}
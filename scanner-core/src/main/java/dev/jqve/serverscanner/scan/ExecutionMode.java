@@ -0,0 +1,53 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.concurrent.Executors;
+
+/**
+ * How probes are executed. All modes share the same result reporting, so they can be compared
+ * directly on the same target set (see {@link ThroughputReport}).
+ */
+public enum ExecutionMode {
+    /** Non-blocking connects multiplexed on a selector thread ({@link ProbeEngine}). */
+    SELECTOR("Selector"),
+    /** Blocking connects on a fixed pool of platform threads, the original scanner behaviour. */
+    FIXED_POOL("Fixed pool"),
+    /** Blocking connects, one virtual thread per probe, limited by a semaphore. */
+    VIRTUAL_THREADS("Virtual threads");
+
+    private static final int SELECTOR_THREADS = 1;
+
+    private final String displayName;
+
+    ExecutionMode(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String displayName() {
+        return displayName;
+    }
+
+    public ExecutionMode next() {
+        ExecutionMode[] modes = values();
+        return modes[(ordinal() + 1) % modes.length];
+    }
+
+    /**
+     * Creates a prober for this mode.
+     *
+     * @param maxInFlight concurrency limit for the selector and virtual thread modes
+     * @param poolSize    number of platform threads for {@link #FIXED_POOL}
+     * @param threadName  name prefix for any threads the prober creates
+     */
+    public Prober createProber(int maxInFlight, int poolSize, String threadName) {
+        return switch (this) {
+            case SELECTOR -> new ProbeEngine(SELECTOR_THREADS, maxInFlight);
+            case FIXED_POOL -> new BlockingProber(Executors.newFixedThreadPool(poolSize, r -> {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }), poolSize);
+            case VIRTUAL_THREADS -> new BlockingProber(Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(threadName + "-", 0).factory()), maxInFlight);
+        };
+    }
+}
@@ -0,0 +1,177 @@
+package dev.jqve.serverscanner.scan;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cheap first pass that finds out which hosts are up before a deep sweep probes many ports on each.
+ * <p>
+ * Every host gets a quick connect to a handful of {@link #PROBE_PORTS common ports}. Any answer counts,
+ * including a refused connection: only a live host sends the reset. Hosts that stayed silent are then
+ * tried with {@link java.net.InetAddress#isReachable}, which uses ICMP echo where the JVM may and a TCP
+ * echo connect otherwise. Whatever still doesn't answer is left out of the sweep, so a dead host costs
+ * a few probes instead of one timeout per port.
+ * <p>
+ * A host behind a firewall that drops everything looks dead, so callers should let the user sweep it
+ * anyway.
+ */
+public final class HostDiscovery {
+    /** Ports that are open, or at least actively refused, on most live hosts. */
+    public static final PortSpec PROBE_PORTS = PortSpec.parse("22,80,135,443,445,3389,8080,25565");
+    /** Live hosts are kept in a bitmap, so the target spec has to stay reasonably small. */
+    public static final long MAX_HOSTS = 1L << 24;
+
+    private static final int INITIAL_TIMEOUT_MS = 150;
+    private static final int MIN_TIMEOUT_MS = 30;
+    private static final int MAX_TIMEOUT_MS = 500;
+    private static final int REACHABLE_TIMEOUT_MS = 300;
+    private static final int REACHABLE_CONCURRENCY = 128;
+
+    private final TargetSpec hosts;
+    private final AtomicLongArray live;
+    private final AtomicLong liveCount = new AtomicLong();
+    private final CompletableFuture<TargetSpec> result = new CompletableFuture<>();
+    private final ScanScheduler scheduler;
+    private final String threadName;
+    private volatile Thread reachableThread;
+    private volatile boolean stopped;
+
+    private HostDiscovery(TargetSpec hosts, Scanner.Builder probes, String threadName) {
+        this.hosts = hosts;
+        this.threadName = threadName;
+        this.live = new AtomicLongArray((int) ((hosts.size() + 63) >>> 6));
+        this.scheduler = probes.start((address, port, result, rttNanos, status) -> {
+            if (result == ProbeResult.OPEN || result == ProbeResult.CLOSED) {
+                markLive(hosts.indexOf(address));
+            }
+        });
+        scheduler.onComplete(completion -> {
+            if (completion.stopped()) {
+                return;
+            }
+            // isReachable blocks, so it gets a thread of its own rather than the prober's
+            Thread thread = new Thread(this::checkReachable, threadName + "-Reachable");
+            thread.setDaemon(true);
+            reachableThread = thread;
+            thread.start();
+        });
+        scheduler.completion().exceptionally(e -> {
+            result.completeExceptionally(e);
+            return null;
+        });
+    }
+
+    /**
+     * @return whether discovery costs fewer probes than it saves on dead hosts, i.e. whether the sweep
+     *         probes more ports per host than discovery does
+     */
+    public static boolean isWorthwhile(long portsPerHost) {
+        return portsPerHost > PROBE_PORTS.size();
+    }
+
+    /**
+     * Starts discovering the live hosts of {@code hosts} in the background.
+     *
+     * @throws IllegalArgumentException if there are more than {@link #MAX_HOSTS} hosts
+     */
+    public static HostDiscovery start(TargetSpec hosts, ExecutionMode mode, int rate, String threadName) {
+        if (hosts.size() > MAX_HOSTS) {
+            throw new IllegalArgumentException("Too many hosts to check which are up: " + hosts.size());
+        }
+        Scanner.Builder probes = Scanner.builder()
+                .targets(TargetSource.permuted(TargetSource.hosts(hosts, PROBE_PORTS), ThreadLocalRandom.current().nextLong()))
+                .probeType(ProbeType.CONNECT)
+                .executionMode(mode)
+                .timeouts(INITIAL_TIMEOUT_MS, MIN_TIMEOUT_MS, MAX_TIMEOUT_MS)
+                .rateLimit(rate)
+                .threadName(threadName);
+        return new HostDiscovery(hosts, probes, threadName);
+    }
+
+    /**
+     * Completes with the hosts found to be up, possibly none. Cancelled if discovery is stopped.
+     */
+    public CompletableFuture<TargetSpec> result() {
+        return result;
+    }
+
+    /**
+     * @return number of live hosts found so far
+     */
+    public long liveHosts() {
+        return liveCount.get();
+    }
+
+    /**
+     * The scheduler running the connect probes, e.g. for its metrics and pacer.
+     */
+    public ScanScheduler scheduler() {
+        return scheduler;
+    }
+
+    public void stop() {
+        stopped = true;
+        scheduler.stop();
+        Thread thread = reachableThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        result.cancel(false);
+    }
+
+    private void markLive(long index) {
+        if (index < 0) {
+            return;
+        }
+        int word = (int) (index >>> 6);
+        long bit = 1L << index;
+        long current;
+        do {
+            current = live.get(word);
+            if ((current & bit) != 0) {
+                return;
+            }
+        } while (!live.compareAndSet(word, current, current | bit));
+        liveCount.incrementAndGet();
+    }
+
+    private boolean isLive(long index) {
+        return (live.get((int) (index >>> 6)) & (1L << index)) != 0;
+    }
+
+    private void checkReachable() {
+        Semaphore permits = new Semaphore(REACHABLE_CONCURRENCY);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long index = 0; index < hosts.size() && !stopped; index++) {
+                if (isLive(index)) {
+                    continue;
+                }
+                permits.acquire();
+                long host = index;
+                executor.execute(() -> {
+                    try {
+                        if (Ipv4.toInetAddress(hosts.addressAt(host)).isReachable(REACHABLE_TIMEOUT_MS)) {
+                            markLive(host);
+                        }
+                    } catch (IOException e) {
+                        // Counts as not reachable
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            // Stopped; the result has already been cancelled
+            return;
+        }
+        if (!stopped) {
+            result.complete(hosts.subset(this::isLive));
+        }
+    }
+}
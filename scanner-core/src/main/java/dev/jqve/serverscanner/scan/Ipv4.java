@@ -0,0 +1,83 @@
+package dev.jqve.serverscanner.scan;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Helpers for treating IPv4 addresses as plain {@code int}s, so the scanner can
+ * walk and store targets without creating an {@link InetAddress} per host.
+ */
+public final class Ipv4 {
+    private Ipv4() {
+    }
+
+    /**
+     * Parses a dotted-quad string into its 32-bit value.
+     *
+     * @throws IllegalArgumentException if the string is not a valid IPv4 address
+     */
+    public static int parse(String ip) {
+        int value = 0;
+        int octet = -1;
+        int dots = 0;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c == '.') {
+                if (octet < 0 || ++dots > 3) {
+                    throw new IllegalArgumentException("Invalid IPv4 address: " + ip);
+                }
+                value = (value << 8) | octet;
+                octet = -1;
+            } else if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    throw new IllegalArgumentException("Invalid IPv4 address: " + ip);
+                }
+            } else {
+                throw new IllegalArgumentException("Invalid IPv4 address: " + ip);
+            }
+        }
+        if (octet < 0 || dots != 3) {
+            throw new IllegalArgumentException("Invalid IPv4 address: " + ip);
+        }
+        return (value << 8) | octet;
+    }
+
+    public static String format(int address) {
+        return ((address >>> 24) & 0xff) + "." + ((address >>> 16) & 0xff) + "."
+                + ((address >>> 8) & 0xff) + "." + (address & 0xff);
+    }
+
+    /**
+     * @return the netmask for a prefix length, e.g. {@code 0xffffff00} for 24
+     */
+    public static int mask(int prefixLength) {
+        return prefixLength == 0 ? 0 : 0xffffffff << (32 - prefixLength);
+    }
+
+    public static int fromInetAddress(Inet4Address address) {
+        byte[] bytes = address.getAddress();
+        return ((bytes[0] & 0xff) << 24) | ((bytes[1] & 0xff) << 16) | ((bytes[2] & 0xff) << 8) | (bytes[3] & 0xff);
+    }
+
+    public static InetAddress toInetAddress(int address) {
+        byte[] bytes = {
+                (byte) (address >>> 24),
+                (byte) (address >>> 16),
+                (byte) (address >>> 8),
+                (byte) address
+        };
+        try {
+            return InetAddress.getByAddress(bytes);
+        } catch (UnknownHostException e) {
+            // Only thrown for an illegal length, which cannot happen here
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static InetSocketAddress toSocketAddress(int address, int port) {
+        return new InetSocketAddress(toInetAddress(address), port);
+    }
+}
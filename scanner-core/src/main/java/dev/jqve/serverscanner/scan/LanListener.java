@@ -0,0 +1,149 @@
+package dev.jqve.serverscanner.scan;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Passive discovery of worlds opened to LAN. While a world is open, the game announces it every
+ * 1.5 seconds to the multicast group {@code 224.0.2.60:4445} as {@code [MOTD]text[/MOTD][AD]port[/AD]}.
+ * Listening to those finds every LAN world within a couple of seconds without sending a single probe.
+ * <p>
+ * The socket is bound with {@code SO_REUSEADDR}, so it shares the port with the multiplayer screen's
+ * own LAN detector, and joins the group on every multicast capable IPv4 interface.
+ */
+public final class LanListener implements AutoCloseable {
+    public static final int PORT = 4445;
+    private static final String GROUP = "224.0.2.60";
+    // Same limit as the game's own detector
+    private static final int MAX_PACKET = 1024;
+
+    /**
+     * A world announced by the host at {@code address}, reachable on {@code port}.
+     */
+    public record Announcement(int address, int port, String motd) {
+    }
+
+    private final DatagramChannel channel;
+    private final Consumer<Announcement> listener;
+
+    private LanListener(DatagramChannel channel, Consumer<Announcement> listener) {
+        this.channel = channel;
+        this.listener = listener;
+    }
+
+    /**
+     * Joins the announcement group and reports every announcement to {@code listener} from a daemon
+     * thread. Worlds announce themselves repeatedly, so the listener sees the same world many times.
+     *
+     * @throws IOException if the port can't be bound or no interface could join the group
+     */
+    public static LanListener start(Consumer<Announcement> listener, String threadName) throws IOException {
+        DatagramChannel channel = DatagramChannel.open(StandardProtocolFamily.INET);
+        try {
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            channel.bind(new InetSocketAddress(PORT));
+            InetAddress group = InetAddress.getByName(GROUP);
+            int joined = 0;
+            for (NetworkInterface networkInterface : multicastInterfaces()) {
+                try {
+                    channel.join(group, networkInterface);
+                    joined++;
+                } catch (IOException e) {
+                    // Some virtual interfaces claim multicast support but refuse to join
+                }
+            }
+            if (joined == 0) {
+                throw new IOException("No network interface could join " + GROUP);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        LanListener lanListener = new LanListener(channel, listener);
+        Thread thread = new Thread(lanListener::receive, threadName);
+        thread.setDaemon(true);
+        thread.start();
+        return lanListener;
+    }
+
+    private static List<NetworkInterface> multicastInterfaces() throws SocketException {
+        return NetworkInterface.networkInterfaces().filter(networkInterface -> {
+            try {
+                return networkInterface.isUp() && networkInterface.supportsMulticast()
+                        && networkInterface.inetAddresses().anyMatch(Inet4Address.class::isInstance);
+            } catch (SocketException e) {
+                return false;
+            }
+        }).toList();
+    }
+
+    private void receive() {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_PACKET);
+        try {
+            while (true) {
+                buffer.clear();
+                if (!(channel.receive(buffer) instanceof InetSocketAddress sender)
+                        || !(sender.getAddress() instanceof Inet4Address address)) {
+                    continue;
+                }
+                buffer.flip();
+                String text = StandardCharsets.UTF_8.decode(buffer).toString();
+                Announcement announcement = parse(Ipv4.fromInetAddress(address), text);
+                if (announcement != null) {
+                    listener.accept(announcement);
+                }
+            }
+        } catch (ClosedChannelException e) {
+            // Closed by close()
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * @return the announcement in {@code text}, or {@code null} if it isn't one
+     */
+    static Announcement parse(int address, String text) {
+        int motdStart = text.indexOf("[MOTD]");
+        int motdEnd = text.indexOf("[/MOTD]", motdStart);
+        if (motdStart < 0 || motdEnd < 0) {
+            return null;
+        }
+        int portStart = text.indexOf("[AD]", motdEnd);
+        int portEnd = text.indexOf("[/AD]", portStart);
+        if (portStart < 0 || portEnd < 0) {
+            return null;
+        }
+        int port;
+        try {
+            port = Integer.parseInt(text.substring(portStart + "[AD]".length(), portEnd).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (port < 1 || port > 65535) {
+            return null;
+        }
+        return new Announcement(address, port, text.substring(motdStart + "[MOTD]".length(), motdEnd));
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+    }
+}
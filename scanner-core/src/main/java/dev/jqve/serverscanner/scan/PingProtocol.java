@@ -0,0 +1,13 @@
+package dev.jqve.serverscanner.scan;
+
+/**
+ * Which flavour of the Server List Ping a server answered.
+ */
+public enum PingProtocol {
+    /** The JSON status exchange of 1.7 and later. */
+    MODERN,
+    /** The {@code 0xFE 0x01} ping of 1.4 to 1.6, answered with a {@code §1} kick string. */
+    LEGACY,
+    /** The bare {@code 0xFE} ping of Beta 1.8 to 1.3, answered with {@code motd§online§max}. */
+    BETA
+}
@@ -0,0 +1,98 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A set of TCP ports, described as single ports and ranges, e.g. {@code "25565,25566-25600,19132"}.
+ * <p>
+ * There are at most 65535 ports, so unlike {@link TargetSpec} the ports are simply kept in a sorted
+ * array, which makes {@link #portAt} a plain lookup. Duplicates and overlaps are merged.
+ */
+public final class PortSpec {
+    private final int[] ports;
+
+    private PortSpec(BitSet ports) {
+        this.ports = ports.stream().toArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if any entry is malformed or out of range, or the spec is empty
+     */
+    public static PortSpec parse(String text) {
+        BitSet ports = new BitSet(65536);
+        for (String part : text.split(",")) {
+            String entry = part.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int dash = entry.indexOf('-');
+            int first = parsePort(dash < 0 ? entry : entry.substring(0, dash), entry);
+            int last = dash < 0 ? first : parsePort(entry.substring(dash + 1), entry);
+            if (last < first) {
+                throw new IllegalArgumentException("Port range end is before its start: " + entry);
+            }
+            ports.set(first, last + 1);
+        }
+        if (ports.isEmpty()) {
+            throw new IllegalArgumentException("No ports given");
+        }
+        return new PortSpec(ports);
+    }
+
+    /**
+     * @return a spec holding just {@code port}
+     */
+    public static PortSpec of(int port) {
+        return parse(Integer.toString(port));
+    }
+
+    private static int parsePort(String text, String entry) {
+        try {
+            int port = Integer.parseInt(text.trim());
+            if (port >= 1 && port <= 65535) {
+                return port;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid port: " + entry);
+    }
+
+    public int size() {
+        return ports.length;
+    }
+
+    /**
+     * @return the port at position {@code index} in ascending order
+     */
+    public int portAt(int index) {
+        return ports[index];
+    }
+
+    public boolean contains(int port) {
+        return Arrays.binarySearch(ports, port) >= 0;
+    }
+
+    /**
+     * @return the spec in canonical form, e.g. {@code "25565-25600,30000"}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < ports.length; i++) {
+            int first = ports[i];
+            while (i + 1 < ports.length && ports[i + 1] == ports[i] + 1) {
+                i++;
+            }
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(first);
+            if (ports[i] != first) {
+                builder.append('-').append(ports[i]);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,103 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Concurrent result store for a port sweep: two bits per port, packed into an {@link AtomicLongArray}.
+ * <p>
+ * A full 1-65535 sweep takes 16 KB no matter how many ports are open, probe threads write without
+ * locking, and readers can look at partial results at any time without copying anything.
+ */
+public final class PortStateMap {
+    public enum State {
+        UNKNOWN, OPEN, CLOSED, FILTERED;
+
+        private static final State[] VALUES = values();
+
+        public static State of(ProbeResult result) {
+            return switch (result) {
+                case OPEN -> OPEN;
+                case CLOSED -> CLOSED;
+                case TIMEOUT, UNREACHABLE -> FILTERED;
+            };
+        }
+    }
+
+    private static final int PORTS_PER_WORD = 32;
+    private static final long LOW_BITS = 0x5555555555555555L;
+
+    private final int firstPort;
+    private final int size;
+    private final AtomicLongArray words;
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(State.VALUES.length);
+
+    public PortStateMap(int firstPort, int lastPort) {
+        this.firstPort = firstPort;
+        this.size = lastPort - firstPort + 1;
+        this.words = new AtomicLongArray((size + PORTS_PER_WORD - 1) / PORTS_PER_WORD);
+        counts.set(State.UNKNOWN.ordinal(), size);
+    }
+
+    public void set(int port, State state) {
+        int index = port - firstPort;
+        int word = index / PORTS_PER_WORD;
+        int shift = (index % PORTS_PER_WORD) * 2;
+        long mask = 3L << shift;
+        long bits = (long) state.ordinal() << shift;
+        long current;
+        long updated;
+        do {
+            current = words.get(word);
+            updated = (current & ~mask) | bits;
+        } while (!words.compareAndSet(word, current, updated));
+        int previous = (int) ((current & mask) >>> shift);
+        if (previous != state.ordinal()) {
+            counts.decrementAndGet(previous);
+            counts.incrementAndGet(state.ordinal());
+        }
+    }
+
+    public State get(int port) {
+        int index = port - firstPort;
+        long word = words.get(index / PORTS_PER_WORD);
+        return State.VALUES[(int) ((word >>> ((index % PORTS_PER_WORD) * 2)) & 3L)];
+    }
+
+    public int count(State state) {
+        return counts.get(state.ordinal());
+    }
+
+    /**
+     * @return number of ports with a known state
+     */
+    public int resolved() {
+        return size - count(State.UNKNOWN);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calls {@code action} for every port currently in {@code state}, in ascending order. Only whole
+     * words are read, so ports resolved concurrently may or may not be included.
+     */
+    public void forEach(State state, IntConsumer action) {
+        // Repeat the 2-bit state across the word; XOR turns matching fields into 00
+        long pattern = LOW_BITS * state.ordinal();
+        for (int word = 0; word < words.length(); word++) {
+            long diff = words.get(word) ^ pattern;
+            long matches = ~(diff | (diff >>> 1)) & LOW_BITS;
+            while (matches != 0) {
+                int index = word * PORTS_PER_WORD + Long.numberOfTrailingZeros(matches) / 2;
+                if (index >= size) {
+                    break;
+                }
+                action.accept(firstPort + index);
+                matches &= matches - 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package dev.jqve.serverscanner.scan;
+
+/**
+ * Receives the outcome of a probe submitted to a {@link ProbeEngine}.
+ * <p>
+ * Callbacks run on the engine's selector thread, so they must be short and must never block;
+ * hand anything expensive off to another thread.
+ */
+@FunctionalInterface
+public interface ProbeCallback {
+    /**
+     * @param address   the probed IPv4 address as an int (see {@link Ipv4})
+     * @param port      the probed port
+     * @param result    what happened
+     * @param rttNanos  time from starting the connect until it succeeded or failed
+     * @param status    for {@link ProbeType#STATUS} probes, what the server reported; {@code null} for plain
+     *                  connect probes and for open ports that did not answer the status protocol
+     */
+    void onResult(int address, int port, ProbeResult result, long rttNanos, ServerStatus status);
+}
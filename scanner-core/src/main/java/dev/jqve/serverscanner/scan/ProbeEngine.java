@@ -0,0 +1,346 @@
+package dev.jqve.serverscanner.scan;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking TCP connect engine.
+ * <p>
+ * Instead of parking one thread per socket in {@code Socket.connect}, every probe is a non-blocking
+ * {@link SocketChannel} registered with one of a small number of {@link Selector} threads. Timeouts
+ * are tracked on a {@link TimerWheel} per selector, so thousands of connects can be in flight at once.
+ * <p>
+ * {@link #probe} blocks the caller once {@code maxInFlight} probes are outstanding, which gives the
+ * submitting loop natural back-pressure without queueing every target up front.
+ * <p>
+ * {@link ProbeType#STATUS} probes stay on the selector after connecting and run a {@link StatusSession}
+ * over the same channel, so status exchanges with many hosts are pipelined just like the connects.
+ * A server that doesn't speak the modern exchange gets the legacy ping on one more connection, which
+ * shares the exchange's deadline and the probe's slot.
+ */
+public final class ProbeEngine implements Prober {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int WHEEL_SIZE = 512;
+
+    private final SelectorLoop[] loops;
+    private final Semaphore permits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * @param selectorThreads number of selector threads; one or two is plenty
+     * @param maxInFlight     upper bound on concurrently open connect attempts
+     */
+    public ProbeEngine(int selectorThreads, int maxInFlight) {
+        if (selectorThreads < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("selectorThreads and maxInFlight must be positive");
+        }
+        this.permits = new Semaphore(maxInFlight);
+        this.loops = new SelectorLoop[selectorThreads];
+        try {
+            for (int i = 0; i < selectorThreads; i++) {
+                loops[i] = new SelectorLoop(Selector.open());
+            }
+        } catch (IOException e) {
+            close();
+            throw new IllegalStateException("Could not open selector", e);
+        }
+        for (int i = 0; i < selectorThreads; i++) {
+            Thread thread = new Thread(loops[i], "Probe-Selector-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Starts a connect to {@code address:port}. Blocks while the engine is at capacity.
+     *
+     * @throws InterruptedException  if interrupted while waiting for a free slot
+     * @throws IllegalStateException if the engine has been closed
+     */
+    @Override
+    public void probe(int address, int port, int timeoutMs, ProbeType type, ProbeCallback callback) throws InterruptedException {
+        permits.acquire();
+        if (closed) {
+            permits.release();
+            throw new IllegalStateException("Probe engine is closed");
+        }
+        inFlight.incrementAndGet();
+        Probe probe = new Probe(address, port, timeoutMs, type, callback);
+        SelectorLoop loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+        loop.submit(probe);
+    }
+
+    @Override
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops all selector threads and closes every outstanding channel. Pending callbacks are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (SelectorLoop loop : loops) {
+            if (loop != null) {
+                loop.selector.wakeup();
+            }
+        }
+    }
+
+    private void finish(Probe probe, ProbeResult result, ServerStatus status) {
+        inFlight.decrementAndGet();
+        permits.release();
+        probe.callback.onResult(probe.address, probe.port, result, probe.rttNanos, status);
+    }
+
+    private static final class Probe extends TimerWheel.Timeout {
+        final int address;
+        final int port;
+        final int timeoutMs;
+        final ProbeType type;
+        final ProbeCallback callback;
+        long startNanos;
+        long rttNanos;
+        long exchangeDeadlineNanos;
+        SocketChannel channel;
+        StatusSession session;
+
+        Probe(int address, int port, int timeoutMs, ProbeType type, ProbeCallback callback) {
+            this.address = address;
+            this.port = port;
+            this.timeoutMs = timeoutMs;
+            this.type = type;
+            this.callback = callback;
+        }
+    }
+
+    private final class SelectorLoop implements Runnable {
+        final Selector selector;
+        final Queue<Probe> pending = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean wakeupRequested = new AtomicBoolean();
+        final TimerWheel<Probe> wheel = new TimerWheel<>(TICK_NANOS, WHEEL_SIZE);
+
+        SelectorLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        void submit(Probe probe) {
+            pending.add(probe);
+            // Only one wakeup per select round, no matter how many probes arrive
+            if (wakeupRequested.compareAndSet(false, true)) {
+                selector.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    selector.select(wheel.tickMillis());
+                    wakeupRequested.set(false);
+                    registerPending();
+                    processSelectedKeys();
+                    wheel.advance(this::expire);
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                // Selector is gone, fall through to cleanup
+            } finally {
+                shutdown();
+            }
+        }
+
+        private void registerPending() {
+            Probe probe;
+            while ((probe = pending.poll()) != null) {
+                probe.startNanos = System.nanoTime();
+                try {
+                    SocketChannel channel = SocketChannel.open();
+                    probe.channel = channel;
+                    channel.configureBlocking(false);
+                    // Reset on close instead of lingering in TIME_WAIT, which would exhaust
+                    // local ports during large sweeps
+                    channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+                    if (channel.connect(Ipv4.toSocketAddress(probe.address, probe.port))) {
+                        connected(probe, channel.register(selector, 0, probe));
+                    } else {
+                        channel.register(selector, SelectionKey.OP_CONNECT, probe);
+                        wheel.schedule(probe, TimeUnit.MILLISECONDS.toNanos(probe.timeoutMs));
+                    }
+                } catch (ConnectException e) {
+                    complete(probe, ProbeResult.CLOSED);
+                } catch (IOException e) {
+                    complete(probe, ProbeResult.UNREACHABLE);
+                }
+            }
+        }
+
+        private void processSelectedKeys() {
+            Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+            while (iterator.hasNext()) {
+                SelectionKey key = iterator.next();
+                iterator.remove();
+                Probe probe = (Probe) key.attachment();
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isConnectable()) {
+                    finishConnect(probe, key);
+                } else if (probe.session != null) {
+                    exchange(probe, key);
+                }
+            }
+        }
+
+        private void finishConnect(Probe probe, SelectionKey key) {
+            try {
+                if (probe.channel.finishConnect()) {
+                    connected(probe, key);
+                }
+            } catch (IOException e) {
+                // Losing the legacy ping's connection doesn't change that the port was open
+                complete(probe, probe.session != null ? ProbeResult.OPEN
+                        : e instanceof ConnectException ? ProbeResult.CLOSED : ProbeResult.UNREACHABLE);
+            }
+        }
+
+        private void connected(Probe probe, SelectionKey key) {
+            if (probe.session != null) {
+                // Reconnected for the legacy ping; the deadline keeps running
+                probe.session.onReconnected();
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+            probe.rttNanos = System.nanoTime() - probe.startNanos;
+            if (probe.type != ProbeType.STATUS) {
+                complete(probe, ProbeResult.OPEN);
+                return;
+            }
+            // Keep the connection and run the status exchange on it, with its own deadline, which also
+            // covers the legacy ping if the server turns out not to speak the modern one
+            probe.session = new StatusSession(probe.address, probe.port);
+            long exchangeNanos = TimeUnit.MILLISECONDS.toNanos(StatusSession.exchangeTimeoutMs(probe.timeoutMs));
+            probe.exchangeDeadlineNanos = System.nanoTime() + exchangeNanos;
+            wheel.schedule(probe, exchangeNanos);
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+
+        private void expire(Probe probe) {
+            if (probe.session == null) {
+                complete(probe, ProbeResult.TIMEOUT);
+                return;
+            }
+            long remaining = probe.exchangeDeadlineNanos - System.nanoTime();
+            if (remaining > 0) {
+                // Woken early by the wheel's rounding
+                wheel.schedule(probe, remaining);
+            } else {
+                // A timed-out status exchange (or legacy reconnect) still connected once, so the port
+                // counts as open
+                complete(probe, ProbeResult.OPEN);
+            }
+        }
+
+        /**
+         * Replaces the probe's channel with a new connection for the legacy ping. The probe stays on
+         * the wheel with its exchange deadline.
+         */
+        private void reconnect(Probe probe) {
+            closeQuietly(probe.channel);
+            try {
+                SocketChannel channel = SocketChannel.open();
+                probe.channel = channel;
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+                if (channel.connect(Ipv4.toSocketAddress(probe.address, probe.port))) {
+                    connected(probe, channel.register(selector, 0, probe));
+                } else {
+                    channel.register(selector, SelectionKey.OP_CONNECT, probe);
+                }
+            } catch (IOException e) {
+                complete(probe, ProbeResult.OPEN);
+            }
+        }
+
+        private void exchange(Probe probe, SelectionKey key) {
+            StatusSession session = probe.session;
+            try {
+                if (key.isWritable()) {
+                    probe.channel.write(session.outbound());
+                    session.onWritten();
+                } else if (key.isReadable()) {
+                    if (probe.channel.read(session.inbound()) < 0) {
+                        session.onEndOfStream();
+                    } else {
+                        session.onRead();
+                    }
+                }
+            } catch (IOException e) {
+                session.onEndOfStream();
+            }
+            if (session.isFinished()) {
+                complete(probe, ProbeResult.OPEN);
+            } else if (session.wantsReconnect()) {
+                reconnect(probe);
+            } else {
+                key.interestOps(session.wantsWrite() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            }
+        }
+
+        private void complete(Probe probe, ProbeResult result) {
+            if (probe.rttNanos == 0) {
+                probe.rttNanos = System.nanoTime() - probe.startNanos;
+            }
+            wheel.cancel(probe);
+            closeQuietly(probe.channel);
+            probe.channel = null;
+            ServerStatus status = probe.session != null ? probe.session.status() : null;
+            probe.session = null;
+            finish(probe, result, status);
+        }
+
+        private void shutdown() {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly((SocketChannel) key.channel());
+            }
+            Probe probe;
+            while ((probe = pending.poll()) != null) {
+                closeQuietly(probe.channel);
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // Nothing left to do
+            }
+        }
+
+        private void closeQuietly(SocketChannel channel) {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Closing a probe socket can't meaningfully fail
+            }
+        }
+    }
+}
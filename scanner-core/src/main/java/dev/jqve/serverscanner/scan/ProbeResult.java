@@ -0,0 +1,15 @@
+package dev.jqve.serverscanner.scan;
+
+/**
+ * Outcome of a single TCP connect probe.
+ */
+public enum ProbeResult {
+    /** The connection was accepted. */
+    OPEN,
+    /** The host answered with a reset (ECONNREFUSED), so it is up but nothing listens on the port. */
+    CLOSED,
+    /** No answer before the timeout expired; the port is filtered or the host is down. */
+    TIMEOUT,
+    /** The connect failed locally or with an ICMP error (no route, unreachable, out of sockets, ...). */
+    UNREACHABLE
+}
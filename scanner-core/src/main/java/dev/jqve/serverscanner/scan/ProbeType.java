@@ -0,0 +1,11 @@
+package dev.jqve.serverscanner.scan;
+
+/**
+ * What a probe does once the TCP connection is established.
+ */
+public enum ProbeType {
+    /** Only check whether the port accepts connections. */
+    CONNECT,
+    /** Run the Minecraft Server List Ping (handshake, status request, ping/pong) on the open connection. */
+    STATUS
+}
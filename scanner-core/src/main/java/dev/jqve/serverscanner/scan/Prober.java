@@ -0,0 +1,36 @@
+package dev.jqve.serverscanner.scan;
+
+/**
+ * Something that can run TCP connect probes asynchronously and report back through a {@link ProbeCallback}.
+ * <p>
+ * Implementations bound the number of outstanding probes themselves: {@link #probe} blocks the caller
+ * while that limit is reached.
+ */
+public interface Prober extends AutoCloseable {
+    /**
+     * Starts a probe of {@code address:port}, blocking while the prober is at capacity.
+     *
+     * @param timeoutMs connect timeout; {@link ProbeType#STATUS} probes get extra time for the exchange
+     * @throws InterruptedException  if interrupted while waiting for capacity
+     * @throws IllegalStateException if the prober has been closed
+     */
+    void probe(int address, int port, int timeoutMs, ProbeType type, ProbeCallback callback) throws InterruptedException;
+
+    /**
+     * Starts a plain {@link ProbeType#CONNECT} probe.
+     */
+    default void probe(int address, int port, int timeoutMs, ProbeCallback callback) throws InterruptedException {
+        probe(address, port, timeoutMs, ProbeType.CONNECT, callback);
+    }
+
+    /**
+     * @return number of probes started but not yet reported
+     */
+    int inFlight();
+
+    /**
+     * Aborts outstanding probes and releases all threads and sockets.
+     */
+    @Override
+    void close();
+}
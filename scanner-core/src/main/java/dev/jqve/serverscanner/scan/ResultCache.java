@@ -0,0 +1,319 @@
+package dev.jqve.serverscanner.scan;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Last known result per host and port, kept across sessions so a scan can skip targets whose result
+ * is still fresh.
+ * <p>
+ * The cache is a fixed-size open-addressing hash table of 32-byte records in a memory-mapped file:
+ * <pre>
+ *  0  long  key           packed target (see {@link TargetSource#pack}) with {@link #OCCUPIED} set
+ *  8  long  updatedMillis when the result was measured
+ * 16  int   accessSeconds last lookup or update, for LRU eviction
+ * 20  int   rttMicros
+ * 24  int   statusHash    {@link #statusHash} of the status response, 0 if there was none
+ * 28  byte  result        {@link ProbeResult} ordinal
+ * </pre>
+ * Lookups and updates touch only the mapped record, so nothing is allocated per target. Once the
+ * table is three quarters full, every new entry evicts the least recently used of a few entries
+ * sampled by a sweeping clock hand, so an update never costs more than a handful of slots, even on a
+ * prober's selector thread. Results older than the TTL are still stored but reported as stale.
+ * <p>
+ * Only answers are served from the cache: a refused port stays fresh for at most
+ * {@link #CLOSED_TTL_MILLIS}, since servers come and go, and a timeout is never fresh, since it may
+ * just have been one dropped packet.
+ * <p>
+ * All methods are synchronized; probe callbacks and the feeder thread may use one cache concurrently.
+ */
+public final class ResultCache implements AutoCloseable {
+    private static final int MAGIC = 0x4D535243; // "MSRC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 32;
+    private static final long OCCUPIED = 1L << 62;
+    /** Freshness limit for {@link ProbeResult#CLOSED} results. */
+    public static final long CLOSED_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    /** Entries compared per eviction; the oldest goes. */
+    private static final int EVICTION_SAMPLES = 8;
+
+    private static final int KEY = 0;
+    private static final int UPDATED = 8;
+    private static final int ACCESS = 16;
+    private static final int RTT = 20;
+    private static final int STATUS_HASH = 24;
+    private static final int RESULT = 28;
+
+    private static final ProbeResult[] RESULTS = ProbeResult.values();
+
+    /** Fresh results, visited by {@link #forEachFresh}. */
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(int address, int port, long rttNanos, int statusHash, long updatedMillis);
+    }
+
+    private final ByteBuffer buffer;
+    private final FileChannel channel;
+    private final int capacity;
+    private final int mask;
+    private final int maxSize;
+    private final long ttlMillis;
+    private int size;
+    // Where the next eviction starts sampling
+    private int clockHand;
+
+    private ResultCache(ByteBuffer buffer, FileChannel channel, int capacity, long ttlMillis) {
+        this.buffer = buffer;
+        this.channel = channel;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.maxSize = capacity / 4 * 3;
+        this.ttlMillis = ttlMillis;
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != capacity) {
+            clear();
+        } else {
+            this.size = buffer.getInt(12);
+        }
+    }
+
+    /**
+     * Opens (or creates) the cache file. A file with a different layout or capacity is reset.
+     *
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public static ResultCache open(Path file, int capacity, long ttlMillis) throws IOException {
+        int slots = slots(capacity);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * RECORD_SIZE);
+            return new ResultCache(buffer, channel, slots, ttlMillis);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return a cache with the same behaviour that lives on the heap only, e.g. when the file can't be opened
+     */
+    public static ResultCache inMemory(int capacity, long ttlMillis) {
+        int slots = slots(capacity);
+        return new ResultCache(ByteBuffer.allocate(HEADER_SIZE + slots * RECORD_SIZE), null, slots, ttlMillis);
+    }
+
+    private static int slots(int capacity) {
+        return capacity <= 16 ? 16 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Stores the final result of a probe, replacing any older entry for the target.
+     */
+    public synchronized void record(int address, int port, ProbeResult result, long rttNanos, ServerStatus status) {
+        long key = TargetSource.pack(address, port) | OCCUPIED;
+        int slot = find(key);
+        if (slot < 0) {
+            if (size >= maxSize) {
+                evictOne();
+            }
+            slot = ~find(key);
+            buffer.putLong(offset(slot) + KEY, key);
+            setSize(size + 1);
+        }
+        long now = System.currentTimeMillis();
+        int offset = offset(slot);
+        buffer.putLong(offset + UPDATED, now);
+        buffer.putInt(offset + ACCESS, (int) (now / 1000));
+        buffer.putInt(offset + RTT, (int) Math.min(Integer.MAX_VALUE, rttNanos / 1000));
+        buffer.putInt(offset + STATUS_HASH, status != null ? statusHash(status) : 0);
+        buffer.put(offset + RESULT, (byte) result.ordinal());
+    }
+
+    /**
+     * @return the cached result if it is still fresh (see the class comment), otherwise {@code null}
+     */
+    public synchronized ProbeResult freshResult(int address, int port) {
+        int slot = find(TargetSource.pack(address, port) | OCCUPIED);
+        if (slot < 0) {
+            return null;
+        }
+        int offset = offset(slot);
+        ProbeResult result = result(offset);
+        long now = System.currentTimeMillis();
+        if (result == null || now - buffer.getLong(offset + UPDATED) > ttlMillis(result)) {
+            return null;
+        }
+        buffer.putInt(offset + ACCESS, (int) (now / 1000));
+        return result;
+    }
+
+    /**
+     * @return the result stored in the record at {@code offset}, or {@code null} if the file holds an
+     *         ordinal no {@link ProbeResult} has, e.g. after a crash mid-write
+     */
+    private ProbeResult result(int offset) {
+        int ordinal = buffer.get(offset + RESULT);
+        return ordinal >= 0 && ordinal < RESULTS.length ? RESULTS[ordinal] : null;
+    }
+
+    private long ttlMillis(ProbeResult result) {
+        return switch (result) {
+            case OPEN -> ttlMillis;
+            case CLOSED -> Math.min(ttlMillis, CLOSED_TTL_MILLIS);
+            default -> -1;
+        };
+    }
+
+    /**
+     * Visits every fresh entry with the given result, in table order.
+     */
+    public synchronized void forEachFresh(ProbeResult result, Visitor visitor) {
+        long now = System.currentTimeMillis();
+        for (int slot = 0; slot < capacity; slot++) {
+            int offset = offset(slot);
+            long key = buffer.getLong(offset + KEY);
+            if (key == 0 || result(offset) != result) {
+                continue;
+            }
+            long updated = buffer.getLong(offset + UPDATED);
+            if (now - updated <= ttlMillis(result)) {
+                long target = key & ~OCCUPIED;
+                visitor.accept(TargetSource.address(target), TargetSource.port(target),
+                        buffer.getInt(offset + RTT) * 1000L, buffer.getInt(offset + STATUS_HASH), updated);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < buffer.capacity(); i += 8) {
+            buffer.putLong(i, 0);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, capacity);
+        setSize(0);
+    }
+
+    /**
+     * Hash of the parts of a status response that identify a server; player counts and ping are left
+     * out since they change all the time.
+     */
+    public static int statusHash(ServerStatus status) {
+        int hash = status.motd().hashCode();
+        hash = 31 * hash + status.versionName().hashCode();
+        hash = 31 * hash + status.protocolVersion();
+        hash = 31 * hash + status.maxPlayers();
+        // 0 means "no status"
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * Writes outstanding changes to disk and releases the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            ((MappedByteBuffer) buffer).force();
+            channel.close();
+        }
+    }
+
+    /**
+     * @return the slot holding {@code key}, or the bitwise complement of the free slot where it would go
+     */
+    private int find(long key) {
+        int slot = mix(key) & mask;
+        while (true) {
+            long current = buffer.getLong(offset(slot) + KEY);
+            if (current == key) {
+                return slot;
+            }
+            if (current == 0) {
+                return ~slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes the least recently used of the next {@link #EVICTION_SAMPLES} entries after the clock
+     * hand. The table is at most three quarters full, so this looks at only a few more slots.
+     */
+    private void evictOne() {
+        int victim = -1;
+        int oldestAccess = 0;
+        long oldestUpdate = 0;
+        int sampled = 0;
+        for (int scanned = 0; scanned < capacity && sampled < EVICTION_SAMPLES; scanned++) {
+            int slot = clockHand;
+            clockHand = (clockHand + 1) & mask;
+            int offset = offset(slot);
+            if (buffer.getLong(offset + KEY) == 0) {
+                continue;
+            }
+            int access = buffer.getInt(offset + ACCESS);
+            long updated = buffer.getLong(offset + UPDATED);
+            // Access times are in seconds; within one, the entry written first goes
+            if (victim < 0 || access < oldestAccess || (access == oldestAccess && updated < oldestUpdate)) {
+                victim = slot;
+                oldestAccess = access;
+                oldestUpdate = updated;
+            }
+            sampled++;
+        }
+        if (victim >= 0) {
+            delete(victim);
+            setSize(size - 1);
+        }
+    }
+
+    /**
+     * Empties {@code slot} and shifts later entries of the same probe chain back, so lookups never
+     * stop early at the hole and no tombstones are needed.
+     */
+    private void delete(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        long key;
+        while ((key = buffer.getLong(offset(next) + KEY)) != 0) {
+            int home = mix(key) & mask;
+            // The entry may move back if the hole lies between its home slot and where it is now
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                buffer.put(offset(hole), buffer, offset(next), RECORD_SIZE);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        int offset = offset(hole);
+        for (int i = 0; i < RECORD_SIZE; i += 8) {
+            buffer.putLong(offset + i, 0);
+        }
+    }
+
+    private void setSize(int size) {
+        this.size = size;
+        buffer.putInt(12, size);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
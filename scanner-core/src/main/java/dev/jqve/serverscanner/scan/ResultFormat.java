@@ -0,0 +1,47 @@
+package dev.jqve.serverscanner.scan;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * File formats of {@link ResultWriter} and {@link ResultReader}, told apart by file extension.
+ */
+public enum ResultFormat {
+    /**
+     * One JSON object per line with the address, port, RTT, status hash and, for servers that answered
+     * the status ping, what they reported. For other tooling.
+     */
+    NDJSON(".ndjson"),
+    /**
+     * Fixed 14-byte records of packed IPv4 address, port, RTT and status hash, without the status
+     * itself. For very large scans.
+     */
+    BINARY(".msr");
+
+    private final String extension;
+
+    ResultFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return the file extension including the dot, e.g. {@code ".ndjson"}
+     */
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * @return the format of {@code file} by its extension, or {@code null} if it's neither
+     */
+    public static ResultFormat of(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        if (name.endsWith(".msr")) {
+            return BINARY;
+        }
+        return null;
+    }
+}
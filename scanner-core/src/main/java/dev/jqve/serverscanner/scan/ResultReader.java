@@ -0,0 +1,317 @@
+package dev.jqve.serverscanner.scan;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads files written by {@link ResultWriter} back one record at a time, so even a file of millions of
+ * results is never held in memory.
+ * <p>
+ * NDJSON files may also come from other tooling: only {@code address} and {@code port} are required,
+ * unknown keys are skipped and the status hash is computed if it is missing.
+ */
+public final class ResultReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final PingProtocol[] PROTOCOLS = PingProtocol.values();
+
+    /** Records read by {@link #read}. */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * @param statusHash {@link ResultCache#statusHash} of the status, 0 if there was none
+         * @param status     what the server reported; always {@code null} in the binary format, which
+         *                   only has the hash
+         */
+        void accept(int address, int port, long rttNanos, int statusHash, ServerStatus status);
+    }
+
+    private ResultReader() {
+    }
+
+    /**
+     * Reads every record of {@code file}, in the format its extension names.
+     *
+     * @return the number of records read
+     * @throws IllegalArgumentException if the extension is not one of a {@link ResultFormat}
+     * @throws IOException              if the file can't be read or is malformed; records before the
+     *                                  problem have been passed to {@code visitor}
+     */
+    public static long read(Path file, Visitor visitor) throws IOException {
+        ResultFormat format = ResultFormat.of(file);
+        if (format == null) {
+            throw new IllegalArgumentException("Unknown result file type: " + file.getFileName());
+        }
+        return read(file, format, visitor);
+    }
+
+    public static long read(Path file, ResultFormat format, Visitor visitor) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return format == ResultFormat.BINARY ? readBinary(file, in, visitor) : readJson(file, in, visitor);
+        }
+    }
+
+    private static long readBinary(Path file, InputStream stream, Visitor visitor) throws IOException {
+        InputStream in = new BufferedInputStream(stream, BUFFER_SIZE);
+        byte[] header = in.readNBytes(8);
+        if (header.length < 8 || ByteBuffer.wrap(header).getInt(0) != ResultWriter.MAGIC) {
+            throw new IOException("Not a result file: " + file);
+        }
+        int version = ByteBuffer.wrap(header).getInt(4);
+        if (version != ResultWriter.VERSION) {
+            throw new IOException("Unsupported result file version " + version + ": " + file);
+        }
+        byte[] record = new byte[ResultWriter.RECORD_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        long count = 0;
+        int read;
+        while ((read = in.readNBytes(record, 0, record.length)) == record.length) {
+            visitor.accept(buffer.getInt(0), buffer.getShort(4) & 0xffff,
+                    TimeUnit.MICROSECONDS.toNanos(Integer.toUnsignedLong(buffer.getInt(6))), buffer.getInt(10), null);
+            count++;
+        }
+        if (read > 0) {
+            throw new IOException("Truncated record " + (count + 1) + " in " + file);
+        }
+        return count;
+    }
+
+    private static long readJson(Path file, InputStream stream, Visitor visitor) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        JsonLine record = new JsonLine();
+        long count = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                record.parse(line);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + " line " + lineNumber + ": " + e.getMessage());
+            }
+            ServerStatus status = record.status();
+            int statusHash = record.statusHash != null ? record.statusHash
+                    : status != null ? ResultCache.statusHash(status) : 0;
+            visitor.accept(record.address, record.port, TimeUnit.MICROSECONDS.toNanos(record.rttMicros), statusHash, status);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * One flat JSON object, parsed into reused fields.
+     */
+    private static final class JsonLine {
+        private final StringBuilder string = new StringBuilder();
+        private String line;
+        private int pos;
+
+        int address;
+        int port;
+        long rttMicros;
+        Integer statusHash;
+        String motd;
+        String version;
+        int protocolVersion;
+        int online;
+        int max;
+        long pingMillis;
+        PingProtocol protocol;
+
+        /**
+         * @throws IllegalArgumentException if the line isn't a flat object with an address and port
+         */
+        void parse(String text) {
+            line = text;
+            pos = 0;
+            boolean hasAddress = false;
+            port = -1;
+            rttMicros = 0;
+            statusHash = null;
+            motd = null;
+            version = null;
+            protocolVersion = -1;
+            online = 0;
+            max = 0;
+            pingMillis = 0;
+            protocol = PingProtocol.MODERN;
+
+            expect('{');
+            if (peek() == '}') {
+                pos++;
+            } else {
+                do {
+                    String key = readString();
+                    expect(':');
+                    switch (key) {
+                        case "address" -> {
+                            address = Ipv4.parse(readString());
+                            hasAddress = true;
+                        }
+                        case "port" -> port = (int) readNumber();
+                        case "rttMicros" -> rttMicros = readNumber();
+                        case "statusHash" -> statusHash = (int) readNumber();
+                        case "motd" -> motd = readString();
+                        case "version" -> version = readString();
+                        case "protocolVersion" -> protocolVersion = (int) readNumber();
+                        case "online" -> online = (int) readNumber();
+                        case "max" -> max = (int) readNumber();
+                        case "pingMillis" -> pingMillis = readNumber();
+                        case "protocol" -> protocol = parseProtocol(readString());
+                        default -> skipValue();
+                    }
+                } while (next(',', '}'));
+            }
+            if (peek() != 0) {
+                throw new IllegalArgumentException("Unexpected text after the object");
+            }
+            if (!hasAddress || port < 0 || port > 0xffff) {
+                throw new IllegalArgumentException("Record needs an address and a port");
+            }
+        }
+
+        ServerStatus status() {
+            if (motd == null && version == null) {
+                return null;
+            }
+            return new ServerStatus(motd != null ? motd : "", version != null ? version : "", protocolVersion,
+                    online, max, pingMillis, protocol);
+        }
+
+        private static PingProtocol parseProtocol(String name) {
+            for (PingProtocol protocol : PROTOCOLS) {
+                if (protocol.name().equalsIgnoreCase(name)) {
+                    return protocol;
+                }
+            }
+            throw new IllegalArgumentException("Unknown protocol: " + name);
+        }
+
+        /**
+         * @return {@code true} on {@code more}, {@code false} on {@code end}
+         */
+        private boolean next(char more, char end) {
+            char c = peek();
+            if (c != more && c != end) {
+                throw new IllegalArgumentException("Expected '" + more + "' or '" + end + "' at column " + (pos + 1));
+            }
+            pos++;
+            return c == more;
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw new IllegalArgumentException("Expected '" + c + "' at column " + (pos + 1));
+            }
+            pos++;
+        }
+
+        /**
+         * @return the next character after whitespace, or 0 at the end of the line
+         */
+        private char peek() {
+            while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+            return pos < line.length() ? line.charAt(pos) : 0;
+        }
+
+        private long readNumber() {
+            peek();
+            int start = pos;
+            if (pos < line.length() && line.charAt(pos) == '-') {
+                pos++;
+            }
+            while (pos < line.length() && line.charAt(pos) >= '0' && line.charAt(pos) <= '9') {
+                pos++;
+            }
+            try {
+                return Long.parseLong(line, start, pos, 10);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected an integer at column " + (start + 1));
+            }
+        }
+
+        private String readString() {
+            expect('"');
+            string.setLength(0);
+            while (pos < line.length()) {
+                char c = line.charAt(pos++);
+                if (c == '"') {
+                    return string.toString();
+                }
+                if (c != '\\') {
+                    string.append(c);
+                    continue;
+                }
+                if (pos >= line.length()) {
+                    break;
+                }
+                char escaped = line.charAt(pos++);
+                switch (escaped) {
+                    case 'n' -> string.append('\n');
+                    case 'r' -> string.append('\r');
+                    case 't' -> string.append('\t');
+                    case 'b' -> string.append('\b');
+                    case 'f' -> string.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > line.length()) {
+                            throw new IllegalArgumentException("Bad escape at column " + pos);
+                        }
+                        try {
+                            string.append((char) Integer.parseInt(line, pos, pos + 4, 16));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("Bad escape at column " + pos);
+                        }
+                        pos += 4;
+                    }
+                    default -> string.append(escaped);
+                }
+            }
+            throw new IllegalArgumentException("Unterminated string");
+        }
+
+        /**
+         * Skips a value of a key we don't know, nested ones included.
+         */
+        private void skipValue() {
+            char c = peek();
+            if (c == '"') {
+                readString();
+            } else if (c == '{' || c == '[') {
+                char end = c == '{' ? '}' : ']';
+                pos++;
+                if (peek() == end) {
+                    pos++;
+                    return;
+                }
+                do {
+                    if (end == '}') {
+                        readString();
+                        expect(':');
+                    }
+                    skipValue();
+                } while (next(',', end));
+            } else {
+                // Numbers, true, false, null
+                int start = pos;
+                while (pos < line.length() && ",}] \t".indexOf(line.charAt(pos)) < 0) {
+                    pos++;
+                }
+                if (pos == start) {
+                    throw new IllegalArgumentException("Expected a value at column " + (start + 1));
+                }
+            }
+        }
+    }
+}
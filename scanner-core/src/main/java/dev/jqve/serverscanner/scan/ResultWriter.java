@@ -0,0 +1,211 @@
+package dev.jqve.serverscanner.scan;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams scan results to a file as they are found, in one of the {@link ResultFormat}s, so a scan can
+ * be fed into other tooling or merged with scans from other machines.
+ * <p>
+ * Records go straight into a buffered stream; nothing is kept per result, however long the scan. The
+ * binary format is:
+ * <pre>
+ * header  int MAGIC, int VERSION
+ * record  int address, short port, int rttMicros, int statusHash   (14 bytes, big-endian)
+ * </pre>
+ * where statusHash is {@link ResultCache#statusHash}, or 0 for an open port without a status.
+ * <p>
+ * {@link #write} is synchronized, so probe callbacks can call it from any thread. A write error is
+ * kept rather than thrown into the callback, and rethrown by {@link #close()}; later records are dropped.
+ */
+public final class ResultWriter implements AutoCloseable {
+    static final int MAGIC = 0x4D535258; // "MSRX"
+    static final int VERSION = 1;
+    static final int RECORD_SIZE = 14;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path file;
+    private final ResultFormat format;
+    private final Writer text;
+    private final DataOutputStream binary;
+    // Each NDJSON line is built here and handed to the writer in one call
+    private final StringBuilder line = new StringBuilder(256);
+    private long count;
+    private IOException error;
+    private boolean closed;
+
+    private ResultWriter(Path file, ResultFormat format, Writer text, DataOutputStream binary) {
+        this.file = file;
+        this.format = format;
+        this.text = text;
+        this.binary = binary;
+    }
+
+    /**
+     * Creates (or replaces) {@code file}, creating its directory if needed.
+     */
+    public static ResultWriter open(Path file, ResultFormat format) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        BufferedOutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        if (format == ResultFormat.NDJSON) {
+            return new ResultWriter(file, format, new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), null);
+        }
+        DataOutputStream binary = new DataOutputStream(out);
+        try {
+            binary.writeInt(MAGIC);
+            binary.writeInt(VERSION);
+        } catch (IOException e) {
+            binary.close();
+            throw e;
+        }
+        return new ResultWriter(file, format, null, binary);
+    }
+
+    /**
+     * Creates (or replaces) {@code file} in the format its extension names.
+     *
+     * @throws IllegalArgumentException if the extension is not one of a {@link ResultFormat}
+     */
+    public static ResultWriter open(Path file) throws IOException {
+        ResultFormat format = ResultFormat.of(file);
+        if (format == null) {
+            throw new IllegalArgumentException("Unknown result file type: " + file.getFileName()
+                    + " (use .ndjson or .msr)");
+        }
+        return open(file, format);
+    }
+
+    /**
+     * Appends one result.
+     *
+     * @param status what the server reported, or {@code null} for an open port without a status
+     */
+    public void write(int address, int port, long rttNanos, ServerStatus status) {
+        write(address, port, rttNanos, status != null ? ResultCache.statusHash(status) : 0, status);
+    }
+
+    /**
+     * Appends one result with a known status hash, e.g. one read back from a binary file, which has
+     * the hash but not the status.
+     */
+    public synchronized void write(int address, int port, long rttNanos, int statusHash, ServerStatus status) {
+        if (closed || error != null) {
+            return;
+        }
+        long rttMicros = TimeUnit.NANOSECONDS.toMicros(rttNanos);
+        try {
+            if (format == ResultFormat.BINARY) {
+                binary.writeInt(address);
+                binary.writeShort(port);
+                binary.writeInt((int) Math.min(rttMicros, Integer.MAX_VALUE));
+                binary.writeInt(statusHash);
+            } else {
+                writeJson(address, port, rttMicros, statusHash, status);
+            }
+            count++;
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    private void writeJson(int address, int port, long rttMicros, int statusHash, ServerStatus status) throws IOException {
+        StringBuilder json = line;
+        json.setLength(0);
+        json.append("{\"address\":\"").append(Ipv4.format(address))
+                .append("\",\"port\":").append(port)
+                .append(",\"rttMicros\":").append(rttMicros)
+                .append(",\"statusHash\":").append(statusHash);
+        if (status != null) {
+            json.append(",\"motd\":");
+            appendString(json, status.motd());
+            json.append(",\"version\":");
+            appendString(json, status.versionName());
+            json.append(",\"protocolVersion\":").append(status.protocolVersion())
+                    .append(",\"online\":").append(status.onlinePlayers())
+                    .append(",\"max\":").append(status.maxPlayers())
+                    .append(",\"pingMillis\":").append(status.pingMillis())
+                    .append(",\"protocol\":\"").append(status.protocol().name().toLowerCase(Locale.ROOT)).append('"');
+        }
+        json.append("}\n");
+        text.append(json);
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"', '\\' -> json.append('\\').append(c);
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * @return records written so far
+     */
+    public synchronized long count() {
+        return count;
+    }
+
+    /**
+     * @return the first write error, or {@code null}
+     */
+    public synchronized IOException error() {
+        return error;
+    }
+
+    /**
+     * Flushes and closes the file. Results written afterwards are ignored.
+     *
+     * @throws IOException if this or an earlier write failed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (text != null) {
+                text.close();
+            } else {
+                binary.close();
+            }
+        } catch (IOException e) {
+            if (error == null) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
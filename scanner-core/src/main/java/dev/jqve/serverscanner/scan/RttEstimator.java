@@ -0,0 +1,124 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps smoothed round-trip estimates from connect results and turns them into probe timeouts, the
+ * same way TCP derives its retransmission timeout (Jacobson/Karels: {@code srtt + 4 * rttvar}).
+ * <p>
+ * Estimates are kept per host, per /24 subnet and globally. A timeout comes from the most specific
+ * estimate that has samples, so a LAN host gets a few tens of milliseconds while a host behind a VPN
+ * gets whatever its neighbours have shown it needs. Hosts in subnets that haven't answered yet use the
+ * configured initial timeout, stretched if the global estimate says the network is slower than that.
+ */
+public final class RttEstimator {
+    private static final int SUBNET_SHIFT = 8;
+
+    private final int initialTimeoutMs;
+    private final int minTimeoutMs;
+    private final int maxTimeoutMs;
+    private final Map<Integer, Estimate> hosts = new ConcurrentHashMap<>();
+    private final Map<Integer, Estimate> subnets = new ConcurrentHashMap<>();
+    private final Estimate global = new Estimate();
+
+    /**
+     * @param initialTimeoutMs timeout used before any RTT has been measured
+     * @param minTimeoutMs     lower bound, so scheduling jitter doesn't cause spurious timeouts
+     * @param maxTimeoutMs     upper bound for derived and backed-off timeouts
+     */
+    public RttEstimator(int initialTimeoutMs, int minTimeoutMs, int maxTimeoutMs) {
+        this.initialTimeoutMs = initialTimeoutMs;
+        this.minTimeoutMs = minTimeoutMs;
+        this.maxTimeoutMs = maxTimeoutMs;
+    }
+
+    /**
+     * Feeds in the round trip of a probe that got an answer (open or refused).
+     */
+    public void record(int address, long rttNanos) {
+        long rttMicros = Math.max(1, rttNanos / 1_000L);
+        hosts.computeIfAbsent(address, key -> new Estimate()).sample(rttMicros);
+        subnets.computeIfAbsent(address >>> SUBNET_SHIFT, key -> new Estimate()).sample(rttMicros);
+        global.sample(rttMicros);
+    }
+
+    /**
+     * @return the timeout to use for the next probe of {@code address}
+     */
+    public int timeoutMs(int address) {
+        Estimate estimate = hosts.get(address);
+        if (estimate == null) {
+            estimate = subnets.get(address >>> SUBNET_SHIFT);
+        }
+        if (estimate != null) {
+            return clamp(toMillis(estimate.rtoMicros()));
+        }
+        // Nothing nearby has answered; a fast LAN elsewhere must not shrink the timeout for unknown
+        // networks, but a slow path (e.g. a VPN) seen elsewhere should stretch it
+        long globalRto = global.rtoMicros();
+        return globalRto < 0 ? initialTimeoutMs : clamp(Math.max(initialTimeoutMs, toMillis(globalRto)));
+    }
+
+    private static int toMillis(long micros) {
+        return (int) Math.min(Integer.MAX_VALUE, (micros + 999) / 1_000L);
+    }
+
+    /**
+     * @return the timeout for a retry after {@code previousTimeoutMs} expired (exponential back-off)
+     */
+    public int backoffMs(int previousTimeoutMs) {
+        return clamp(previousTimeoutMs * 2);
+    }
+
+    public int maxTimeoutMs() {
+        return maxTimeoutMs;
+    }
+
+    /**
+     * @return whether this exact host has answered before
+     */
+    public boolean isHostKnown(int address) {
+        return hosts.containsKey(address);
+    }
+
+    /**
+     * @return whether any host in the same /24 has answered
+     */
+    public boolean isSubnetKnown(int address) {
+        return subnets.containsKey(address >>> SUBNET_SHIFT);
+    }
+
+    private int clamp(int timeoutMs) {
+        return Math.max(minTimeoutMs, Math.min(maxTimeoutMs, timeoutMs));
+    }
+
+    /**
+     * One smoothed RTT / variance pair, in microseconds.
+     */
+    private static final class Estimate {
+        private long srtt = -1;
+        private long rttvar;
+
+        synchronized void sample(long rtt) {
+            if (srtt < 0) {
+                srtt = rtt;
+                rttvar = rtt / 2;
+            } else {
+                rttvar = (3 * rttvar + Math.abs(srtt - rtt)) / 4;
+                srtt = (7 * srtt + rtt) / 8;
+            }
+        }
+
+        /**
+         * @return the retransmission timeout, or -1 without samples
+         */
+        synchronized long rtoMicros() {
+            if (srtt < 0) {
+                return -1;
+            }
+            // The 1ms floor on the variance term mirrors TCP's clock granularity term
+            return srtt + Math.max(1_000L, 4 * rttvar);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Round trip times in power-of-two microsecond buckets: bucket 0 holds everything under 1 µs,
+ * bucket {@code i} holds {@code [2^(i-1), 2^i)} µs, and the last bucket also takes everything slower.
+ * <p>
+ * Recording is a shift and an atomic increment, so probe callbacks can record every answer without
+ * allocating or locking. Resolution is a factor of two, which is plenty for tuning timeouts.
+ */
+public final class RttHistogram {
+    /** The last bucket starts at 2^22 µs (about 4.2 s), past any timeout the scanner uses. */
+    public static final int BUCKETS = 24;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long rttNanos) {
+        counts.incrementAndGet(bucketOf(rttNanos / 1000));
+    }
+
+    static int bucketOf(long micros) {
+        return micros <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    /**
+     * @return the exclusive upper bound of {@code bucket} in microseconds
+     */
+    public static long upperBoundMicros(int bucket) {
+        return 1L << bucket;
+    }
+
+    /**
+     * Copies the bucket counts into {@code into}, which must hold {@link #BUCKETS} entries.
+     */
+    public void copyTo(long[] into) {
+        for (int i = 0; i < BUCKETS; i++) {
+            into[i] = counts.get(i);
+        }
+    }
+
+    /**
+     * @param counts   bucket counts as filled in by {@link #copyTo}
+     * @param fraction e.g. {@code 0.99} for the 99th percentile
+     * @return upper bound in microseconds of the bucket the percentile falls into, or 0 without samples
+     */
+    public static long percentileMicros(long[] counts, double fraction) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * fraction));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBoundMicros(i);
+            }
+        }
+        return upperBoundMicros(counts.length - 1);
+    }
+}
@@ -0,0 +1,363 @@
+package dev.jqve.serverscanner.scan;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of a long scan, saved to a small file so the scan can be resumed after leaving the screen
+ * or restarting the game.
+ * <p>
+ * Progress is tracked in the chunks the {@link ScanScheduler} claims from its {@link ChunkCursor}: a
+ * chunk is done once it has been walked and every target in it has settled, retries included. The
+ * file holds the done chunks as index ranges plus the open ports found in them; targets in chunks
+ * that were still in flight are simply probed again on resume.
+ * <p>
+ * The scheduler saves in the background every few seconds while chunks complete, synchronously when
+ * the scan is stopped, and deletes the file once the scan has finished.
+ */
+public final class ScanCheckpoint {
+    private static final int MAGIC = 0x4D53434B;
+    // Version 2 added the ping protocol of each hit
+    private static final int VERSION = 2;
+    private static final long SAVE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    /** Chunk indices are ints, which still leaves room for a full /0 on 128 ports. */
+    public static final long MAX_TARGETS = (long) Integer.MAX_VALUE * ScanScheduler.CHUNK_SIZE;
+
+    private final Path file;
+    private final String scanKey;
+    private final long targetCount;
+    private final int chunkSize;
+    // Guarded by this
+    private final BitSet doneChunks;
+    private final List<Hit> hits;
+    /** Outstanding targets per open chunk, plus one while the feeder is still walking it. */
+    private final ConcurrentHashMap<Long, AtomicInteger> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean saving = new AtomicBoolean();
+    private volatile long nextSaveNanos = System.nanoTime() + SAVE_INTERVAL_NANOS;
+    private volatile IOException lastSaveError;
+    private boolean deleted;
+
+    private ScanCheckpoint(Path file, String scanKey, long targetCount, int chunkSize, BitSet doneChunks, List<Hit> hits) {
+        this.file = file;
+        this.scanKey = scanKey;
+        this.targetCount = targetCount;
+        this.chunkSize = chunkSize;
+        this.doneChunks = doneChunks;
+        this.hits = hits;
+    }
+
+    /**
+     * Starts a checkpoint for a new scan. Nothing is written until the first save, so an older
+     * checkpoint in {@code file} stays until then.
+     *
+     * @param scanKey whatever the caller needs to set the same scan up again, e.g. the target spec
+     * @throws IllegalArgumentException if there are more than {@link #MAX_TARGETS} targets
+     */
+    public static ScanCheckpoint create(Path file, String scanKey, long targetCount) {
+        if (targetCount > MAX_TARGETS) {
+            throw new IllegalArgumentException("Too many targets to checkpoint: " + targetCount);
+        }
+        return new ScanCheckpoint(file, scanKey, targetCount, ScanScheduler.CHUNK_SIZE, new BitSet(), new ArrayList<>());
+    }
+
+    /**
+     * Reads a checkpoint written by {@link #save()}.
+     *
+     * @throws IOException if the file is missing, damaged or from an incompatible version
+     */
+    public static ScanCheckpoint load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a scan checkpoint: " + file);
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version + ": " + file);
+            }
+            String scanKey = readString(in);
+            long targetCount = in.readLong();
+            int chunkSize = in.readInt();
+            if (chunkSize != ScanScheduler.CHUNK_SIZE) {
+                throw new IOException("Checkpoint uses chunks of " + chunkSize + ", expected " + ScanScheduler.CHUNK_SIZE);
+            }
+            BitSet doneChunks = new BitSet();
+            int ranges = in.readInt();
+            for (int i = 0; i < ranges; i++) {
+                int start = in.readInt();
+                int end = in.readInt();
+                if (start < 0 || end < start) {
+                    throw new IOException("Damaged checkpoint: " + file);
+                }
+                doneChunks.set(start, end);
+            }
+            int hitCount = in.readInt();
+            List<Hit> hits = new ArrayList<>(hitCount);
+            for (int i = 0; i < hitCount; i++) {
+                long index = in.readLong();
+                int address = in.readInt();
+                int port = in.readUnsignedShort();
+                long rttNanos = in.readLong();
+                ServerStatus status = in.readBoolean() ? readStatus(in, version) : null;
+                hits.add(new Hit(index, address, port, rttNanos, status));
+            }
+            return new ScanCheckpoint(file, scanKey, targetCount, chunkSize, doneChunks, hits);
+        }
+    }
+
+    public String scanKey() {
+        return scanKey;
+    }
+
+    public long targetCount() {
+        return targetCount;
+    }
+
+    /**
+     * @return number of targets in completed chunks
+     */
+    public synchronized long completedTargets() {
+        long completed = (long) doneChunks.cardinality() * chunkSize;
+        long lastChunk = (targetCount - 1) / chunkSize;
+        if (targetCount > 0 && doneChunks.get((int) lastChunk)) {
+            // The last chunk is usually short
+            completed -= (lastChunk + 1) * chunkSize - targetCount;
+        }
+        return completed;
+    }
+
+    /**
+     * @return number of open ports found in completed chunks, i.e. what {@link #replayHits} reports
+     */
+    public synchronized int completedHits() {
+        int count = 0;
+        for (Hit hit : hits) {
+            if (doneChunks.get(chunkOf(hit.index))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the error of the last failed background save, or {@code null}
+     */
+    public IOException lastSaveError() {
+        return lastSaveError;
+    }
+
+    private int chunkOf(long index) {
+        return (int) (index / chunkSize);
+    }
+
+    synchronized boolean isChunkDone(long start) {
+        return doneChunks.get(chunkOf(start));
+    }
+
+    /**
+     * Called by the feeder before it walks the chunk starting at {@code start}.
+     */
+    void chunkOpened(long start) {
+        pending.put((long) chunkOf(start), new AtomicInteger(1));
+    }
+
+    /**
+     * Called by the feeder before submitting the target at {@code index}.
+     */
+    void targetSubmitted(long index) {
+        pending.get((long) chunkOf(index)).incrementAndGet();
+    }
+
+    /**
+     * Called once the target at {@code index} has its final result.
+     */
+    void targetSettled(long index) {
+        release(chunkOf(index));
+    }
+
+    /**
+     * Called by the feeder once it has walked the chunk starting at {@code start}.
+     */
+    void chunkWalked(long start) {
+        release(chunkOf(start));
+    }
+
+    private void release(int chunk) {
+        AtomicInteger count = pending.get((long) chunk);
+        if (count.decrementAndGet() > 0) {
+            return;
+        }
+        pending.remove((long) chunk);
+        synchronized (this) {
+            doneChunks.set(chunk);
+        }
+        if (System.nanoTime() >= nextSaveNanos && saving.compareAndSet(false, true)) {
+            // Never write from a prober thread
+            CompletableFuture.runAsync(() -> {
+                try {
+                    save();
+                } catch (IOException e) {
+                    lastSaveError = e;
+                } finally {
+                    nextSaveNanos = System.nanoTime() + SAVE_INTERVAL_NANOS;
+                    saving.set(false);
+                }
+            });
+        }
+    }
+
+    synchronized void recordHit(long index, int address, int port, long rttNanos, ServerStatus status) {
+        hits.add(new Hit(index, address, port, rttNanos, status));
+    }
+
+    /**
+     * Reports the hits of completed chunks to {@code listener} as open results.
+     *
+     * @return the number of hits reported
+     */
+    int replayHits(ProbeCallback listener) {
+        List<Hit> completed = new ArrayList<>();
+        synchronized (this) {
+            for (Hit hit : hits) {
+                if (doneChunks.get(chunkOf(hit.index))) {
+                    completed.add(hit);
+                }
+            }
+        }
+        for (Hit hit : completed) {
+            listener.onResult(hit.address, hit.port, ProbeResult.OPEN, hit.rttNanos, hit.status);
+        }
+        return completed.size();
+    }
+
+    /**
+     * Writes the checkpoint, replacing the file atomically where the file system allows it.
+     */
+    public synchronized void save() throws IOException {
+        if (deleted) {
+            // A background save that lost the race against the end of the scan
+            return;
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, scanKey);
+            out.writeLong(targetCount);
+            out.writeInt(chunkSize);
+
+            // Done chunks are mostly one contiguous run, so ranges keep the file small
+            List<int[]> ranges = new ArrayList<>();
+            for (int start = doneChunks.nextSetBit(0); start >= 0; start = doneChunks.nextSetBit(start)) {
+                int end = doneChunks.nextClearBit(start);
+                ranges.add(new int[]{start, end});
+                start = end;
+            }
+            out.writeInt(ranges.size());
+            for (int[] range : ranges) {
+                out.writeInt(range[0]);
+                out.writeInt(range[1]);
+            }
+
+            // Hits in chunks that are still in flight are found again on resume
+            List<Hit> completed = hits.stream().filter(hit -> doneChunks.get(chunkOf(hit.index))).toList();
+            out.writeInt(completed.size());
+            for (Hit hit : completed) {
+                out.writeLong(hit.index);
+                out.writeInt(hit.address);
+                out.writeShort(hit.port);
+                out.writeLong(hit.rttNanos);
+                out.writeBoolean(hit.status != null);
+                if (hit.status != null) {
+                    writeString(out, hit.status.motd());
+                    writeString(out, hit.status.versionName());
+                    out.writeInt(hit.status.protocolVersion());
+                    out.writeInt(hit.status.onlinePlayers());
+                    out.writeInt(hit.status.maxPlayers());
+                    out.writeLong(hit.status.pingMillis());
+                    out.writeByte(hit.status.protocol().ordinal());
+                }
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Like {@link #save()}, but keeps a failure in {@link #lastSaveError()} instead of throwing.
+     */
+    void saveQuietly() {
+        try {
+            save();
+        } catch (IOException e) {
+            lastSaveError = e;
+        }
+    }
+
+    /**
+     * Removes the file once the scan it describes has finished. Later saves do nothing.
+     */
+    synchronized void delete() {
+        deleted = true;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            lastSaveError = e;
+        }
+    }
+
+    private static ServerStatus readStatus(DataInputStream in, int version) throws IOException {
+        String motd = readString(in);
+        String versionName = readString(in);
+        int protocolVersion = in.readInt();
+        int onlinePlayers = in.readInt();
+        int maxPlayers = in.readInt();
+        long pingMillis = in.readLong();
+        PingProtocol protocol = PingProtocol.MODERN;
+        if (version >= 2) {
+            int ordinal = in.readUnsignedByte();
+            if (ordinal >= PingProtocol.values().length) {
+                throw new IOException("Damaged checkpoint");
+            }
+            protocol = PingProtocol.values()[ordinal];
+        }
+        return new ServerStatus(motd, versionName, protocolVersion, onlinePlayers, maxPlayers, pingMillis, protocol);
+    }
+
+    // writeUTF is limited to 64 KiB, which a MOTD full of formatting could in theory exceed
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > 1 << 20) {
+            throw new IOException("Damaged checkpoint");
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private record Hit(long index, int address, int port, long rttNanos, ServerStatus status) {
+    }
+}
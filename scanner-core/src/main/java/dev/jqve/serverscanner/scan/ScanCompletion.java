@@ -0,0 +1,11 @@
+package dev.jqve.serverscanner.scan;
+
+/**
+ * How a scan run by a {@link ScanScheduler} ended.
+ *
+ * @param reported     targets whose final result reached the listener
+ * @param elapsedNanos time from {@link ScanScheduler#start} until the last result settled (or the stop)
+ * @param stopped      {@code true} if the scan was stopped before every target settled
+ */
+public record ScanCompletion(long reported, long elapsedNanos, boolean stopped) {
+}
@@ -0,0 +1,98 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Per-scan counters for tuning: results by kind, retries, cache hits and an {@link RttHistogram} of
+ * every answered probe.
+ * <p>
+ * Like {@link ScanProgress}, recording never locks or allocates, and readers poll a {@link Snapshot}
+ * instead of being notified. Rates come from comparing two snapshots.
+ */
+public final class ScanMetrics {
+    private static final ProbeResult[] RESULTS = ProbeResult.values();
+
+    private final LongAdder[] results = new LongAdder[RESULTS.length];
+    private final LongAdder cached = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final RttHistogram rtt = new RttHistogram();
+    private final IntSupplier inFlight;
+
+    /**
+     * @param inFlight reports how many probes are currently outstanding
+     */
+    public ScanMetrics(IntSupplier inFlight) {
+        this.inFlight = inFlight;
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the final result of a probed target. Only answers (open or refused) have a meaningful RTT.
+     */
+    public void record(ProbeResult result, long rttNanos) {
+        results[result.ordinal()].increment();
+        if (result == ProbeResult.OPEN || result == ProbeResult.CLOSED) {
+            rtt.record(rttNanos);
+        }
+    }
+
+    /**
+     * Records a target answered from the {@link ResultCache} without probing.
+     */
+    public void recordCached() {
+        cached.increment();
+    }
+
+    /**
+     * Records a timed out probe that is being tried again.
+     */
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public Snapshot snapshot() {
+        long[] buckets = new long[RttHistogram.BUCKETS];
+        rtt.copyTo(buckets);
+        return new Snapshot(System.nanoTime(),
+                results[ProbeResult.OPEN.ordinal()].sum(),
+                results[ProbeResult.CLOSED.ordinal()].sum(),
+                results[ProbeResult.TIMEOUT.ordinal()].sum(),
+                results[ProbeResult.UNREACHABLE.ordinal()].sum(),
+                cached.sum(), retries.sum(), inFlight.getAsInt(), buckets);
+    }
+
+    /**
+     * Point-in-time view of the counters; like {@link ScanProgress.Snapshot}, the sums are read one
+     * after another.
+     *
+     * @param nanoTime   {@link System#nanoTime()} when the snapshot was taken
+     * @param rttBuckets {@link RttHistogram} bucket counts
+     */
+    public record Snapshot(long nanoTime, long open, long closed, long timeout, long unreachable,
+                           long cached, long retries, int inFlight, long[] rttBuckets) {
+        /**
+         * @return probes that have completed, retried attempts included
+         */
+        public long probes() {
+            return open + closed + timeout + unreachable + retries;
+        }
+
+        /**
+         * @return completed probes per second between {@code earlier} and this snapshot
+         */
+        public double probesPerSecond(Snapshot earlier) {
+            long elapsed = nanoTime - earlier.nanoTime;
+            return elapsed <= 0 ? 0 : (probes() - earlier.probes()) * 1_000_000_000.0 / elapsed;
+        }
+
+        /**
+         * @see RttHistogram#percentileMicros
+         */
+        public long rttPercentileMicros(double fraction) {
+            return RttHistogram.percentileMicros(rttBuckets, fraction);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters a scan publishes while it runs.
+ * <p>
+ * Probe callbacks bump them without locking or allocating. Readers (typically the render thread,
+ * once per frame) take a {@link Snapshot} instead of being notified per probe, so UI cost does not
+ * grow with the probe rate.
+ */
+public final class ScanProgress {
+    private final long total;
+    private final LongAdder settled = new LongAdder();
+    private final LongAdder found = new LongAdder();
+
+    public ScanProgress(long total) {
+        this.total = total;
+    }
+
+    /**
+     * Records the final result of one target.
+     *
+     * @param hit whether the target turned up something worth listing
+     */
+    public void recordSettled(boolean hit) {
+        if (hit) {
+            found.increment();
+        }
+        settled.increment();
+    }
+
+    /**
+     * Counts targets settled by an earlier run, e.g. the completed part of a resumed
+     * {@link ScanCheckpoint}.
+     */
+    public void recordSkipped(long count) {
+        settled.add(count);
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(settled.sum(), total, found.sum());
+    }
+
+    /**
+     * Point-in-time view of the counters. The individual sums are read one after another, so a
+     * snapshot taken mid-scan may be off by the results that landed in between.
+     */
+    public record Snapshot(long settled, long total, long found) {
+        public float percent() {
+            return total == 0 ? 100f : (float) settled / total * 100;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Feeds targets from a {@link TargetSource} into a {@link Prober} on a dedicated thread.
+ * <p>
+ * The feeder pulls contiguous chunks of target indices from a {@link ChunkCursor} and walks them, so
+ * nothing is queued per target however large the source is.
+ * <p>
+ * Every probe gets a timeout from the {@link RttEstimator}, and every answer refines it. A probe that
+ * times out against a host (or subnet) that has answered before is treated like a lost TCP segment:
+ * it is queued for a retry with a backed-off timeout instead of being reported as dead straight away.
+ * Retries are fed ahead of new targets. The listener sees exactly one final result per target.
+ * <p>
+ * How many probes are in flight at once is governed by an {@link AimdController}. A timeout against a
+ * host that has answered before counts as a loss, as does an answer that only came on a retry to a
+ * host not known at the time. Timeouts against addresses that never answered are left out of the loss
+ * rate, since they can't be told apart from dead addresses.
+ * <p>
+ * With a {@link ResultCache}, targets with a fresh cached result are reported straight from the cache
+ * without using a probe slot, so probing goes to stale and unknown targets right away. Status scans
+ * still re-probe cached open ports, since the cache only keeps a hash of the status. Every final
+ * result is written back to the cache.
+ * <p>
+ * Submissions, retries included, are paced by a {@link TokenBucket}, which is unlimited unless
+ * one is passed to {@link #usePacer} or {@link #pacer()} is given a rate. Cache hits are not paced.
+ * <p>
+ * With a {@link ScanCheckpoint}, chunks the checkpoint has already completed are skipped and the
+ * open ports found in them are reported to the listener first, again from the feeder thread with
+ * {@code null} status where none was recorded. The checkpoint is saved when the scan is stopped and
+ * deleted once it has finished.
+ * <p>
+ * Every settled probe, retry and cache hit is counted in {@link #metrics()}.
+ * <p>
+ * Results stream to the listener as they settle. {@link #completion()} completes exactly once: right
+ * after the last target's result has been delivered, or when the scan is stopped.
+ */
+public final class ScanScheduler {
+    /** Retries for a host that has answered on another port. */
+    private static final int MAX_HOST_RETRIES = 2;
+    /** Retries for an unknown host in a subnet where others answered. */
+    private static final int MAX_SUBNET_RETRIES = 1;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    static final int CHUNK_SIZE = 256;
+
+    private final Prober prober;
+    private final ProbeType type;
+    private final RttEstimator rttEstimator;
+    private final AimdController congestion;
+    private final ProbeCallback listener;
+    private ResultCache cache;
+    private ScanCheckpoint checkpoint;
+    private final Queue<Retry> retries = new ConcurrentLinkedQueue<>();
+    /** Targets taken from the source whose final result has not been reported yet. */
+    private final AtomicLong outstanding = new AtomicLong();
+    private final AtomicLong reported = new AtomicLong();
+    private final ScanMetrics metrics;
+    private TokenBucket pacer = new TokenBucket(0, 1);
+    private final CompletableFuture<ScanCompletion> completion = new CompletableFuture<>();
+    private volatile Thread feeder;
+    /** Set once every target index has been taken from the source. */
+    private volatile boolean drained;
+    private volatile boolean stopped;
+    private long startNanos;
+
+    /**
+     * @param prober   runs the probes; the scheduler closes it on {@link #stop()}
+     * @param listener receives the final result of every target, on whatever thread the prober reports on;
+     *                 results taken from the cache arrive on the feeder thread with an RTT of 0
+     */
+    public ScanScheduler(Prober prober, ProbeType type, RttEstimator rttEstimator, AimdController congestion,
+                         ProbeCallback listener) {
+        this.prober = prober;
+        this.type = type;
+        this.rttEstimator = rttEstimator;
+        this.congestion = congestion;
+        this.listener = listener;
+        this.metrics = new ScanMetrics(prober::inFlight);
+    }
+
+    /**
+     * Uses {@code cache} to skip targets with a fresh result and to remember new results.
+     * Must be called before {@link #start}.
+     *
+     * @return this scheduler
+     */
+    public ScanScheduler useCache(ResultCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Records progress in {@code checkpoint} and skips whatever it has already completed.
+     * Must be called before {@link #start}.
+     *
+     * @return this scheduler
+     */
+    public ScanScheduler useCheckpoint(ScanCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+        return this;
+    }
+
+    /**
+     * Paces submissions with {@code pacer}. Must be called before {@link #start}.
+     *
+     * @return this scheduler
+     */
+    public ScanScheduler usePacer(TokenBucket pacer) {
+        this.pacer = pacer;
+        return this;
+    }
+
+    /**
+     * Starts feeding {@code source} on a new daemon thread.
+     */
+    public void start(TargetSource source, String threadName) {
+        startNanos = System.nanoTime();
+        Thread thread = new Thread(() -> feed(source), threadName);
+        thread.setDaemon(true);
+        feeder = thread;
+        thread.start();
+    }
+
+    /**
+     * Stops feeding and closes the prober. Results still in flight are dropped. A checkpoint is saved
+     * before this returns, unless the scan had already finished.
+     */
+    public void stop() {
+        stopped = true;
+        Thread thread = feeder;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        prober.close();
+        if (checkpoint != null && !completion.isDone()) {
+            checkpoint.saveQuietly();
+        }
+        complete(true);
+    }
+
+    /**
+     * Completes once the scan has finished or was stopped, and exceptionally if feeding failed.
+     */
+    public CompletableFuture<ScanCompletion> completion() {
+        return completion;
+    }
+
+    /**
+     * Registers a callback for when the scan finishes or is stopped. It runs on the thread that
+     * settled the scan (a prober or feeder thread), or immediately if the scan is already over.
+     *
+     * @return this scheduler
+     */
+    public ScanScheduler onComplete(Consumer<ScanCompletion> callback) {
+        completion.thenAccept(callback);
+        return this;
+    }
+
+    public RttEstimator rttEstimator() {
+        return rttEstimator;
+    }
+
+    public AimdController congestion() {
+        return congestion;
+    }
+
+    public ScanMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * The submission rate limit. Can be changed while the scan runs.
+     */
+    public TokenBucket pacer() {
+        return pacer;
+    }
+
+    private void feed(TargetSource source) {
+        ChunkCursor cursor = new ChunkCursor(source.size(), CHUNK_SIZE);
+        long chunkStart = -1;
+        long index = 0;
+        long chunkEnd = 0;
+        try {
+            if (checkpoint != null) {
+                reported.addAndGet(checkpoint.replayHits(listener));
+            }
+            while (!stopped) {
+                if (index == chunkEnd && !drained) {
+                    if (checkpoint != null && chunkStart >= 0) {
+                        checkpoint.chunkWalked(chunkStart);
+                    }
+                    long start = claimChunk(cursor);
+                    if (start >= 0) {
+                        chunkStart = start;
+                        index = start;
+                        chunkEnd = cursor.end(start);
+                    } else {
+                        drained = true;
+                    }
+                }
+                Retry retry = retries.poll();
+                if (retry != null) {
+                    submit(retry.address, retry.port, retry.index, retry.attempt, retry.timeoutMs);
+                } else if (index < chunkEnd) {
+                    long targetIndex = index++;
+                    long target = source.targetAt(targetIndex);
+                    int address = TargetSource.address(target);
+                    int port = TargetSource.port(target);
+                    ProbeResult cached = cachedResult(address, port);
+                    if (cached != null) {
+                        metrics.recordCached();
+                        reported.incrementAndGet();
+                        listener.onResult(address, port, cached, 0, null);
+                        if (checkpoint != null && cached == ProbeResult.OPEN) {
+                            // Settled on the spot, so the chunk's walk covers it; resuming replays it like a probed hit
+                            checkpoint.recordHit(targetIndex, address, port, 0, null);
+                        }
+                        continue;
+                    }
+                    outstanding.incrementAndGet();
+                    if (checkpoint != null) {
+                        checkpoint.targetSubmitted(targetIndex);
+                    }
+                    submit(address, port, targetIndex, 0, rttEstimator.timeoutMs(address));
+                } else if (outstanding.get() == 0) {
+                    // Everything settled before the source was marked drained, or the source was empty
+                    complete(false);
+                    break;
+                } else {
+                    // Source is drained; wait for in-flight probes in case they come back as retries
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IllegalStateException e) {
+            // Prober was closed because the scan was stopped
+        } catch (RuntimeException e) {
+            completion.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Claims the next chunk the checkpoint hasn't completed yet and opens it for tracking.
+     *
+     * @return its start index, or -1 once the source is exhausted
+     */
+    private long claimChunk(ChunkCursor cursor) {
+        long start = cursor.claim();
+        if (checkpoint == null) {
+            return start;
+        }
+        while (start >= 0 && checkpoint.isChunkDone(start)) {
+            start = cursor.claim();
+        }
+        if (start >= 0) {
+            checkpoint.chunkOpened(start);
+        }
+        return start;
+    }
+
+    /**
+     * @return the fresh cached result to report instead of probing, or {@code null}
+     */
+    private ProbeResult cachedResult(int address, int port) {
+        if (cache == null) {
+            return null;
+        }
+        ProbeResult result = cache.freshResult(address, port);
+        if (result == ProbeResult.OPEN && type == ProbeType.STATUS) {
+            return null;
+        }
+        return result;
+    }
+
+    private void submit(int address, int port, long index, int attempt, int timeoutMs) throws InterruptedException {
+        congestion.acquire();
+        try {
+            // Wait for the token only once a window slot is free, so the probe goes out right after it
+            pacer.acquire();
+            prober.probe(address, port, timeoutMs, type, (probedAddress, probedPort, result, rttNanos, status) ->
+                    onResult(probedAddress, probedPort, index, attempt, timeoutMs, result, rttNanos, status));
+        } catch (InterruptedException | RuntimeException e) {
+            congestion.releaseUnmeasured();
+            throw e;
+        }
+    }
+
+    private void onResult(int address, int port, long index, int attempt, int timeoutMs,
+                          ProbeResult result, long rttNanos, ServerStatus status) {
+        boolean answered = result == ProbeResult.OPEN || result == ProbeResult.CLOSED;
+        boolean hostKnown = rttEstimator.isHostKnown(address);
+        if (answered) {
+            // A timeout against a known host was counted when it happened
+            congestion.release(attempt > 0 && !hostKnown);
+        } else if (result == ProbeResult.TIMEOUT && hostKnown) {
+            congestion.release(true);
+        } else {
+            congestion.releaseUnmeasured();
+        }
+        if (stopped) {
+            return;
+        }
+        if (answered) {
+            rttEstimator.record(address, rttNanos);
+        } else if (result == ProbeResult.TIMEOUT && shouldRetry(address, attempt, timeoutMs)) {
+            metrics.recordRetry();
+            retries.add(new Retry(address, port, index, attempt + 1, rttEstimator.backoffMs(timeoutMs)));
+            LockSupport.unpark(feeder);
+            return;
+        }
+        metrics.record(result, rttNanos);
+        if (cache != null && result != ProbeResult.UNREACHABLE) {
+            // Local failures say nothing about the target
+            cache.record(address, port, result, rttNanos, status);
+        }
+        reported.incrementAndGet();
+        listener.onResult(address, port, result, rttNanos, status);
+        if (checkpoint != null) {
+            if (result == ProbeResult.OPEN) {
+                checkpoint.recordHit(index, address, port, rttNanos, status);
+            }
+            checkpoint.targetSettled(index);
+        }
+        // Pending retries still count as outstanding, so zero after draining means every target settled
+        if (outstanding.decrementAndGet() == 0 && drained) {
+            complete(false);
+            LockSupport.unpark(feeder);
+        }
+    }
+
+    private void complete(boolean wasStopped) {
+        if (!completion.isDone()) {
+            if (checkpoint != null && !wasStopped) {
+                checkpoint.delete();
+            }
+            completion.complete(new ScanCompletion(reported.get(), System.nanoTime() - startNanos, wasStopped));
+        }
+    }
+
+    /**
+     * A timeout is only worth retrying when something nearby has answered, i.e. the host is
+     * probably up and the timeout was just too tight. Silent subnets are not retried.
+     */
+    private boolean shouldRetry(int address, int attempt, int timeoutMs) {
+        if (timeoutMs >= rttEstimator.maxTimeoutMs()) {
+            return false;
+        }
+        if (rttEstimator.isHostKnown(address)) {
+            return attempt < MAX_HOST_RETRIES;
+        }
+        return rttEstimator.isSubnetKnown(address) && attempt < MAX_SUBNET_RETRIES;
+    }
+
+    private record Retry(int address, int port, long index, int attempt, int timeoutMs) {
+    }
+}
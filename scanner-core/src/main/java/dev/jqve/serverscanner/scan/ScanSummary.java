@@ -0,0 +1,121 @@
+package dev.jqve.serverscanner.scan;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * What a finished scan did, written out as JSON and CSV so settings can be compared across runs.
+ *
+ * @param targets    the target set, e.g. {@code "192.168.1.0/24:25565"}
+ * @param completion how the scan ended
+ * @param metrics    the scan's counters, taken after it ended
+ */
+public record ScanSummary(String targets, ExecutionMode mode, ScanCompletion completion, ScanMetrics.Snapshot metrics) {
+    private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("'scan-'yyyyMMdd-HHmmss-SSS");
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+    public double probesPerSecond() {
+        return metrics.probes() * 1_000_000_000.0 / Math.max(1, completion.elapsedNanos());
+    }
+
+    /**
+     * Writes {@code scan-<timestamp>.json} and {@code .csv} into {@code directory}, creating it if needed.
+     *
+     * @return the JSON file
+     */
+    public Path write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        String name = LocalDateTime.now().format(FILE_NAME);
+        Path json = directory.resolve(name + ".json");
+        Files.writeString(json, toJson());
+        Files.writeString(directory.resolve(name + ".csv"), toCsv());
+        return json;
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\n");
+        json.append("  \"targets\": \"").append(escape(targets)).append("\",\n");
+        json.append("  \"mode\": \"").append(mode.name()).append("\",\n");
+        json.append("  \"stopped\": ").append(completion.stopped()).append(",\n");
+        json.append("  \"elapsedMillis\": ").append(completion.elapsedNanos() / 1_000_000).append(",\n");
+        json.append("  \"targetsReported\": ").append(completion.reported()).append(",\n");
+        json.append("  \"probes\": ").append(metrics.probes()).append(",\n");
+        json.append("  \"probesPerSecond\": ").append(String.format(Locale.ROOT, "%.1f", probesPerSecond())).append(",\n");
+        json.append("  \"results\": {\"open\": ").append(metrics.open())
+                .append(", \"refused\": ").append(metrics.closed())
+                .append(", \"timeout\": ").append(metrics.timeout())
+                .append(", \"unreachable\": ").append(metrics.unreachable())
+                .append(", \"cached\": ").append(metrics.cached())
+                .append(", \"retries\": ").append(metrics.retries()).append("},\n");
+        json.append("  \"rttMicros\": {");
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            json.append(i == 0 ? "" : ", ").append('"').append(percentileName(PERCENTILES[i])).append("\": ")
+                    .append(metrics.rttPercentileMicros(PERCENTILES[i]));
+        }
+        json.append("},\n");
+        json.append("  \"rttHistogram\": [");
+        long[] buckets = metrics.rttBuckets();
+        for (int i = 0; i < buckets.length; i++) {
+            json.append(i == 0 ? "\n" : ",\n").append("    {\"belowMicros\": ").append(RttHistogram.upperBoundMicros(i))
+                    .append(", \"count\": ").append(buckets[i]).append('}');
+        }
+        json.append("\n  ]\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Two columns, {@code metric,value}; histogram buckets are rows named {@code rtt_below_<n>us}.
+     */
+    public String toCsv() {
+        StringBuilder csv = new StringBuilder(1024);
+        csv.append("metric,value\n");
+        csv.append("targets,\"").append(targets.replace("\"", "\"\"")).append("\"\n");
+        csv.append("mode,").append(mode.name()).append('\n');
+        csv.append("stopped,").append(completion.stopped()).append('\n');
+        csv.append("elapsed_ms,").append(completion.elapsedNanos() / 1_000_000).append('\n');
+        csv.append("targets_reported,").append(completion.reported()).append('\n');
+        csv.append("probes,").append(metrics.probes()).append('\n');
+        csv.append("probes_per_second,").append(String.format(Locale.ROOT, "%.1f", probesPerSecond())).append('\n');
+        csv.append("open,").append(metrics.open()).append('\n');
+        csv.append("refused,").append(metrics.closed()).append('\n');
+        csv.append("timeout,").append(metrics.timeout()).append('\n');
+        csv.append("unreachable,").append(metrics.unreachable()).append('\n');
+        csv.append("cached,").append(metrics.cached()).append('\n');
+        csv.append("retries,").append(metrics.retries()).append('\n');
+        for (double percentile : PERCENTILES) {
+            csv.append("rtt_").append(percentileName(percentile)).append("_us,")
+                    .append(metrics.rttPercentileMicros(percentile)).append('\n');
+        }
+        long[] buckets = metrics.rttBuckets();
+        for (int i = 0; i < buckets.length; i++) {
+            csv.append("rtt_below_").append(RttHistogram.upperBoundMicros(i)).append("us,").append(buckets[i]).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static String percentileName(double fraction) {
+        // 0.5 -> p50, 0.999 -> p99.9
+        String digits = String.format(Locale.ROOT, "%.1f", fraction * 100);
+        return "p" + (digits.endsWith(".0") ? digits.substring(0, digits.length() - 2) : digits);
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
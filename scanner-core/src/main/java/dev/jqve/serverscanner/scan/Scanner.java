@@ -0,0 +1,150 @@
+package dev.jqve.serverscanner.scan;
+
+/**
+ * Entry point for running a scan: describe the targets and how to probe them, then start it with a
+ * listener that receives results as they come in.
+ * <pre>{@code
+ * ScanScheduler scan = Scanner.builder()
+ *         .targets(TargetSource.hosts(TargetSpec.parse("10.0.0.0/16"), 25565))
+ *         .probeType(ProbeType.STATUS)
+ *         .start((address, port, result, rttNanos, status) -> {
+ *             if (status != null) System.out.println(Ipv4.format(address) + " " + status.motd());
+ *         });
+ * ScanCompletion completion = scan.completion().join();
+ * }</pre>
+ * The listener is called once per target from the scanner's own threads and must not block.
+ * The returned {@link ScanScheduler} stops the scan and tells when it is done.
+ */
+public final class Scanner {
+    private Scanner() {
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private TargetSource targets;
+        private ProbeType probeType = ProbeType.CONNECT;
+        private ExecutionMode executionMode = ExecutionMode.SELECTOR;
+        private int maxInFlight = 512;
+        private int initialWindow = 128;
+        private int minWindow = 8;
+        private int poolSize = 50;
+        private int initialTimeoutMs = 200;
+        private int minTimeoutMs = 30;
+        private int maxTimeoutMs = 2000;
+        private int rate;
+        private int burst = 1;
+        private ResultCache cache;
+        private ScanCheckpoint checkpoint;
+        private String threadName = "Scanner";
+
+        private Builder() {
+        }
+
+        /** What to probe. Required. */
+        public Builder targets(TargetSource targets) {
+            this.targets = targets;
+            return this;
+        }
+
+        /** Plain TCP connects (the default) or a Server List Ping on every open port. */
+        public Builder probeType(ProbeType probeType) {
+            this.probeType = probeType;
+            return this;
+        }
+
+        public Builder executionMode(ExecutionMode executionMode) {
+            this.executionMode = executionMode;
+            return this;
+        }
+
+        /**
+         * Concurrency limits: at most {@code maxInFlight} probes at once, starting at
+         * {@code initialWindow} and never throttled below {@code minWindow}.
+         */
+        public Builder concurrency(int maxInFlight, int initialWindow, int minWindow) {
+            this.maxInFlight = maxInFlight;
+            this.initialWindow = initialWindow;
+            this.minWindow = minWindow;
+            return this;
+        }
+
+        /** Thread count for {@link ExecutionMode#FIXED_POOL}. */
+        public Builder poolSize(int poolSize) {
+            this.poolSize = poolSize;
+            return this;
+        }
+
+        /** Timeout used until RTTs have been measured, and the bounds it adapts within. */
+        public Builder timeouts(int initialTimeoutMs, int minTimeoutMs, int maxTimeoutMs) {
+            this.initialTimeoutMs = initialTimeoutMs;
+            this.minTimeoutMs = minTimeoutMs;
+            this.maxTimeoutMs = maxTimeoutMs;
+            return this;
+        }
+
+        /**
+         * Spreads probes evenly at {@code rate} per second, allowing {@code burst} back to back.
+         * 0 (the default) means no limit besides the concurrency window.
+         */
+        public Builder rateLimit(int rate, int burst) {
+            this.rate = rate;
+            this.burst = burst;
+            return this;
+        }
+
+        /** Like {@link #rateLimit(int, int)} with {@link TokenBucket#defaultBurst the default burst}. */
+        public Builder rateLimit(int rate) {
+            return rateLimit(rate, TokenBucket.defaultBurst(rate));
+        }
+
+        /** Skips targets with a fresh cached result and records new ones. Optional. */
+        public Builder cache(ResultCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Saves progress to {@code checkpoint} and skips what it has already completed. Optional;
+         * pass a {@link ScanCheckpoint#load loaded} checkpoint to resume a scan.
+         */
+        public Builder checkpoint(ScanCheckpoint checkpoint) {
+            this.checkpoint = checkpoint;
+            return this;
+        }
+
+        /** Name prefix for the threads the scan creates. */
+        public Builder threadName(String threadName) {
+            this.threadName = threadName;
+            return this;
+        }
+
+        /**
+         * Starts the scan in the background.
+         *
+         * @throws IllegalStateException    if no targets were given
+         * @throws IllegalArgumentException if the rate limit is out of range
+         */
+        public ScanScheduler start(ProbeCallback listener) {
+            if (targets == null) {
+                throw new IllegalStateException("No targets");
+            }
+            TokenBucket pacer = new TokenBucket(rate, burst);
+            Prober prober = executionMode.createProber(maxInFlight, poolSize, threadName + "-Thread");
+            RttEstimator rttEstimator = new RttEstimator(initialTimeoutMs, minTimeoutMs, maxTimeoutMs);
+            AimdController congestion = new AimdController(initialWindow, minWindow, maxInFlight);
+            ScanScheduler scheduler = new ScanScheduler(prober, probeType, rttEstimator, congestion, listener);
+            if (cache != null) {
+                scheduler.useCache(cache);
+            }
+            if (checkpoint != null) {
+                scheduler.useCheckpoint(checkpoint);
+            }
+            scheduler.usePacer(pacer);
+            scheduler.start(targets, threadName + "-Feeder");
+            return scheduler;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package dev.jqve.serverscanner.scan;
+
+/**
+ * What a Minecraft server reported in its Server List Ping response.
+ * <p>
+ * Legacy servers report less: no protocol number for {@link PingProtocol#BETA} (it is -1) and a
+ * plain-text MOTD.
+ *
+ * @param motd            message of the day, with legacy formatting codes left in place
+ * @param versionName     version string, e.g. {@code "Paper 1.21.3"}
+ * @param protocolVersion protocol number the server speaks, or -1 if it didn't say
+ * @param onlinePlayers   players currently online
+ * @param maxPlayers      player slots
+ * @param pingMillis      measured round trip of the ping/pong exchange
+ * @param protocol        which ping the server answered
+ */
+public record ServerStatus(String motd, String versionName, int protocolVersion,
+                           int onlinePlayers, int maxPlayers, long pingMillis, PingProtocol protocol) {
+
+    ServerStatus withPingMillis(long pingMillis) {
+        return new ServerStatus(motd, versionName, protocolVersion, onlinePlayers, maxPlayers, pingMillis, protocol);
+    }
+}
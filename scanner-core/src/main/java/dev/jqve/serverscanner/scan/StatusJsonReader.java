@@ -0,0 +1,347 @@
+package dev.jqve.serverscanner.scan;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pulls the handful of fields the scanner needs out of a Server List Ping JSON response, working
+ * directly on the received UTF-8 bytes.
+ * <p>
+ * Everything else in the document (favicon, player sample, mod lists, ...) is skipped without
+ * allocating, so the only objects created per response are the MOTD and version strings.
+ */
+final class StatusJsonReader {
+    private static final int MAX_DEPTH = 32;
+
+    private final byte[] data;
+    private final int end;
+    private int pos;
+
+    private String versionName = "";
+    private int protocol = -1;
+    private int online;
+    private int max;
+    private final StringBuilder motd = new StringBuilder();
+
+    private StatusJsonReader(byte[] data, int offset, int length) {
+        this.data = data;
+        this.pos = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * @return the parsed status with a ping of zero, or {@code null} if the bytes are not a status object
+     */
+    static ServerStatus read(byte[] data, int offset, int length) {
+        StatusJsonReader reader = new StatusJsonReader(data, offset, length);
+        try {
+            reader.readRoot();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return new ServerStatus(reader.motd.toString(), reader.versionName, reader.protocol,
+                reader.online, reader.max, 0, PingProtocol.MODERN);
+    }
+
+    private void readRoot() {
+        expect('{');
+        if (tryConsume('}')) {
+            return;
+        }
+        do {
+            skipWhitespace();
+            if (matchKey("version")) {
+                readVersion();
+            } else if (matchKey("players")) {
+                readPlayers();
+            } else if (matchKey("description")) {
+                readComponent(0);
+            } else {
+                skipString();
+                expect(':');
+                skipValue(0);
+            }
+        } while (tryConsume(','));
+        expect('}');
+    }
+
+    private void readVersion() {
+        expect('{');
+        if (tryConsume('}')) {
+            return;
+        }
+        do {
+            skipWhitespace();
+            if (matchKey("name")) {
+                versionName = readString();
+            } else if (matchKey("protocol")) {
+                protocol = readInt();
+            } else {
+                skipString();
+                expect(':');
+                skipValue(0);
+            }
+        } while (tryConsume(','));
+        expect('}');
+    }
+
+    private void readPlayers() {
+        expect('{');
+        if (tryConsume('}')) {
+            return;
+        }
+        do {
+            skipWhitespace();
+            if (matchKey("online")) {
+                online = readInt();
+            } else if (matchKey("max")) {
+                max = readInt();
+            } else {
+                skipString();
+                expect(':');
+                skipValue(0);
+            }
+        } while (tryConsume(','));
+        expect('}');
+    }
+
+    /**
+     * Appends the plain text of a chat component: a string, an array of components, or an object with
+     * {@code text} and {@code extra}.
+     */
+    private void readComponent(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Component nested too deeply");
+        }
+        skipWhitespace();
+        byte b = peek();
+        if (b == '"') {
+            appendString(motd);
+        } else if (b == '[') {
+            pos++;
+            if (tryConsume(']')) {
+                return;
+            }
+            do {
+                readComponent(depth + 1);
+            } while (tryConsume(','));
+            expect(']');
+        } else if (b == '{') {
+            pos++;
+            if (tryConsume('}')) {
+                return;
+            }
+            do {
+                skipWhitespace();
+                if (matchKey("text")) {
+                    skipWhitespace();
+                    appendString(motd);
+                } else if (matchKey("extra")) {
+                    readComponent(depth + 1);
+                } else {
+                    skipString();
+                    expect(':');
+                    skipValue(depth + 1);
+                }
+            } while (tryConsume(','));
+            expect('}');
+        } else {
+            skipValue(depth);
+        }
+    }
+
+    /**
+     * Consumes {@code "key":} if the next key is exactly {@code key}; otherwise leaves the position alone.
+     */
+    private boolean matchKey(String key) {
+        int start = pos;
+        int length = key.length();
+        if (start + length + 2 > end || data[start] != '"' || data[start + length + 1] != '"') {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (data[start + 1 + i] != key.charAt(i)) {
+                return false;
+            }
+        }
+        pos = start + length + 2;
+        expect(':');
+        return true;
+    }
+
+    private String readString() {
+        skipWhitespace();
+        StringBuilder builder = new StringBuilder();
+        appendString(builder);
+        return builder.toString();
+    }
+
+    private void appendString(StringBuilder out) {
+        if (peek() != '"') {
+            throw new IllegalArgumentException("Expected string");
+        }
+        pos++;
+        int runStart = pos;
+        while (pos < end) {
+            byte b = data[pos];
+            if (b == '"') {
+                out.append(new String(data, runStart, pos - runStart, StandardCharsets.UTF_8));
+                pos++;
+                return;
+            }
+            if (b == '\\') {
+                out.append(new String(data, runStart, pos - runStart, StandardCharsets.UTF_8));
+                pos++;
+                out.append(readEscape());
+                runStart = pos;
+            } else {
+                pos++;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string");
+    }
+
+    private char readEscape() {
+        if (pos >= end) {
+            throw new IllegalArgumentException("Unterminated escape");
+        }
+        byte b = data[pos++];
+        switch (b) {
+            case 'n': return '\n';
+            case 't': return '\t';
+            case 'r': return '\r';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'u': {
+                if (pos + 4 > end) {
+                    throw new IllegalArgumentException("Truncated unicode escape");
+                }
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(data[pos++], 16);
+                    if (digit < 0) {
+                        throw new IllegalArgumentException("Invalid unicode escape");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            }
+            default: return (char) b;
+        }
+    }
+
+    private int readInt() {
+        skipWhitespace();
+        boolean negative = tryConsumeRaw('-');
+        long value = 0;
+        int digits = 0;
+        while (pos < end && data[pos] >= '0' && data[pos] <= '9') {
+            value = Math.min(Integer.MAX_VALUE, value * 10 + (data[pos++] - '0'));
+            digits++;
+        }
+        if (digits == 0) {
+            throw new IllegalArgumentException("Expected number");
+        }
+        // Some servers send fractional player counts; ignore the fraction and exponent
+        while (pos < end && (data[pos] == '.' || data[pos] == 'e' || data[pos] == 'E'
+                || data[pos] == '+' || data[pos] == '-' || (data[pos] >= '0' && data[pos] <= '9'))) {
+            pos++;
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    private void skipValue(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Value nested too deeply");
+        }
+        skipWhitespace();
+        byte b = peek();
+        if (b == '"') {
+            skipString();
+        } else if (b == '{') {
+            pos++;
+            if (tryConsume('}')) {
+                return;
+            }
+            do {
+                skipWhitespace();
+                skipString();
+                expect(':');
+                skipValue(depth + 1);
+            } while (tryConsume(','));
+            expect('}');
+        } else if (b == '[') {
+            pos++;
+            if (tryConsume(']')) {
+                return;
+            }
+            do {
+                skipValue(depth + 1);
+            } while (tryConsume(','));
+            expect(']');
+        } else {
+            // Number, true, false or null
+            int start = pos;
+            while (pos < end && data[pos] != ',' && data[pos] != '}' && data[pos] != ']'
+                    && !isWhitespace(data[pos])) {
+                pos++;
+            }
+            if (pos == start) {
+                throw new IllegalArgumentException("Expected value");
+            }
+        }
+    }
+
+    private void skipString() {
+        if (peek() != '"') {
+            throw new IllegalArgumentException("Expected string");
+        }
+        pos++;
+        while (pos < end) {
+            byte b = data[pos++];
+            if (b == '\\') {
+                pos++;
+            } else if (b == '"') {
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string");
+    }
+
+    private void expect(char c) {
+        skipWhitespace();
+        if (pos >= end || data[pos] != c) {
+            throw new IllegalArgumentException("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private boolean tryConsume(char c) {
+        skipWhitespace();
+        return tryConsumeRaw(c);
+    }
+
+    private boolean tryConsumeRaw(char c) {
+        if (pos < end && data[pos] == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private byte peek() {
+        if (pos >= end) {
+            throw new IllegalArgumentException("Unexpected end of input");
+        }
+        return data[pos];
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && isWhitespace(data[pos])) {
+            pos++;
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
@@ -0,0 +1,380 @@
+package dev.jqve.serverscanner.scan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * State machine for one Server List Ping exchange: handshake + status request, status response,
+ * ping, pong.
+ * <p>
+ * Servers older than 1.7, and some proxies, don't speak this exchange. A server that answers the
+ * handshake with a legacy kick packet has that kick string parsed on the spot. One that hangs up or
+ * answers with garbage makes the session ask for a reconnect ({@link #wantsReconnect()}), and the
+ * legacy {@code 0xFE 0x01} ping is sent on the new connection, within what is left of the exchange
+ * deadline. A server that stays silent is given the whole deadline to answer the modern exchange, so
+ * a slow modern server is never cut off early; there is at most one reconnect per session.
+ * <p>
+ * It only deals in buffers, so the same code runs inside the {@link ProbeEngine} selector loop for
+ * non-blocking channels and on plain blocking streams for {@link BlockingProber}. Frames are decoded
+ * incrementally as bytes arrive.
+ */
+final class StatusSession {
+    /** By convention -1 asks the server to answer with whatever protocol it speaks. */
+    private static final int HANDSHAKE_PROTOCOL = -1;
+    private static final int NEXT_STATE_STATUS = 1;
+    private static final int PACKET_STATUS = 0x00;
+    private static final int PACKET_PING = 0x01;
+    private static final int LEGACY_KICK = 0xFF;
+    /** Protocol of 1.6.2, the version whose ping format 1.4 to 1.6 servers all answer. */
+    private static final int LEGACY_PING_PROTOCOL = 74;
+    private static final String LEGACY_PING_CHANNEL = "MC|PingHost";
+    private static final String LEGACY_BETA_VERSION = "Beta 1.8 - 1.3";
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    /** Large favicons push responses into the tens of kilobytes; anything past this isn't a real server. */
+    private static final int MAX_FRAME_SIZE = 256 * 1024;
+    private static final int MIN_EXCHANGE_TIMEOUT_MS = 1000;
+
+    private enum State { WRITE_REQUEST, READ_STATUS, WRITE_PING, READ_PONG, RECONNECT, WRITE_LEGACY, READ_LEGACY, DONE, FAILED }
+
+    private final String host;
+    private final int port;
+    private State state = State.WRITE_REQUEST;
+    private boolean legacyAttempted;
+    private ByteBuffer outbound;
+    private ByteBuffer inbound;
+    private ServerStatus status;
+    private long requestSentNanos;
+    private long statusReceivedNanos;
+    private long pingSentNanos;
+
+    StatusSession(int address, int port) {
+        this.host = Ipv4.format(address);
+        this.port = port;
+        this.outbound = handshakeAndRequest(host, port);
+    }
+
+    /**
+     * How long the whole exchange may take once connected. Servers answer status requests slower than
+     * the kernel answers a SYN, so this is more generous than the connect timeout.
+     */
+    static long exchangeTimeoutMs(int connectTimeoutMs) {
+        return Math.max(MIN_EXCHANGE_TIMEOUT_MS, connectTimeoutMs * 4L);
+    }
+
+    boolean wantsWrite() {
+        return state == State.WRITE_REQUEST || state == State.WRITE_PING || state == State.WRITE_LEGACY;
+    }
+
+    /**
+     * @return whether the connection should be replaced by a new one for the legacy ping; call
+     *         {@link #onReconnected()} once it is connected
+     */
+    boolean wantsReconnect() {
+        return state == State.RECONNECT;
+    }
+
+    /**
+     * Starts the legacy ping on the new connection.
+     */
+    void onReconnected() {
+        outbound = legacyPing(host, port);
+        if (inbound != null) {
+            inbound.clear();
+        }
+        state = State.WRITE_LEGACY;
+    }
+
+    boolean isFinished() {
+        return state == State.DONE || state == State.FAILED;
+    }
+
+    /**
+     * @return bytes waiting to be written; call {@link #onWritten()} once the buffer has been drained
+     */
+    ByteBuffer outbound() {
+        return outbound;
+    }
+
+    void onWritten() {
+        if (outbound.hasRemaining()) {
+            return;
+        }
+        if (state == State.WRITE_REQUEST || state == State.WRITE_LEGACY) {
+            requestSentNanos = System.nanoTime();
+            state = state == State.WRITE_REQUEST ? State.READ_STATUS : State.READ_LEGACY;
+        } else if (state == State.WRITE_PING) {
+            pingSentNanos = System.nanoTime();
+            state = State.READ_PONG;
+        }
+    }
+
+    /**
+     * @return buffer to read into, with at least some free space
+     */
+    ByteBuffer inbound() {
+        if (inbound == null) {
+            inbound = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        } else if (!inbound.hasRemaining()) {
+            grow(inbound.capacity() * 2);
+        }
+        return inbound;
+    }
+
+    /**
+     * Decodes whatever complete frames are in the inbound buffer and advances the state.
+     */
+    void onRead() {
+        inbound.flip();
+        try {
+            if (state == State.READ_STATUS && isLegacyKick()) {
+                // A pre-1.7 server kicking the modern handshake; its kick may already carry the status
+                state = State.READ_LEGACY;
+            }
+            if (state == State.READ_LEGACY) {
+                readLegacyKick();
+                return;
+            }
+            while (!isFinished() && !wantsWrite()) {
+                int frameStart = inbound.position();
+                long length = VarInts.tryRead(inbound);
+                if (length == VarInts.INCOMPLETE) {
+                    break;
+                }
+                if (length == VarInts.MALFORMED || length <= 0 || length > MAX_FRAME_SIZE) {
+                    fail();
+                    break;
+                }
+                if (inbound.remaining() < length) {
+                    inbound.position(frameStart);
+                    int needed = VarInts.size((int) length) + (int) length;
+                    if (needed > inbound.capacity()) {
+                        inbound.compact();
+                        grow(needed);
+                        inbound.flip();
+                    }
+                    break;
+                }
+                int frameEnd = inbound.position() + (int) length;
+                handleFrame(frameEnd);
+                inbound.position(frameEnd);
+            }
+        } finally {
+            inbound.compact();
+        }
+    }
+
+    /**
+     * Called when the peer closes the connection. A server that answers the status request but hangs up
+     * on the ping still counts, using the status round trip as its ping.
+     */
+    void onEndOfStream() {
+        if (status != null && state == State.READ_PONG) {
+            status = status.withPingMillis(nanosToMillis(statusReceivedNanos - requestSentNanos));
+            state = State.DONE;
+        } else if (!isFinished() && !wantsReconnect()) {
+            fail();
+        }
+    }
+
+    /**
+     * @return the server's status, or {@code null} unless the exchange completed
+     */
+    ServerStatus status() {
+        return state == State.DONE ? status : null;
+    }
+
+    /**
+     * Drives the whole exchange over blocking streams. The socket's read timeout bounds each read.
+     *
+     * @return the status, or {@code null} if the peer did not speak the status protocol or the session
+     *         {@link #wantsReconnect() wants to reconnect}
+     */
+    ServerStatus runBlocking(InputStream in, OutputStream out) throws IOException {
+        while (!isFinished() && !wantsReconnect()) {
+            if (wantsWrite()) {
+                out.write(outbound.array(), outbound.position(), outbound.remaining());
+                out.flush();
+                outbound.position(outbound.limit());
+                onWritten();
+            } else {
+                ByteBuffer buffer = inbound();
+                int read = in.read(buffer.array(), buffer.position(), buffer.remaining());
+                if (read < 0) {
+                    onEndOfStream();
+                } else {
+                    buffer.position(buffer.position() + read);
+                    onRead();
+                }
+            }
+        }
+        return status();
+    }
+
+    private void handleFrame(int frameEnd) {
+        long packetId = VarInts.tryRead(inbound);
+        if (packetId < 0 || inbound.position() > frameEnd) {
+            fail();
+            return;
+        }
+        if (state == State.READ_STATUS && packetId == PACKET_STATUS) {
+            statusReceivedNanos = System.nanoTime();
+            long jsonLength = VarInts.tryRead(inbound);
+            if (jsonLength < 0 || inbound.position() + jsonLength > frameEnd) {
+                state = State.FAILED;
+                return;
+            }
+            status = StatusJsonReader.read(inbound.array(), inbound.arrayOffset() + inbound.position(), (int) jsonLength);
+            if (status == null) {
+                state = State.FAILED;
+                return;
+            }
+            outbound = pingPacket(statusReceivedNanos);
+            state = State.WRITE_PING;
+        } else if (state == State.READ_PONG && packetId == PACKET_PING) {
+            // The payload should echo ours, but some proxies answer with their own; the timing is what counts
+            status = status.withPingMillis(nanosToMillis(System.nanoTime() - pingSentNanos));
+            state = State.DONE;
+        } else {
+            fail();
+        }
+    }
+
+    /**
+     * The peer doesn't speak the exchange we tried. Before any status arrived that may just mean it is a
+     * legacy server, so it gets the legacy ping once.
+     */
+    private void fail() {
+        if (status == null && !legacyAttempted) {
+            // Only once: a reconnect that fails or never connects ends the session
+            legacyAttempted = true;
+            state = State.RECONNECT;
+        } else {
+            state = State.FAILED;
+        }
+    }
+
+    /**
+     * A legacy kick starts with 0xFF and a two byte string length, which is below 256 for any kick a
+     * server sends. A modern frame can start with 0xFF too (a length of 255 or more), but its varint
+     * never has a zero second byte.
+     */
+    private boolean isLegacyKick() {
+        int start = inbound.position();
+        return inbound.remaining() >= 2 && (inbound.get(start) & 0xff) == LEGACY_KICK && inbound.get(start + 1) == 0;
+    }
+
+    /**
+     * Waits for the whole kick packet (0xFF, length in chars, UTF-16BE chars) and parses it.
+     */
+    private void readLegacyKick() {
+        int start = inbound.position();
+        if (inbound.remaining() < 3) {
+            return;
+        }
+        if ((inbound.get(start) & 0xff) != LEGACY_KICK) {
+            fail();
+            return;
+        }
+        int length = inbound.getShort(start + 1) & 0xffff;
+        if (inbound.remaining() < 3 + length * 2) {
+            return;
+        }
+        String kick = new String(inbound.array(), inbound.arrayOffset() + start + 3, length * 2, StandardCharsets.UTF_16BE);
+        inbound.position(start + 3 + length * 2);
+        status = parseLegacyKick(kick, nanosToMillis(System.nanoTime() - requestSentNanos));
+        if (status != null) {
+            state = State.DONE;
+        } else {
+            // A plain kick message, e.g. "Outdated client!"; only the legacy ping tells the status
+            fail();
+        }
+    }
+
+    /**
+     * Parses the status a legacy server puts in its kick string: {@code §1\0protocol\0version\0motd\0online\0max}
+     * from 1.4 on, {@code motd§online§max} before.
+     *
+     * @return the status, or {@code null} if the kick is just a message
+     */
+    static ServerStatus parseLegacyKick(String kick, long pingMillis) {
+        try {
+            if (kick.startsWith("§1\0")) {
+                String[] fields = kick.split("\0", -1);
+                if (fields.length < 6) {
+                    return null;
+                }
+                return new ServerStatus(fields[3], fields[2], Integer.parseInt(fields[1]), Integer.parseInt(fields[4]),
+                        Integer.parseInt(fields[5]), pingMillis, PingProtocol.LEGACY);
+            }
+            int maxStart = kick.lastIndexOf('§');
+            int onlineStart = maxStart > 0 ? kick.lastIndexOf('§', maxStart - 1) : -1;
+            if (onlineStart < 0) {
+                return null;
+            }
+            return new ServerStatus(kick.substring(0, onlineStart), LEGACY_BETA_VERSION, -1,
+                    Integer.parseInt(kick.substring(onlineStart + 1, maxStart)),
+                    Integer.parseInt(kick.substring(maxStart + 1)), pingMillis, PingProtocol.BETA);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void grow(int capacity) {
+        ByteBuffer bigger = ByteBuffer.allocate(capacity);
+        inbound.flip();
+        bigger.put(inbound);
+        inbound = bigger;
+    }
+
+    private static ByteBuffer handshakeAndRequest(String host, int port) {
+        byte[] hostBytes = host.getBytes(StandardCharsets.UTF_8);
+        int handshakeLength = VarInts.size(0x00) + VarInts.size(HANDSHAKE_PROTOCOL)
+                + VarInts.size(hostBytes.length) + hostBytes.length + 2 + VarInts.size(NEXT_STATE_STATUS);
+        ByteBuffer buffer = ByteBuffer.allocate(VarInts.size(handshakeLength) + handshakeLength + 2);
+        VarInts.write(buffer, handshakeLength);
+        VarInts.write(buffer, 0x00);
+        VarInts.write(buffer, HANDSHAKE_PROTOCOL);
+        VarInts.write(buffer, hostBytes.length);
+        buffer.put(hostBytes);
+        buffer.putShort((short) port);
+        VarInts.write(buffer, NEXT_STATE_STATUS);
+        // Status request: length 1, packet id 0
+        VarInts.write(buffer, 1);
+        VarInts.write(buffer, PACKET_STATUS);
+        return buffer.flip();
+    }
+
+    /**
+     * The 1.6 server list ping: 0xFE 0x01, then a plugin message naming the host and port. Servers from
+     * 1.4 on answer with the {@code §1} kick string and older ones with the plain one; both ignore
+     * whatever part of the packet they don't know.
+     */
+    private static ByteBuffer legacyPing(String host, int port) {
+        byte[] channel = LEGACY_PING_CHANNEL.getBytes(StandardCharsets.UTF_16BE);
+        byte[] hostChars = host.getBytes(StandardCharsets.UTF_16BE);
+        int dataLength = 1 + 2 + hostChars.length + 4;
+        ByteBuffer buffer = ByteBuffer.allocate(3 + 2 + channel.length + 2 + dataLength);
+        buffer.put((byte) 0xFE).put((byte) 0x01).put((byte) 0xFA);
+        buffer.putShort((short) LEGACY_PING_CHANNEL.length()).put(channel);
+        buffer.putShort((short) dataLength);
+        buffer.put((byte) LEGACY_PING_PROTOCOL);
+        buffer.putShort((short) host.length()).put(hostChars);
+        buffer.putInt(port);
+        return buffer.flip();
+    }
+
+    private static ByteBuffer pingPacket(long payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+        VarInts.write(buffer, 9);
+        VarInts.write(buffer, PACKET_PING);
+        buffer.putLong(payload);
+        return buffer.flip();
+    }
+
+    private static long nanosToMillis(long nanos) {
+        return Math.max(0, nanos / 1_000_000L);
+    }
+}
@@ -0,0 +1,47 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Walks the addresses of a {@link TargetSpec} one {@code int} at a time, without boxing and without
+ * materialising the address list.
+ */
+public final class TargetIterator implements PrimitiveIterator.OfInt {
+    private final int[] starts;
+    private final long[] sizes;
+    private int range;
+    private long offset;
+    private long consumed;
+
+    TargetIterator(int[] starts, long[] sizes) {
+        this.starts = starts;
+        this.sizes = sizes;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return range < starts.length;
+    }
+
+    @Override
+    public int nextInt() {
+        if (range >= starts.length) {
+            throw new NoSuchElementException();
+        }
+        int address = starts[range] + (int) offset;
+        if (++offset == sizes[range]) {
+            range++;
+            offset = 0;
+        }
+        consumed++;
+        return address;
+    }
+
+    /**
+     * @return how many addresses have been returned so far
+     */
+    public long consumed() {
+        return consumed;
+    }
+}
@@ -0,0 +1,75 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.SplittableRandom;
+
+/**
+ * A seeded pseudo-random permutation of {@code [0, size)}, computed per index without storing
+ * anything per element.
+ * <p>
+ * Walking targets in order loads one host or switch segment at a time and biases an interrupted scan
+ * toward low addresses. Like zmap, the scanner visits them in a random order instead, but zmap's
+ * cyclic group can only be iterated, while the scheduler's chunks and checkpoints address targets by
+ * index. So this is a small Feistel network over the smallest even power of two that covers
+ * {@code size}, with cycle walking: indices that land outside the range are encrypted again until
+ * they fall inside, which keeps it a bijection on exactly {@code [0, size)}. The domain is less than
+ * four times the size, so that takes a handful of rounds at most on average.
+ */
+public final class TargetPermutation {
+    private static final int ROUNDS = 4;
+
+    private final long size;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] keys = new long[ROUNDS];
+
+    public TargetPermutation(long size, long seed) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative size: " + size);
+        }
+        this.size = size;
+        int bits = 64 - Long.numberOfLeadingZeros(Math.max(1, size - 1));
+        this.halfBits = Math.max(1, (bits + 1) / 2);
+        this.halfMask = (1L << halfBits) - 1;
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < ROUNDS; i++) {
+            keys[i] = random.nextLong();
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the position {@code index} is mapped to; distinct indices give distinct positions
+     */
+    public long indexAt(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        long x = index;
+        do {
+            x = encrypt(x);
+        } while (x >= size);
+        return x;
+    }
+
+    private long encrypt(long x) {
+        long left = x >>> halfBits;
+        long right = x & halfMask;
+        for (long key : keys) {
+            long next = left ^ (round(right, key) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private static long round(long value, long key) {
+        // SplitMix64 finalizer
+        long z = (value + key) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,127 @@
+package dev.jqve.serverscanner.scan;
+
+/**
+ * An indexed set of host/port pairs to probe. Each target is computed from its index and packed into a
+ * single {@code long} (see {@link #pack}), so a source can be split into chunks and walked without
+ * allocating or storing anything per target.
+ */
+public interface TargetSource {
+    /**
+     * @return total number of targets
+     */
+    long size();
+
+    /**
+     * @return the target at {@code index}, packed with {@link #pack}
+     */
+    long targetAt(long index);
+
+    static long pack(int address, int port) {
+        return (Integer.toUnsignedLong(address) << 16) | (port & 0xffff);
+    }
+
+    static int address(long target) {
+        return (int) (target >>> 16);
+    }
+
+    static int port(long target) {
+        return (int) (target & 0xffff);
+    }
+
+    /**
+     * @return every address of {@code hosts} on a single port
+     */
+    static TargetSource hosts(TargetSpec hosts, int port) {
+        return new TargetSource() {
+            @Override
+            public long size() {
+                return hosts.size();
+            }
+
+            @Override
+            public long targetAt(long index) {
+                return pack(hosts.addressAt(index), port);
+            }
+        };
+    }
+
+    /**
+     * @return every port of {@code ports} on every address of {@code hosts}, host by host; wrap it in
+     *         {@link #permuted} to interleave hosts and ports
+     */
+    static TargetSource hosts(TargetSpec hosts, PortSpec ports) {
+        int portCount = ports.size();
+        return new TargetSource() {
+            @Override
+            public long size() {
+                return hosts.size() * portCount;
+            }
+
+            @Override
+            public long targetAt(long index) {
+                return pack(hosts.addressAt(index / portCount), ports.portAt((int) (index % portCount)));
+            }
+        };
+    }
+
+    /**
+     * @return the ports {@code firstPort..lastPort} of a single address
+     */
+    static TargetSource ports(int address, int firstPort, int lastPort) {
+        return new TargetSource() {
+            @Override
+            public long size() {
+                return lastPort - firstPort + 1;
+            }
+
+            @Override
+            public long targetAt(long index) {
+                return pack(address, firstPort + (int) index);
+            }
+        };
+    }
+
+    /**
+     * @return the targets of {@code source} in a pseudo-random order fixed by {@code seed}; see
+     *         {@link TargetPermutation}. The same seed always gives the same order.
+     */
+    static TargetSource permuted(TargetSource source, long seed) {
+        TargetPermutation permutation = new TargetPermutation(source.size(), seed);
+        return new TargetSource() {
+            @Override
+            public long size() {
+                return permutation.size();
+            }
+
+            @Override
+            public long targetAt(long index) {
+                return source.targetAt(permutation.indexAt(index));
+            }
+        };
+    }
+
+    /**
+     * Splits {@code source} into {@code shards} disjoint parts that together cover it, taking every
+     * {@code shards}-th target starting at {@code shard}. On a {@link #permuted} source each shard is
+     * spread evenly over the whole target set.
+     *
+     * @param shard zero-based index of the part to return
+     */
+    static TargetSource shard(TargetSource source, int shard, int shards) {
+        if (shards < 1 || shard < 0 || shard >= shards) {
+            throw new IllegalArgumentException("Invalid shard " + shard + " of " + shards);
+        }
+        long size = source.size() <= shard ? 0 : (source.size() - shard + shards - 1) / shards;
+        return new TargetSource() {
+            @Override
+            public long size() {
+                return size;
+            }
+
+            @Override
+            public long targetAt(long index) {
+                return source.targetAt(shard + index * shards);
+            }
+        };
+    }
+}
@@ -0,0 +1,243 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * A set of IPv4 addresses to scan, described as CIDR blocks, ranges and single addresses.
+ * <p>
+ * Only the range bounds are stored, never the individual addresses, so a /16 costs the same
+ * memory as a single host. Overlapping entries are merged so no address is probed twice.
+ * <p>
+ * Accepted syntax, comma separated:
+ * <ul>
+ *     <li>{@code 10.0.0.0/16} - a CIDR block; network and broadcast addresses are skipped for /30 and larger</li>
+ *     <li>{@code 192.168.1.10-192.168.1.50} - an inclusive range</li>
+ *     <li>{@code 192.168.1.10-50} - shorthand for a range within the last octet</li>
+ *     <li>{@code 172.16.0.5} - a single address</li>
+ * </ul>
+ */
+public final class TargetSpec {
+    /** Range starts, sorted and non-overlapping. */
+    private final int[] starts;
+    /** Number of addresses in each range (up to 2^32, hence long). */
+    private final long[] sizes;
+    /** Index of the first address of each range within the whole spec. */
+    private final long[] offsets;
+    private final long size;
+
+    private TargetSpec(List<long[]> ranges) {
+        // Ranges are [first, last] as unsigned values in longs; sort and merge overlaps
+        ranges.sort((a, b) -> Long.compare(a[0], b[0]));
+        List<long[]> merged = new ArrayList<>();
+        for (long[] range : ranges) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1] + 1) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(new long[]{range[0], range[1]});
+            }
+        }
+
+        this.starts = new int[merged.size()];
+        this.sizes = new long[merged.size()];
+        this.offsets = new long[merged.size()];
+        long total = 0;
+        for (int i = 0; i < merged.size(); i++) {
+            long[] range = merged.get(i);
+            starts[i] = (int) range[0];
+            sizes[i] = range[1] - range[0] + 1;
+            offsets[i] = total;
+            total += sizes[i];
+        }
+        this.size = total;
+    }
+
+    /**
+     * @throws IllegalArgumentException if any entry is malformed or the spec is empty
+     */
+    public static TargetSpec parse(String text) {
+        List<long[]> ranges = new ArrayList<>();
+        for (String part : text.split(",")) {
+            String entry = part.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            ranges.add(parseEntry(entry));
+        }
+        if (ranges.isEmpty()) {
+            throw new IllegalArgumentException("No targets given");
+        }
+        return new TargetSpec(ranges);
+    }
+
+    /**
+     * @return the usable hosts of {@code network/prefixLength}
+     */
+    public static TargetSpec cidr(int network, int prefixLength) {
+        List<long[]> ranges = new ArrayList<>();
+        ranges.add(cidrRange(network, prefixLength));
+        return new TargetSpec(ranges);
+    }
+
+    private static long[] parseEntry(String entry) {
+        int slash = entry.indexOf('/');
+        if (slash >= 0) {
+            int prefixLength;
+            try {
+                prefixLength = Integer.parseInt(entry.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid prefix length: " + entry);
+            }
+            if (prefixLength < 0 || prefixLength > 32) {
+                throw new IllegalArgumentException("Invalid prefix length: " + entry);
+            }
+            return cidrRange(Ipv4.parse(entry.substring(0, slash).trim()), prefixLength);
+        }
+
+        int dash = entry.indexOf('-');
+        if (dash >= 0) {
+            long first = Integer.toUnsignedLong(Ipv4.parse(entry.substring(0, dash).trim()));
+            String endText = entry.substring(dash + 1).trim();
+            long last;
+            if (endText.indexOf('.') < 0) {
+                // "192.168.1.10-50": the end only replaces the last octet
+                int lastOctet;
+                try {
+                    lastOctet = Integer.parseInt(endText);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid range: " + entry);
+                }
+                if (lastOctet < 0 || lastOctet > 255) {
+                    throw new IllegalArgumentException("Invalid range: " + entry);
+                }
+                last = (first & 0xffffff00L) | lastOctet;
+            } else {
+                last = Integer.toUnsignedLong(Ipv4.parse(endText));
+            }
+            if (last < first) {
+                throw new IllegalArgumentException("Range end is before its start: " + entry);
+            }
+            return new long[]{first, last};
+        }
+
+        long address = Integer.toUnsignedLong(Ipv4.parse(entry));
+        return new long[]{address, address};
+    }
+
+    private static long[] cidrRange(int address, int prefixLength) {
+        int mask = Ipv4.mask(prefixLength);
+        long first = Integer.toUnsignedLong(address & mask);
+        long last = Integer.toUnsignedLong(address | ~mask);
+        if (prefixLength <= 30) {
+            // Skip the network and broadcast addresses
+            first++;
+            last--;
+        }
+        return new long[]{first, last};
+    }
+
+    /**
+     * @return total number of addresses
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the address at position {@code index} in ascending order
+     */
+    public int addressAt(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int low = 0;
+        int high = offsets.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return starts[low] + (int) (index - offsets[low]);
+    }
+
+    /**
+     * @return whether {@code address} is part of the spec
+     */
+    public boolean contains(int address) {
+        return indexOf(address) >= 0;
+    }
+
+    /**
+     * @return the position of {@code address} in ascending order, the inverse of {@link #addressAt},
+     *         or -1 if it isn't part of the spec
+     */
+    public long indexOf(int address) {
+        long value = Integer.toUnsignedLong(address);
+        int low = 0;
+        int high = starts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long start = Integer.toUnsignedLong(starts[mid]);
+            if (value < start) {
+                high = mid - 1;
+            } else if (value - start >= sizes[mid]) {
+                low = mid + 1;
+            } else {
+                return offsets[mid] + (value - start);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the addresses whose index is accepted by {@code filter}; may be empty
+     */
+    public TargetSpec subset(LongPredicate filter) {
+        List<long[]> ranges = new ArrayList<>();
+        for (int i = 0; i < starts.length; i++) {
+            long first = Integer.toUnsignedLong(starts[i]);
+            long[] range = null;
+            for (long offset = 0; offset < sizes[i]; offset++) {
+                if (!filter.test(offsets[i] + offset)) {
+                    range = null;
+                } else if (range != null) {
+                    range[1]++;
+                } else {
+                    range = new long[]{first + offset, first + offset};
+                    ranges.add(range);
+                }
+            }
+        }
+        return new TargetSpec(ranges);
+    }
+
+    /**
+     * @return a fresh iterator over every address, in ascending order
+     */
+    public TargetIterator iterator() {
+        return new TargetIterator(starts, sizes);
+    }
+
+    /**
+     * @return the spec in canonical form, e.g. {@code "10.0.0.1-10.0.255.254,192.168.1.5"}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < starts.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(Ipv4.format(starts[i]));
+            if (sizes[i] > 1) {
+                builder.append('-').append(Ipv4.format(starts[i] + (int) (sizes[i] - 1)));
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the throughput of the last completed scan per target set and {@link ExecutionMode}, so a
+ * run in one mode can be compared against the fixed platform pool on the same targets.
+ */
+public final class ThroughputReport {
+    private static final Map<String, Map<ExecutionMode, Double>> RESULTS = new ConcurrentHashMap<>();
+
+    private ThroughputReport() {
+    }
+
+    /**
+     * Records a finished scan and returns a short summary such as
+     * {@code "4210 probes/s, 6.3x fixed pool"}.
+     *
+     * @param targetKey identifies the target set, e.g. {@code "192.168.1.0/24:25565"}
+     */
+    public static String record(String targetKey, ExecutionMode mode, long probes, long elapsedNanos) {
+        double probesPerSecond = probes * 1_000_000_000.0 / Math.max(1, elapsedNanos);
+        Map<ExecutionMode, Double> byMode = RESULTS.computeIfAbsent(targetKey, key -> new EnumMap<>(ExecutionMode.class));
+        Double baseline;
+        synchronized (byMode) {
+            byMode.put(mode, probesPerSecond);
+            baseline = byMode.get(ExecutionMode.FIXED_POOL);
+        }
+
+        String summary = String.format("%.0f probes/s", probesPerSecond);
+        if (mode == ExecutionMode.FIXED_POOL) {
+            return summary;
+        }
+        if (baseline == null) {
+            return summary + ", no fixed pool run to compare";
+        }
+        return summary + String.format(", %.1fx fixed pool", probesPerSecond / baseline);
+    }
+}
@@ -0,0 +1,115 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.function.Consumer;
+
+/**
+ * A single-threaded hashed timer wheel used by the selector loops to expire connect attempts.
+ * <p>
+ * Timeouts are intrusive list nodes, so scheduling and cancelling are O(1) and allocate nothing.
+ * Each tick only looks at the one bucket it lands on; timeouts longer than a full rotation simply
+ * stay in their bucket until their deadline tick comes around.
+ */
+final class TimerWheel<T extends TimerWheel.Timeout> {
+    /**
+     * Base class for anything that can sit on the wheel.
+     */
+    abstract static class Timeout {
+        Timeout prev;
+        Timeout next;
+        long deadlineTick;
+        boolean scheduled;
+    }
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Timeout[] buckets;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickNanos resolution of the wheel
+     * @param wheelSize number of buckets, rounded up to a power of two
+     */
+    TimerWheel(long tickNanos, int wheelSize) {
+        this.tickNanos = tickNanos;
+        this.startNanos = System.nanoTime();
+        int capacity = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.buckets = new Timeout[capacity];
+        this.mask = capacity - 1;
+    }
+
+    long tickMillis() {
+        return Math.max(1, tickNanos / 1_000_000L);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void schedule(T timeout, long delayNanos) {
+        if (timeout.scheduled) {
+            cancel(timeout);
+        }
+        long deadline = (System.nanoTime() - startNanos + delayNanos + tickNanos - 1) / tickNanos;
+        // Never schedule into the bucket we've already passed
+        timeout.deadlineTick = Math.max(deadline, currentTick + 1);
+        int index = (int) (timeout.deadlineTick & mask);
+        Timeout head = buckets[index];
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[index] = timeout;
+        timeout.scheduled = true;
+        size++;
+    }
+
+    void cancel(T timeout) {
+        if (!timeout.scheduled) {
+            return;
+        }
+        unlink(timeout);
+    }
+
+    /**
+     * Advances the wheel up to the current time and hands every expired timeout to {@code onExpire}.
+     */
+    @SuppressWarnings("unchecked")
+    void advance(Consumer<T> onExpire) {
+        long targetTick = (System.nanoTime() - startNanos) / tickNanos;
+        while (currentTick < targetTick) {
+            currentTick++;
+            if (size == 0) {
+                // Nothing scheduled, skip straight to the present
+                currentTick = targetTick;
+                break;
+            }
+            Timeout node = buckets[(int) (currentTick & mask)];
+            while (node != null) {
+                Timeout next = node.next;
+                if (node.deadlineTick <= currentTick) {
+                    unlink(node);
+                    onExpire.accept((T) node);
+                }
+                node = next;
+            }
+        }
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[(int) (timeout.deadlineTick & mask)] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.scheduled = false;
+        size--;
+    }
+}
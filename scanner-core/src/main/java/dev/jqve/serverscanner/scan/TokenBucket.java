@@ -0,0 +1,107 @@
+package dev.jqve.serverscanner.scan;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces probe submissions to a rate in probes per second, allowing bursts of up to {@code burst}
+ * probes after an idle stretch.
+ * <p>
+ * Routers and host firewalls tend to drop or rate-limit a sudden flood of SYNs, which costs accuracy
+ * and retries. The bucket spreads connection attempts evenly instead. Only the thread that submits
+ * probes ever waits, and waiting is done against a deadline: long waits park, the last few
+ * microseconds spin, and any oversleep is credited back to the bucket, so the average rate holds
+ * exactly even though a single park may overshoot.
+ * <p>
+ * {@link #acquire()} must only be called from one thread (the scheduler's feeder). The rate can be
+ * changed from any thread at any time.
+ */
+public final class TokenBucket {
+    /** Remaining waits shorter than this are spun, since a park can overshoot by about as much. */
+    private static final long SPIN_THRESHOLD_NANOS = 50_000;
+    /** Default burst: 50 ms worth of probes. */
+    private static final int DEFAULT_BURST_DIVISOR = 20;
+
+    private volatile int rate;
+    private volatile int burst;
+    // Feeder thread only
+    private double tokens;
+    private long lastNanos = System.nanoTime();
+
+    /**
+     * @param rate  probes per second, or 0 for no limit
+     * @param burst probes that may go out back to back after an idle stretch
+     */
+    public TokenBucket(int rate, int burst) {
+        setRate(rate, burst);
+        this.tokens = this.burst;
+    }
+
+    /**
+     * @return a burst allowance of 50 ms worth of probes at {@code rate}, at least 1
+     */
+    public static int defaultBurst(int rate) {
+        return Math.max(1, rate / DEFAULT_BURST_DIVISOR);
+    }
+
+    /**
+     * Changes the rate; takes effect with the next probe.
+     *
+     * @param rate  probes per second, or 0 for no limit
+     * @param burst probes that may go out back to back, at least 1
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public void setRate(int rate, int burst) {
+        if (rate < 0 || burst < 1) {
+            throw new IllegalArgumentException("Invalid rate " + rate + " with burst " + burst);
+        }
+        this.burst = burst;
+        this.rate = rate;
+    }
+
+    /**
+     * @return probes per second, 0 if unlimited
+     */
+    public int rate() {
+        return rate;
+    }
+
+    public int burst() {
+        return burst;
+    }
+
+    /**
+     * Takes one token, waiting until one is available.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        int rate = this.rate;
+        long now = System.nanoTime();
+        if (rate == 0) {
+            lastNanos = now;
+            return;
+        }
+        double perNano = rate / 1e9;
+        tokens = Math.min(burst, tokens + (now - lastNanos) * perNano) - 1;
+        lastNanos = now;
+        if (tokens >= 0) {
+            return;
+        }
+        // The token is taken on credit; the next refill counts the time spent waiting for it
+        awaitDeadline(now + (long) Math.ceil(-tokens / perNano));
+    }
+
+    private void awaitDeadline(long deadline) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(this, remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
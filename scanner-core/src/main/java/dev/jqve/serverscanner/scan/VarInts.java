@@ -0,0 +1,56 @@
+package dev.jqve.serverscanner.scan;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Minecraft protocol VarInt encoding, read incrementally so a value split across TCP reads can be
+ * picked up again once more bytes arrive.
+ */
+final class VarInts {
+    /** Returned by {@link #tryRead} when the buffer ends before the VarInt does. */
+    static final long INCOMPLETE = Long.MIN_VALUE;
+    /** Returned by {@link #tryRead} when the VarInt is longer than five bytes. */
+    static final long MALFORMED = Long.MIN_VALUE + 1;
+
+    private VarInts() {
+    }
+
+    /**
+     * Reads a VarInt at the buffer's position. On success the position moves past it; if the VarInt is
+     * incomplete or malformed the position is left untouched.
+     */
+    static long tryRead(ByteBuffer buffer) {
+        int start = buffer.position();
+        int value = 0;
+        for (int i = 0; i < 5; i++) {
+            if (!buffer.hasRemaining()) {
+                buffer.position(start);
+                return INCOMPLETE;
+            }
+            byte b = buffer.get();
+            value |= (b & 0x7f) << (7 * i);
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        buffer.position(start);
+        return MALFORMED;
+    }
+
+    static void write(ByteBuffer buffer, int value) {
+        while ((value & ~0x7f) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static int size(int value) {
+        int size = 1;
+        while ((value & ~0x7f) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+}
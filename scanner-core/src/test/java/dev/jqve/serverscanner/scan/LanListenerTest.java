@@ -0,0 +1,35 @@
+package dev.jqve.serverscanner.scan;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LanListenerTest {
+    private static final int ADDRESS = Ipv4.parse("192.168.1.20");
+
+    @Test
+    void parsesAnnouncement() {
+        LanListener.Announcement announcement = LanListener.parse(ADDRESS, "[MOTD]Steve - New World[/MOTD][AD]53211[/AD]");
+        assertEquals(new LanListener.Announcement(ADDRESS, 53211, "Steve - New World"), announcement);
+    }
+
+    @Test
+    void keepsFormattingAndTrimsPort() {
+        LanListener.Announcement announcement = LanListener.parse(ADDRESS, "[MOTD]§aGreen [world][/MOTD][AD] 25565 [/AD]");
+        assertEquals("§aGreen [world]", announcement.motd());
+        assertEquals(25565, announcement.port());
+    }
+
+    @Test
+    void rejectsAnythingElse() {
+        assertNull(LanListener.parse(ADDRESS, ""));
+        assertNull(LanListener.parse(ADDRESS, "[MOTD]No port[/MOTD]"));
+        assertNull(LanListener.parse(ADDRESS, "[AD]25565[/AD]"));
+        assertNull(LanListener.parse(ADDRESS, "[AD]25565[/AD][MOTD]Port first[/MOTD]"));
+        assertNull(LanListener.parse(ADDRESS, "[MOTD]World[/MOTD][AD]port[/AD]"));
+        assertNull(LanListener.parse(ADDRESS, "[MOTD]World[/MOTD][AD]0[/AD]"));
+        assertNull(LanListener.parse(ADDRESS, "[MOTD]World[/MOTD][AD]70000[/AD]"));
+        assertNull(LanListener.parse(ADDRESS, "[MOTD]Unterminated[AD]25565[/AD]"));
+    }
+}
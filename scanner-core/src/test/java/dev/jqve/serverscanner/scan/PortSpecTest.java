@@ -0,0 +1,44 @@
+package dev.jqve.serverscanner.scan;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PortSpecTest {
+    @Test
+    void parsesPortsAndRangesInOrder() {
+        PortSpec spec = PortSpec.parse("30000, 25565-25567,19132");
+        assertEquals(5, spec.size());
+        assertEquals(19132, spec.portAt(0));
+        assertEquals(25565, spec.portAt(1));
+        assertEquals(30000, spec.portAt(4));
+        assertTrue(spec.contains(25566));
+        assertFalse(spec.contains(25568));
+    }
+
+    @Test
+    void mergesOverlapsIntoCanonicalForm() {
+        PortSpec spec = PortSpec.parse("25565-25570,25568-25575,25565,30000");
+        assertEquals(12, spec.size());
+        assertEquals("25565-25575,30000", spec.toString());
+        assertEquals("25565", PortSpec.of(25565).toString());
+    }
+
+    @Test
+    void coversTheWholePortRange() {
+        assertEquals(65535, PortSpec.parse("1-65535").size());
+    }
+
+    @Test
+    void rejectsMalformedEntries() {
+        assertThrows(IllegalArgumentException.class, () -> PortSpec.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> PortSpec.parse("0"));
+        assertThrows(IllegalArgumentException.class, () -> PortSpec.parse("65536"));
+        assertThrows(IllegalArgumentException.class, () -> PortSpec.parse("25570-25565"));
+        assertThrows(IllegalArgumentException.class, () -> PortSpec.parse("mc"));
+        assertThrows(IllegalArgumentException.class, () -> PortSpec.parse("25565-"));
+    }
+}
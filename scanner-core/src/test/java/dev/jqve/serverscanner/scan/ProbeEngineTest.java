@@ -0,0 +1,135 @@
+package dev.jqve.serverscanner.scan;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProbeEngineTest {
+    private static final int LOOPBACK = Ipv4.parse("127.0.0.1");
+    private static final int TIMEOUT_MS = 100;
+    // StatusSession.exchangeTimeoutMs(TIMEOUT_MS)
+    private static final long EXCHANGE_MS = 1000;
+
+    private ProbeEngine engine;
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+    private record Outcome(ProbeResult result, ServerStatus status, long elapsedMs) {
+    }
+
+    @BeforeEach
+    void startEngine() {
+        engine = new ProbeEngine(1, 16);
+    }
+
+    @AfterEach
+    void closeEverything() throws IOException {
+        engine.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    @Test
+    void settlesWhenLegacyReconnectNeverConnects() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Thread.ofVirtual().start(() -> {
+                try {
+                    Socket modern = server.accept();
+                    // With the accept queue full the legacy connect's SYN is dropped and it never connects
+                    fillBacklog(server);
+                    modern.close();
+                } catch (IOException e) {
+                    // The probe then times out some other way, which the assertions catch
+                }
+            });
+
+            Outcome outcome = probe(server.getLocalPort());
+
+            assertEquals(ProbeResult.OPEN, outcome.result());
+            assertNull(outcome.status());
+            assertTrue(outcome.elapsedMs() < EXCHANGE_MS + 1000, "took " + outcome.elapsedMs() + " ms");
+        }
+    }
+
+    @Test
+    void legacyPingSharesTheExchangeDeadline() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Thread.ofVirtual().start(() -> {
+                try {
+                    Socket modern = server.accept();
+                    // Hang up on the modern handshake late; the legacy connection then stays silent
+                    Thread.sleep(EXCHANGE_MS * 6 / 10);
+                    modern.close();
+                    sockets.add(server.accept());
+                } catch (IOException | InterruptedException e) {
+                    // Reported by the assertions
+                }
+            });
+
+            Outcome outcome = probe(server.getLocalPort());
+
+            assertEquals(ProbeResult.OPEN, outcome.result());
+            assertNull(outcome.status());
+            assertTrue(outcome.elapsedMs() < EXCHANGE_MS + 400, "took " + outcome.elapsedMs() + " ms");
+        }
+    }
+
+    @Test
+    void slowModernServerIsNotCutOff() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Thread.ofVirtual().start(() -> {
+                try (Socket modern = server.accept()) {
+                    modern.getInputStream().read(new byte[256]);
+                    Thread.sleep(EXCHANGE_MS * 7 / 10);
+                    byte[] json = "{\"description\":\"Slow\"}".getBytes();
+                    modern.getOutputStream().write(new byte[]{(byte) (json.length + 2), 0x00, (byte) json.length});
+                    modern.getOutputStream().write(json);
+                    modern.getOutputStream().flush();
+                    // Hanging up on the ping still counts
+                } catch (IOException | InterruptedException e) {
+                    // Reported by the assertions
+                }
+            });
+
+            Outcome outcome = probe(server.getLocalPort());
+
+            assertEquals(ProbeResult.OPEN, outcome.result());
+            assertEquals("Slow", outcome.status().motd());
+            assertEquals(PingProtocol.MODERN, outcome.status().protocol());
+        }
+    }
+
+    private Outcome probe(int port) throws Exception {
+        CompletableFuture<Outcome> outcome = new CompletableFuture<>();
+        long start = System.nanoTime();
+        engine.probe(LOOPBACK, port, TIMEOUT_MS, ProbeType.STATUS, (address, probedPort, result, rttNanos, status) ->
+                outcome.complete(new Outcome(result, status, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))));
+        return outcome.get(10, TimeUnit.SECONDS);
+    }
+
+    private void fillBacklog(ServerSocket server) throws IOException {
+        while (true) {
+            Socket filler = new Socket();
+            sockets.add(filler);
+            try {
+                filler.connect(server.getLocalSocketAddress(), 200);
+            } catch (SocketTimeoutException e) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package dev.jqve.serverscanner.scan;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class ResultCacheTest {
+    private static final long TTL = TimeUnit.HOURS.toMillis(1);
+    // 16 slots, of which 12 are used before evicting
+    private static final int CAPACITY = 16;
+    private static final int MAX_SIZE = 12;
+    private static final int PORT = 25565;
+
+    // Record layout, see the ResultCache class comment
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 32;
+    private static final int ACCESS = 16;
+    private static final int RESULT = 28;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void unknownResultOrdinalIsAMiss() throws IOException {
+        Path file = directory.resolve("cache.bin");
+        try (ResultCache cache = ResultCache.open(file, CAPACITY, TTL)) {
+            cache.record(1, PORT, ProbeResult.OPEN, 1_000_000, null);
+            cache.record(2, PORT, ProbeResult.OPEN, 1_000_000, null);
+            cache.record(3, PORT, ProbeResult.OPEN, 1_000_000, null);
+        }
+        patch(file, 1, RESULT, 42);
+        patch(file, 2, RESULT, -1);
+
+        try (ResultCache cache = ResultCache.open(file, CAPACITY, TTL)) {
+            assertNull(cache.freshResult(1, PORT));
+            assertNull(cache.freshResult(2, PORT));
+            assertEquals(ProbeResult.OPEN, cache.freshResult(3, PORT));
+            for (ProbeResult result : ProbeResult.values()) {
+                List<Integer> visited = new ArrayList<>();
+                cache.forEachFresh(result, (address, port, rttNanos, statusHash, updatedMillis) -> visited.add(address));
+                assertEquals(result == ProbeResult.OPEN ? List.of(3) : List.of(), visited);
+            }
+        }
+    }
+
+    @Test
+    void entriesStayReachableAcrossEvictions() {
+        // Far more targets than fit, so chains form and get broken up by evictions all the time
+        ResultCache cache = ResultCache.inMemory(CAPACITY, TTL);
+        Random random = new Random(7);
+        int targets = 64;
+        for (int i = 0; i < 5_000; i++) {
+            int address = random.nextInt(targets);
+            cache.record(address, PORT, ProbeResult.OPEN, 1_000_000, null);
+
+            assertEquals(ProbeResult.OPEN, cache.freshResult(address, PORT));
+            assertTrue(cache.size() <= MAX_SIZE);
+            int found = 0;
+            for (int target = 0; target < targets; target++) {
+                if (cache.freshResult(target, PORT) != null) {
+                    found++;
+                }
+            }
+            // Every stored entry is still found by a lookup, so delete left no hole in a chain
+            int[] stored = new int[1];
+            cache.forEachFresh(ProbeResult.OPEN, (a, p, rttNanos, statusHash, updatedMillis) -> stored[0]++);
+            assertEquals(cache.size(), stored[0]);
+            assertEquals(cache.size(), found);
+        }
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedSampledEntry() throws IOException {
+        Path file = directory.resolve("cache.bin");
+        try (ResultCache cache = ResultCache.open(file, CAPACITY, TTL)) {
+            for (int address = 0; address < MAX_SIZE; address++) {
+                cache.record(address, PORT, ProbeResult.OPEN, 1_000_000, null);
+            }
+        }
+        // Not the first entry the clock hand meets, so the pick is by age rather than position
+        int oldest = tableOrder(file).get(3);
+        patch(file, oldest, ACCESS, 1);
+
+        try (ResultCache cache = ResultCache.open(file, CAPACITY, TTL)) {
+            cache.record(100, PORT, ProbeResult.OPEN, 1_000_000, null);
+
+            assertEquals(MAX_SIZE, cache.size());
+            assertNull(cache.freshResult(oldest, PORT));
+            assertNotNull(cache.freshResult(100, PORT));
+            for (int address = 0; address < MAX_SIZE; address++) {
+                if (address != oldest) {
+                    assertNotNull(cache.freshResult(address, PORT), "lost " + address);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the addresses in the cache file, in slot order
+     */
+    private static List<Integer> tableOrder(Path file) throws IOException {
+        ByteBuffer buffer = read(file);
+        List<Integer> addresses = new ArrayList<>();
+        for (int offset = HEADER_SIZE; offset < buffer.capacity(); offset += RECORD_SIZE) {
+            long key = buffer.getLong(offset);
+            if (key != 0) {
+                addresses.add(TargetSource.address(key & ~(1L << 62)));
+            }
+        }
+        return addresses;
+    }
+
+    /**
+     * Overwrites a field of the record for {@code address}, as a crash or an old file would leave it.
+     */
+    private static void patch(Path file, int address, int field, int value) throws IOException {
+        ByteBuffer buffer = read(file);
+        long key = TargetSource.pack(address, PORT) | 1L << 62;
+        for (int offset = HEADER_SIZE; offset < buffer.capacity(); offset += RECORD_SIZE) {
+            if (buffer.getLong(offset) == key) {
+                if (field == RESULT) {
+                    buffer.put(offset + field, (byte) value);
+                } else {
+                    buffer.putInt(offset + field, value);
+                }
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.write(buffer.rewind());
+                }
+                return;
+            }
+        }
+        fail("no record for " + address);
+    }
+
+    private static ByteBuffer read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            }
+            return buffer.flip();
+        }
+    }
+}
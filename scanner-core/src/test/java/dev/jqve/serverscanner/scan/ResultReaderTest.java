@@ -0,0 +1,118 @@
+package dev.jqve.serverscanner.scan;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultReaderTest {
+    private static final ServerStatus STATUS = new ServerStatus("§6Say \"hi\"\\\n naïve 😀", "Paper 1.21.3",
+            768, 4, 20, 35, PingProtocol.MODERN);
+    private static final ServerStatus LEGACY_STATUS = new ServerStatus("Old", "1.6.4", 78, 0, 8, 12, PingProtocol.LEGACY);
+
+    @TempDir
+    Path directory;
+
+    private record Row(int address, int port, long rttNanos, int statusHash, ServerStatus status) {
+    }
+
+    @Test
+    void ndjsonRoundTripKeepsStatus() throws IOException {
+        Path file = directory.resolve("results.ndjson");
+        writeSample(file);
+
+        List<Row> rows = readAll(file);
+
+        assertEquals(3, rows.size());
+        assertEquals(new Row(Ipv4.parse("10.0.0.1"), 25565, TimeUnit.MICROSECONDS.toNanos(1500),
+                ResultCache.statusHash(STATUS), STATUS), rows.get(0));
+        assertEquals(new Row(Ipv4.parse("10.0.0.2"), 25566, TimeUnit.MICROSECONDS.toNanos(800), 0, null), rows.get(1));
+        assertEquals(LEGACY_STATUS, rows.get(2).status());
+    }
+
+    @Test
+    void binaryRoundTripKeepsHashOnly() throws IOException {
+        Path file = directory.resolve("results.msr");
+        writeSample(file);
+
+        List<Row> rows = readAll(file);
+
+        assertEquals(3, rows.size());
+        assertEquals(8 + 3 * ResultWriter.RECORD_SIZE, Files.size(file));
+        assertEquals(new Row(Ipv4.parse("10.0.0.1"), 25565, TimeUnit.MICROSECONDS.toNanos(1500),
+                ResultCache.statusHash(STATUS), null), rows.get(0));
+        assertEquals(0, rows.get(1).statusHash());
+        assertEquals(Ipv4.parse("255.255.255.254"), rows.get(2).address());
+        assertEquals(65535, rows.get(2).port());
+        assertNull(rows.get(2).status());
+    }
+
+    @Test
+    void readsForeignNdjson() throws IOException {
+        Path file = directory.resolve("other.jsonl");
+        Files.writeString(file, """
+                {"port": 25565, "address": "192.168.0.9", "tool": {"name": "x", "tags": [1, 2]}}
+
+                {"address":"192.168.0.10","port":25566,"motd":"Hello","protocol":"beta"}
+                """);
+
+        List<Row> rows = readAll(file);
+
+        assertEquals(2, rows.size());
+        assertEquals(new Row(Ipv4.parse("192.168.0.9"), 25565, 0, 0, null), rows.get(0));
+        assertEquals("Hello", rows.get(1).status().motd());
+        assertEquals(PingProtocol.BETA, rows.get(1).status().protocol());
+        assertEquals(ResultCache.statusHash(rows.get(1).status()), rows.get(1).statusHash());
+    }
+
+    @Test
+    void reportsMalformedFiles() throws IOException {
+        Path json = directory.resolve("bad.ndjson");
+        Files.writeString(json, "{\"address\":\"10.0.0.1\",\"port\":1}\n{\"port\":2}\n");
+        List<Row> rows = new ArrayList<>();
+        IOException error = assertThrows(IOException.class, () -> ResultReader.read(json, (address, port, rttNanos, statusHash, status) ->
+                rows.add(new Row(address, port, rttNanos, statusHash, status))));
+        assertEquals(1, rows.size());
+        assertTrue(error.getMessage().contains("line 2"));
+
+        Path binary = directory.resolve("bad.msr");
+        Files.write(binary, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> readAll(binary));
+
+        Path truncated = directory.resolve("truncated.msr");
+        writeSample(truncated);
+        byte[] bytes = Files.readAllBytes(truncated);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 3));
+        assertThrows(IOException.class, () -> readAll(truncated));
+
+        assertThrows(IllegalArgumentException.class, () -> readAll(directory.resolve("results.txt")));
+    }
+
+    private static void writeSample(Path file) throws IOException {
+        try (ResultWriter writer = ResultWriter.open(file)) {
+            writer.write(Ipv4.parse("10.0.0.1"), 25565, TimeUnit.MICROSECONDS.toNanos(1500), STATUS);
+            writer.write(Ipv4.parse("10.0.0.2"), 25566, TimeUnit.MICROSECONDS.toNanos(800), null);
+            writer.write(Ipv4.parse("255.255.255.254"), 65535, 0, LEGACY_STATUS);
+            assertEquals(3, writer.count());
+        }
+    }
+
+    private static List<Row> readAll(Path file) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        long count = ResultReader.read(file, (address, port, rttNanos, statusHash, status) ->
+                rows.add(new Row(address, port, rttNanos, statusHash, status)));
+        assertEquals(rows.size(), count);
+        return rows;
+    }
+}
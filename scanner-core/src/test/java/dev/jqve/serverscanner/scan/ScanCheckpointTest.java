@@ -0,0 +1,150 @@
+package dev.jqve.serverscanner.scan;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanCheckpointTest {
+    private static final int CHUNK = ScanScheduler.CHUNK_SIZE;
+    private static final ServerStatus STATUS = new ServerStatus("Old §cserver", "1.6.4", 78, 1, 10, 20, PingProtocol.LEGACY);
+
+    @TempDir
+    Path directory;
+
+    private record Hit(int address, int port, ProbeResult result, long rttNanos, ServerStatus status) {
+    }
+
+    @Test
+    void savesOnlyCompletedChunks() throws IOException {
+        Path file = directory.resolve("scan.checkpoint");
+        long targets = 3L * CHUNK + 10;
+        ScanCheckpoint checkpoint = ScanCheckpoint.create(file, "10.0.0.0/22 25565", targets);
+        // First chunk settles with two hits, the second is still in flight, the short last one is done
+        settleChunk(checkpoint, 0, CHUNK);
+        checkpoint.recordHit(5, Ipv4.parse("10.0.0.6"), 25565, 1_000_000, STATUS);
+        checkpoint.recordHit(7, Ipv4.parse("10.0.0.8"), 25565, 2_000_000, null);
+        checkpoint.chunkOpened(CHUNK);
+        checkpoint.targetSubmitted(CHUNK);
+        checkpoint.recordHit(CHUNK, Ipv4.parse("10.0.1.1"), 25565, 3_000_000, null);
+        checkpoint.targetSettled(CHUNK);
+        settleChunk(checkpoint, 3L * CHUNK, 10);
+        checkpoint.save();
+
+        ScanCheckpoint loaded = ScanCheckpoint.load(file);
+
+        assertEquals("10.0.0.0/22 25565", loaded.scanKey());
+        assertEquals(targets, loaded.targetCount());
+        assertEquals(CHUNK + 10, loaded.completedTargets());
+        assertEquals(2, loaded.completedHits());
+        assertTrue(loaded.isChunkDone(0));
+        assertFalse(loaded.isChunkDone(CHUNK));
+        assertFalse(loaded.isChunkDone(2L * CHUNK));
+        assertTrue(loaded.isChunkDone(3L * CHUNK));
+        List<Hit> hits = replay(loaded);
+        assertEquals(new Hit(Ipv4.parse("10.0.0.6"), 25565, ProbeResult.OPEN, 1_000_000, STATUS), hits.get(0));
+        assertNull(hits.get(1).status());
+    }
+
+    @Test
+    void deleteStopsLaterSaves() throws IOException {
+        Path file = directory.resolve("scan.checkpoint");
+        ScanCheckpoint checkpoint = ScanCheckpoint.create(file, "key", 10);
+        checkpoint.save();
+        assertTrue(Files.exists(file));
+
+        checkpoint.delete();
+        checkpoint.save();
+
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void loadsVersionOneWithModernHits() throws IOException {
+        Path file = directory.resolve("v1.checkpoint");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0x4D53434B);
+            out.writeInt(1);
+            writeString(out, "192.168.1.0/24 25565");
+            out.writeLong(254);
+            out.writeInt(CHUNK);
+            out.writeInt(1);
+            out.writeInt(0);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeLong(3);
+            out.writeInt(Ipv4.parse("192.168.1.4"));
+            out.writeShort(25565);
+            out.writeLong(900_000);
+            out.writeBoolean(true);
+            writeString(out, "A Minecraft Server");
+            writeString(out, "1.20.4");
+            out.writeInt(765);
+            out.writeInt(0);
+            out.writeInt(20);
+            out.writeLong(4);
+            // Version 1 has no ping protocol byte
+        }
+
+        ScanCheckpoint loaded = ScanCheckpoint.load(file);
+
+        assertEquals(254, loaded.completedTargets());
+        assertEquals(List.of(new Hit(Ipv4.parse("192.168.1.4"), 25565, ProbeResult.OPEN, 900_000,
+                new ServerStatus("A Minecraft Server", "1.20.4", 765, 0, 20, 4, PingProtocol.MODERN))), replay(loaded));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path notCheckpoint = directory.resolve("other");
+        Files.write(notCheckpoint, new byte[]{1, 2, 3, 4, 0, 0, 0, 1});
+        assertThrows(IOException.class, () -> ScanCheckpoint.load(notCheckpoint));
+
+        Path future = directory.resolve("future");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(future))) {
+            out.writeInt(0x4D53434B);
+            out.writeInt(99);
+        }
+        assertThrows(IOException.class, () -> ScanCheckpoint.load(future));
+
+        assertThrows(IOException.class, () -> ScanCheckpoint.load(directory.resolve("missing")));
+        assertThrows(IllegalArgumentException.class,
+                () -> ScanCheckpoint.create(notCheckpoint, "key", ScanCheckpoint.MAX_TARGETS + 1));
+    }
+
+    private static void settleChunk(ScanCheckpoint checkpoint, long start, int size) {
+        checkpoint.chunkOpened(start);
+        for (long index = start; index < start + size; index++) {
+            checkpoint.targetSubmitted(index);
+        }
+        checkpoint.chunkWalked(start);
+        for (long index = start; index < start + size; index++) {
+            checkpoint.targetSettled(index);
+        }
+    }
+
+    private static List<Hit> replay(ScanCheckpoint checkpoint) {
+        List<Hit> hits = new ArrayList<>();
+        int count = checkpoint.replayHits((address, port, result, rttNanos, status) ->
+                hits.add(new Hit(address, port, result, rttNanos, status)));
+        assertEquals(hits.size(), count);
+        return hits;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
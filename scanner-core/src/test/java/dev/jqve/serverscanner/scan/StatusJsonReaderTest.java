@@ -0,0 +1,57 @@
+package dev.jqve.serverscanner.scan;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StatusJsonReaderTest {
+    private static ServerStatus read(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return StatusJsonReader.read(bytes, 0, bytes.length);
+    }
+
+    @Test
+    void readsPlainDescription() {
+        ServerStatus status = read("""
+                {"version":{"name":"Paper 1.21.3","protocol":768},
+                 "players":{"max":20,"online":3,"sample":[{"name":"Steve","id":"0-0"}]},
+                 "description":"A Minecraft Server","favicon":"data:image/png;base64,AAAA",
+                 "enforcesSecureChat":true}""");
+        assertEquals(new ServerStatus("A Minecraft Server", "Paper 1.21.3", 768, 3, 20, 0, PingProtocol.MODERN), status);
+    }
+
+    @Test
+    void flattensComponentDescription() {
+        ServerStatus status = read("""
+                {"description":{"text":"Hello ","color":"gold","extra":[{"text":"world","bold":true},"!"]},
+                 "players":{"online":0,"max":100},"version":{"protocol":767,"name":"1.21.1"}}""");
+        assertEquals("Hello world!", status.motd());
+        assertEquals("1.21.1", status.versionName());
+        assertEquals(767, status.protocolVersion());
+        assertEquals(100, status.maxPlayers());
+    }
+
+    @Test
+    void decodesEscapesAndKeepsFormattingCodes() {
+        ServerStatus status = read("{\"description\":\"\\u00a7aLine\\none \\\"quoted\\\" café \\ud83d\\ude00\"}");
+        assertEquals("§aLine\none \"quoted\" café 😀", status.motd());
+    }
+
+    @Test
+    void readsFromAnOffset() {
+        byte[] bytes = "xx{\"description\":\"Inner\"}yy".getBytes(StandardCharsets.UTF_8);
+        assertEquals("Inner", StatusJsonReader.read(bytes, 2, bytes.length - 4).motd());
+    }
+
+    @Test
+    void rejectsAnythingButAnObject() {
+        assertNull(read(""));
+        assertNull(read("[]"));
+        assertNull(read("\"text\""));
+        assertNull(read("{\"description\":\"unterminated"));
+        assertNull(read("{\"players\":{\"online\":\"many\"}}"));
+    }
+}
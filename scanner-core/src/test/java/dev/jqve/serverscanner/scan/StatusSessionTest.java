@@ -0,0 +1,136 @@
+package dev.jqve.serverscanner.scan;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatusSessionTest {
+    private static final int ADDRESS = Ipv4.parse("10.0.0.1");
+
+    @Test
+    void completesModernExchange() throws IOException {
+        ByteArrayOutputStream server = new ByteArrayOutputStream();
+        server.writeBytes(statusFrame("{\"description\":\"Hi\",\"players\":{\"online\":1,\"max\":10},"
+                + "\"version\":{\"name\":\"1.21.3\",\"protocol\":768}}"));
+        server.writeBytes(new byte[]{9, 0x01, 0, 0, 0, 0, 0, 0, 0, 0});
+        StatusSession session = new StatusSession(ADDRESS, 25565);
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+
+        ServerStatus status = session.runBlocking(new ByteArrayInputStream(server.toByteArray()), client);
+
+        assertNotNull(status);
+        assertEquals("Hi", status.motd());
+        assertEquals(768, status.protocolVersion());
+        assertEquals(PingProtocol.MODERN, status.protocol());
+        // Handshake and status request, then the ping
+        assertTrue(client.size() > 10);
+    }
+
+    @Test
+    void acceptsStatusWithoutPong() throws IOException {
+        byte[] response = statusFrame("{\"description\":\"No pong\"}");
+        StatusSession session = new StatusSession(ADDRESS, 25565);
+
+        ServerStatus status = session.runBlocking(new ByteArrayInputStream(response), new ByteArrayOutputStream());
+
+        assertEquals("No pong", status.motd());
+    }
+
+    @Test
+    void parsesLegacyKickToModernHandshake() throws IOException {
+        byte[] kick = legacyKick("§1\0" + "74\0" + "1.6.4\0" + "Old server\0" + "2\0" + "20");
+        StatusSession session = new StatusSession(ADDRESS, 25565);
+
+        ServerStatus status = session.runBlocking(new ByteArrayInputStream(kick), new ByteArrayOutputStream());
+
+        assertEquals(new ServerStatus("Old server", "1.6.4", 74, 2, 20, status.pingMillis(), PingProtocol.LEGACY), status);
+    }
+
+    @Test
+    void fallsBackToLegacyPingAfterHangUp() throws IOException {
+        StatusSession session = new StatusSession(ADDRESS, 25565);
+
+        assertNull(session.runBlocking(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream()));
+        assertTrue(session.wantsReconnect());
+
+        session.onReconnected();
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        byte[] kick = legacyKick("Beta server§0§8");
+        ServerStatus status = session.runBlocking(new ByteArrayInputStream(kick), client);
+
+        assertEquals((byte) 0xFE, client.toByteArray()[0]);
+        assertEquals((byte) 0x01, client.toByteArray()[1]);
+        assertEquals("Beta server", status.motd());
+        assertEquals(PingProtocol.BETA, status.protocol());
+    }
+
+    @Test
+    void givesUpAfterLegacyPingFails() throws IOException {
+        StatusSession session = new StatusSession(ADDRESS, 25565);
+        byte[] garbage = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+        session.runBlocking(new ByteArrayInputStream(garbage), new ByteArrayOutputStream());
+        assertTrue(session.wantsReconnect());
+
+        session.onReconnected();
+        ServerStatus status = session.runBlocking(new ByteArrayInputStream(legacyKick("Outdated client!")), new ByteArrayOutputStream());
+
+        assertNull(status);
+        assertTrue(session.isFinished());
+        assertFalse(session.wantsReconnect());
+    }
+
+    @Test
+    void reconnectsOnlyOnce() throws IOException {
+        StatusSession session = new StatusSession(ADDRESS, 25565);
+        session.runBlocking(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream());
+        assertTrue(session.wantsReconnect());
+
+        session.onReconnected();
+        // The legacy connection is dropped as well
+        assertNull(session.runBlocking(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream()));
+
+        assertTrue(session.isFinished());
+        assertFalse(session.wantsReconnect());
+    }
+
+    @Test
+    void parsesLegacyKickStrings() {
+        assertEquals(new ServerStatus("A §cred§r MOTD", "1.5.2", 61, 5, 50, 12, PingProtocol.LEGACY),
+                StatusSession.parseLegacyKick("§1\0" + "61\0" + "1.5.2\0" + "A §cred§r MOTD\0" + "5\0" + "50", 12));
+        // Before 1.4 only the last two § separate fields, so the MOTD may contain more
+        assertEquals(new ServerStatus("§eGold§f server", "Beta 1.8 - 1.3", -1, 3, 16, 7, PingProtocol.BETA),
+                StatusSession.parseLegacyKick("§eGold§f server§3§16", 7));
+        assertNull(StatusSession.parseLegacyKick("Outdated client!", 0));
+        assertNull(StatusSession.parseLegacyKick("§1\0" + "61\0" + "1.5.2", 0));
+        assertNull(StatusSession.parseLegacyKick("§1\0" + "x\0" + "1.5.2\0" + "motd\0" + "5\0" + "50", 0));
+        assertNull(StatusSession.parseLegacyKick("Server§many§16", 0));
+    }
+
+    private static byte[] statusFrame(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = VarInts.size(0x00) + VarInts.size(bytes.length) + bytes.length;
+        ByteBuffer buffer = ByteBuffer.allocate(VarInts.size(payloadLength) + payloadLength);
+        VarInts.write(buffer, payloadLength);
+        VarInts.write(buffer, 0x00);
+        VarInts.write(buffer, bytes.length);
+        buffer.put(bytes);
+        return buffer.array();
+    }
+
+    private static byte[] legacyKick(String text) {
+        byte[] chars = text.getBytes(StandardCharsets.UTF_16BE);
+        ByteBuffer buffer = ByteBuffer.allocate(3 + chars.length);
+        buffer.put((byte) 0xFF).putShort((short) text.length()).put(chars);
+        return buffer.array();
+    }
+}
@@ -0,0 +1,61 @@
+package dev.jqve.serverscanner.scan;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TargetPermutationTest {
+    @Test
+    void isABijectionForAnySize() {
+        for (long size : new long[]{1, 2, 3, 7, 254, 255, 256, 1000, 65_534, 100_003}) {
+            TargetPermutation permutation = new TargetPermutation(size, 42);
+            BitSet seen = new BitSet((int) size);
+            for (long index = 0; index < size; index++) {
+                long position = permutation.indexAt(index);
+                assertTrue(position >= 0 && position < size, "position out of range for size " + size);
+                assertFalse(seen.get((int) position), "position repeated for size " + size);
+                seen.set((int) position);
+            }
+            assertEquals(size, seen.cardinality());
+        }
+    }
+
+    @Test
+    void sameSeedGivesSameOrder() {
+        TargetPermutation first = new TargetPermutation(10_000, 7);
+        TargetPermutation second = new TargetPermutation(10_000, 7);
+        for (long index = 0; index < 10_000; index++) {
+            assertEquals(first.indexAt(index), second.indexAt(index));
+        }
+    }
+
+    @Test
+    void differentSeedsGiveDifferentOrders() {
+        TargetPermutation first = new TargetPermutation(10_000, 1);
+        TargetPermutation second = new TargetPermutation(10_000, 2);
+        int same = 0;
+        for (long index = 0; index < 10_000; index++) {
+            if (first.indexAt(index) == second.indexAt(index)) {
+                same++;
+            }
+        }
+        assertNotEquals(10_000, same);
+    }
+
+    @Test
+    void doesNotWalkInOrder() {
+        TargetPermutation permutation = new TargetPermutation(65_534, 3);
+        int ascending = 0;
+        for (long index = 1; index < 1000; index++) {
+            if (permutation.indexAt(index) == permutation.indexAt(index - 1) + 1) {
+                ascending++;
+            }
+        }
+        assertTrue(ascending < 100, "too many consecutive positions: " + ascending);
+    }
+}
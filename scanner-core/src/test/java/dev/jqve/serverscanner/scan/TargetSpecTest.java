@@ -0,0 +1,73 @@
+package dev.jqve.serverscanner.scan;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TargetSpecTest {
+    @Test
+    void cidrSkipsNetworkAndBroadcast() {
+        TargetSpec spec = TargetSpec.parse("192.168.1.0/24");
+        assertEquals(254, spec.size());
+        assertEquals(Ipv4.parse("192.168.1.1"), spec.addressAt(0));
+        assertEquals(Ipv4.parse("192.168.1.254"), spec.addressAt(253));
+        assertFalse(spec.contains(Ipv4.parse("192.168.1.0")));
+        assertFalse(spec.contains(Ipv4.parse("192.168.1.255")));
+    }
+
+    @Test
+    void smallBlocksKeepEveryAddress() {
+        assertEquals(2, TargetSpec.parse("10.0.0.0/31").size());
+        assertEquals(1, TargetSpec.parse("10.0.0.7/32").size());
+    }
+
+    @Test
+    void parsesRangesAndSingleAddresses() {
+        assertEquals(41, TargetSpec.parse("192.168.1.10-50").size());
+        assertEquals(257, TargetSpec.parse("10.0.0.255-10.0.1.255").size());
+        TargetSpec single = TargetSpec.parse(" 172.16.0.5 ");
+        assertEquals(1, single.size());
+        assertEquals(Ipv4.parse("172.16.0.5"), single.addressAt(0));
+    }
+
+    @Test
+    void mergesOverlappingEntries() {
+        TargetSpec spec = TargetSpec.parse("10.0.0.1-20, 10.0.0.10-30, 10.0.0.5, 10.0.0.31");
+        assertEquals(31, spec.size());
+        for (long index = 0; index < spec.size(); index++) {
+            assertEquals(Ipv4.parse("10.0.0.1") + (int) index, spec.addressAt(index));
+        }
+    }
+
+    @Test
+    void indexOfInvertsAddressAt() {
+        TargetSpec spec = TargetSpec.parse("10.0.0.0/28,10.0.5.1-3,192.168.0.1");
+        for (long index = 0; index < spec.size(); index++) {
+            assertEquals(index, spec.indexOf(spec.addressAt(index)));
+        }
+        assertTrue(spec.contains(Ipv4.parse("10.0.5.2")));
+        assertFalse(spec.contains(Ipv4.parse("10.0.5.4")));
+    }
+
+    @Test
+    void wholeAddressSpaceFitsInALong() {
+        TargetSpec spec = TargetSpec.parse("0.0.0.0/0");
+        assertEquals((1L << 32) - 2, spec.size());
+        assertEquals(Ipv4.parse("255.255.255.254"), spec.addressAt(spec.size() - 1));
+    }
+
+    @Test
+    void rejectsMalformedEntries() {
+        assertThrows(IllegalArgumentException.class, () -> TargetSpec.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> TargetSpec.parse(" , "));
+        assertThrows(IllegalArgumentException.class, () -> TargetSpec.parse("10.0.0.0/33"));
+        assertThrows(IllegalArgumentException.class, () -> TargetSpec.parse("10.0.0.0/x"));
+        assertThrows(IllegalArgumentException.class, () -> TargetSpec.parse("10.0.0.50-10"));
+        assertThrows(IllegalArgumentException.class, () -> TargetSpec.parse("10.0.0.1-256"));
+        assertThrows(IllegalArgumentException.class, () -> TargetSpec.parse("10.0.0"));
+        assertThrows(IllegalArgumentException.class, () -> TargetSpec.parse("10.0.0.256"));
+    }
+}
@@ -1,10 +1,21 @@
 package dev.jqve.serverscanner;
 
+import dev.jqve.serverscanner.scan.ResultCache;
+import dev.jqve.serverscanner.scan.ResultFormat;
+import dev.jqve.serverscanner.scan.ScanSummary;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.loader.api.FabricLoader;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 public class ServerScanner implements ModInitializer {
 	public static final String MOD_ID = "server-scanner";
 
@@ -13,8 +24,80 @@ public class ServerScanner implements ModInitializer {
 	// That way, it's clear which mod wrote info, warnings, and errors.
 	public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
 
+	// 2^18 slots of 32 bytes: an 8 MiB file holding up to ~196k results
+	private static final int RESULT_CACHE_CAPACITY = 1 << 18;
+	private static final long RESULT_CACHE_TTL_MILLIS = TimeUnit.HOURS.toMillis(6);
+	private static final DateTimeFormatter RESULTS_FILE_NAME = DateTimeFormatter.ofPattern("'scan-'yyyyMMdd-HHmmss-SSS");
+
+	private static ResultCache resultCache;
+
 	@Override
 	public void onInitialize() {
 
 	}
-}
\ No newline at end of file
+
+	/**
+	 * The scan result cache shared by all scanner screens, opened on first use. Falls back to an
+	 * in-memory cache if the file can't be mapped.
+	 */
+	public static synchronized ResultCache resultCache() {
+		if (resultCache == null) {
+			Path file = FabricLoader.getInstance().getGameDir().resolve(MOD_ID).resolve("scan-cache.bin");
+			try {
+				resultCache = ResultCache.open(file, RESULT_CACHE_CAPACITY, RESULT_CACHE_TTL_MILLIS);
+			} catch (IOException | RuntimeException e) {
+				LOGGER.warn("Could not open scan cache at {}, results will not persist", file, e);
+				resultCache = ResultCache.inMemory(RESULT_CACHE_CAPACITY, RESULT_CACHE_TTL_MILLIS);
+			}
+			ResultCache cache = resultCache;
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					cache.close();
+				} catch (IOException e) {
+					LOGGER.warn("Could not write scan cache", e);
+				}
+			}, "Scan-Cache-Flush"));
+		}
+		return resultCache;
+	}
+
+	/**
+	 * Where a scanner screen keeps the checkpoint of its interrupted scan.
+	 *
+	 * @param name identifies the screen, e.g. {@code "network-scan"}
+	 */
+	public static Path checkpointFile(String name) {
+		return FabricLoader.getInstance().getGameDir().resolve(MOD_ID).resolve("checkpoints").resolve(name + ".bin");
+	}
+
+	/**
+	 * Writes a finished scan's summary to {@code server-scanner/metrics} in the background, so the
+	 * thread that completed the scan never waits on disk.
+	 */
+	public static void writeScanSummary(ScanSummary summary) {
+		Path directory = FabricLoader.getInstance().getGameDir().resolve(MOD_ID).resolve("metrics");
+		CompletableFuture.runAsync(() -> {
+			try {
+				Path file = summary.write(directory);
+				LOGGER.info("Scan summary written to {}", file);
+			} catch (IOException e) {
+				LOGGER.warn("Could not write scan summary to {}", directory, e);
+			}
+		});
+	}
+
+	/**
+	 * A new file in {@code server-scanner/results} for a scan to stream its results to.
+	 */
+	public static Path resultsFile(ResultFormat format) {
+		String name = LocalDateTime.now().format(RESULTS_FILE_NAME) + format.extension();
+		return FabricLoader.getInstance().getGameDir().resolve(MOD_ID).resolve("results").resolve(name);
+	}
+
+	/**
+	 * Where the scanner screen looks for result files to import, e.g. ones copied from other machines.
+	 */
+	public static Path importDirectory() {
+		return FabricLoader.getInstance().getGameDir().resolve(MOD_ID).resolve("import");
+	}
+}
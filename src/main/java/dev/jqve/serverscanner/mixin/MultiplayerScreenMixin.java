@@ -2,14 +2,17 @@ package dev.jqve.serverscanner.mixin;
 
 import dev.jqve.serverscanner.screens.DeleteRegexScreen;
 import dev.jqve.serverscanner.screens.PortScannerScreen;
+import dev.jqve.serverscanner.screens.ServerListRefresher;
 import dev.jqve.serverscanner.screens.ServerScannerScreen;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.gui.screen.multiplayer.MultiplayerScreen;
+import net.minecraft.client.gui.screen.multiplayer.MultiplayerServerListWidget;
 import net.minecraft.client.gui.widget.ButtonWidget;
 import net.minecraft.client.option.ServerList;
 import net.minecraft.text.Text;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
@@ -22,7 +25,16 @@ public class MultiplayerScreenMixin extends Screen {
     @Unique
     private boolean confirmDelete = false;
     @Unique
-    private boolean isFirstScreen = true;
+    private int buttonPage = 0;
+    @Unique
+    private ServerListRefresher refresher;
+    @Unique
+    private ButtonWidget refreshAllButton;
+    @Unique
+    private ServerListRefresher.Tidy tidy = ServerListRefresher.Tidy.KEEP;
+
+    @Shadow
+    protected MultiplayerServerListWidget serverListWidget;
 
     private MultiplayerScreenMixin(Screen parentScreen) {
         super(null);
@@ -36,33 +48,37 @@ public class MultiplayerScreenMixin extends Screen {
         ButtonWidget portScanner = createPortScannerButton();
         ButtonWidget deleteAllServersButton = createDeleteAllServersButton();
         ButtonWidget deleteViaRegex = createDeleteViaRegexButton();
+        ButtonWidget refreshAll = createRefreshAllButton();
+        ButtonWidget tidyButton = createTidyButton();
+        ButtonWidget[][] pages = {
+                {serverScanner, portScanner},
+                {deleteAllServersButton, deleteViaRegex},
+                {refreshAll, tidyButton}
+        };
 
         // Toggle button switcher
         ButtonWidget toggleButtonSets = ButtonWidget.builder(Text.of("<->"), button -> {
-            isFirstScreen = !isFirstScreen;
-            if (!isFirstScreen) {
-                // Remove first set, add second
-                this.remove(serverScanner);
-                this.remove(portScanner);
-                this.addDrawableChild(deleteAllServersButton);
-                this.addDrawableChild(deleteViaRegex);
-            } else {
-                // Remove second set, add first
-                this.remove(deleteAllServersButton);
-                this.remove(deleteViaRegex);
-                this.addDrawableChild(serverScanner);
-                this.addDrawableChild(portScanner);
+            // Remove current set, add next
+            for (ButtonWidget widget : pages[buttonPage]) {
+                this.remove(widget);
+            }
+            buttonPage = (buttonPage + 1) % pages.length;
+            for (ButtonWidget widget : pages[buttonPage]) {
+                this.addDrawableChild(widget);
             }
         }).width(25).position(115, this.height - 29).build();
         this.addDrawableChild(toggleButtonSets);
 
         // Display correct screen on initialization
-        if (isFirstScreen) {
-            this.addDrawableChild(serverScanner);
-            this.addDrawableChild(portScanner);
-        } else {
-            this.addDrawableChild(deleteAllServersButton);
-            this.addDrawableChild(deleteViaRegex);
+        for (ButtonWidget widget : pages[buttonPage]) {
+            this.addDrawableChild(widget);
+        }
+    }
+
+    @Inject(at = @At("TAIL"), method = "removed")
+    public void removed(CallbackInfo ci) {
+        if (refresher != null) {
+            refresher.cancel();
         }
     }
 
@@ -108,4 +124,64 @@ public class MultiplayerScreenMixin extends Screen {
             }
         }).width(100).position(10, this.height - 54).build();
     }
-}
\ No newline at end of file
+
+    @Unique
+    private ButtonWidget createRefreshAllButton() {
+        refreshAllButton = ButtonWidget.builder(Text.of("Refresh All"), button -> {
+            if (refresher != null) {
+                // Second press: stop pinging
+                refresher.cancel();
+                return;
+            }
+            ServerList serverList = ((MultiplayerScreen) (Object) this).getServerList();
+            if (((ServerListAccessor) serverList).getServers().isEmpty()) {
+                refreshAllButton.setMessage(Text.of("No servers"));
+                return;
+            }
+            refresher = ServerListRefresher.start(((ServerListAccessor) serverList).getServers(),
+                    this::showRefreshProgress,
+                    finished -> onRefreshFinished(finished, serverList));
+        }).width(100).position(10, this.height - 54).build();
+        if (refresher != null) {
+            // Screen was resized mid-refresh
+            showRefreshProgress(refresher);
+        }
+        return refreshAllButton;
+    }
+
+    @Unique
+    private void showRefreshProgress(ServerListRefresher progress) {
+        refreshAllButton.setMessage(Text.of("Refreshing " + progress.settled() + "/" + progress.total()));
+    }
+
+    @Unique
+    private void onRefreshFinished(ServerListRefresher finished, ServerList serverList) {
+        refresher = null;
+        if (finished.isCancelled()) {
+            refreshAllButton.setMessage(Text.of("Refresh All"));
+            return;
+        }
+        String message = finished.up() + " up, " + finished.down() + " down";
+        if (finished.unknown() > 0) {
+            message += ", " + finished.unknown() + " unknown";
+        }
+        if (tidy != ServerListRefresher.Tidy.KEEP && MinecraftClient.getInstance().currentScreen == this) {
+            // Reorder or prune in memory and write servers.dat once
+            int removed = finished.tidy(((ServerListAccessor) serverList).getServers(), tidy);
+            serverList.saveFile();
+            serverListWidget.setServers(serverList);
+            if (removed > 0) {
+                message += ", " + removed + " removed";
+            }
+        }
+        refreshAllButton.setMessage(Text.of(message));
+    }
+
+    @Unique
+    private ButtonWidget createTidyButton() {
+        return ButtonWidget.builder(Text.of(tidy.displayName()), button -> {
+            tidy = tidy.next();
+            button.setMessage(Text.of(tidy.displayName()));
+        }).width(100).position(10, this.height - 29).build();
+    }
+}
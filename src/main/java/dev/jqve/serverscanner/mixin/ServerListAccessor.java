@@ -0,0 +1,15 @@
+package dev.jqve.serverscanner.mixin;
+
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.client.option.ServerList;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+import java.util.List;
+
+@Mixin(ServerList.class)
+public interface ServerListAccessor {
+
+    @Accessor("servers")
+    List<ServerInfo> getServers();
+}
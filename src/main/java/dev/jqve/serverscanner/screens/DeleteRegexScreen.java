@@ -1,20 +1,42 @@
 package dev.jqve.serverscanner.screens;
 
 import dev.jqve.serverscanner.mixin.MultiplayerScreenInvoker;
+import dev.jqve.serverscanner.mixin.ServerListAccessor;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.gui.screen.multiplayer.MultiplayerScreen;
+import net.minecraft.client.gui.tooltip.Tooltip;
 import net.minecraft.client.gui.widget.ButtonWidget;
 import net.minecraft.client.gui.widget.TextFieldWidget;
+import net.minecraft.client.network.ServerInfo;
 import net.minecraft.client.option.ServerList;
 import net.minecraft.text.Text;
 
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.PatternSyntaxException;
 
 public class DeleteRegexScreen extends Screen {
+    // How long typing has to pause before the preview is recomputed
+    private static final Executor PREVIEW_EXECUTOR = CompletableFuture.delayedExecutor(250, TimeUnit.MILLISECONDS);
+
     private final Screen parentScreen;
     private TextFieldWidget regexTextField;
+    private ButtonWidget undoButton;
+    private ServerListFilter.Field matchField = ServerListFilter.Field.NAME;
+    private Text previewText = Text.of("");
+
+    // Entries the preview counts against; refreshed whenever the list changes
+    private List<ServerInfo> previewEntries = List.of();
+    // Bumped on every edit, so a preview that was overtaken by newer input is dropped
+    private volatile int previewGeneration;
+    // Server list as it was before the last delete
+    private List<ServerInfo> undoSnapshot;
+    private boolean changed;
 
     public DeleteRegexScreen(Screen parentScreen) {
         super(Text.of("Delete Regex Screen"));
@@ -23,43 +45,147 @@ public class DeleteRegexScreen extends Screen {
 
     @Override
     protected void init() {
+        String regex = regexTextField != null ? regexTextField.getText() : "";
+
         // Initialize components
         regexTextField = new TextFieldWidget(this.textRenderer, width/2-100, 60, 200, 20, Text.of(""));
         regexTextField.setPlaceholder(Text.of(".* to delete all")); // Add placeholder text
+        regexTextField.setMaxLength(256);
+        regexTextField.setText(regex);
+        regexTextField.setChangedListener(text -> schedulePreview());
         addDrawableChild(regexTextField);
 
-        // Add cancel button
-        addDrawableChild(ButtonWidget.builder(Text.of("Cancel"), b -> close())
+        addDrawableChild(ButtonWidget.builder(matchFieldText(), b -> {
+                    matchField = matchField.next();
+                    b.setMessage(matchFieldText());
+                    schedulePreview();
+                })
+                .dimensions(width/2 - 100, 85, 200, 20)
+                .tooltip(Tooltip.of(Text.of("Which part of each entry the regex has to match")))
+                .build());
+
+        // Add back button
+        addDrawableChild(ButtonWidget.builder(Text.of("Back"), b -> close())
                 .dimensions(width/2 - 100, 140, 90, 20)
                 .build());
 
-        addDrawableChild(ButtonWidget.builder(Text.of("Delete"), b -> {
-            String regex = regexTextField.getText();
-            deleteServers(regex);})
+        addDrawableChild(ButtonWidget.builder(Text.of("Delete"), b -> deleteServers(regexTextField.getText()))
                 .dimensions(width/2 + 10, 140, 90, 20)
                 .build());
+
+        undoButton = addDrawableChild(ButtonWidget.builder(Text.of("Undo"), b -> undoDelete())
+                .dimensions(width/2 - 100, 165, 200, 20)
+                .build());
+        undoButton.active = undoSnapshot != null;
+
+        previewEntries = List.copyOf(servers(serverList()));
+        schedulePreview();
+    }
+
+    private Text matchFieldText() {
+        return Text.of("Match: " + matchField.displayName());
+    }
+
+    private ServerList serverList() {
+        return ((MultiplayerScreen) parentScreen).getServerList();
+    }
+
+    private static List<ServerInfo> servers(ServerList serverList) {
+        return ((ServerListAccessor) serverList).getServers();
+    }
+
+    /**
+     * Counts the matching entries in the background once typing pauses, then shows the count.
+     */
+    private void schedulePreview() {
+        int generation = ++previewGeneration;
+        String regex = regexTextField.getText();
+        ServerListFilter.Field field = matchField;
+        List<ServerInfo> entries = previewEntries;
+        if (regex.isEmpty()) {
+            previewText = Text.of("");
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            if (generation != previewGeneration) {
+                return;
+            }
+            Text preview;
+            try {
+                int count = ServerListFilter.compile(regex, field).count(entries);
+                preview = Text.of("§e" + count + " of " + entries.size() + " servers match");
+            } catch (PatternSyntaxException e) {
+                preview = Text.of("§cInvalid regex");
+            }
+            Text result = preview;
+            MinecraftClient.getInstance().execute(() -> {
+                if (generation == previewGeneration) {
+                    previewText = result;
+                }
+            });
+        }, PREVIEW_EXECUTOR);
     }
 
     private void deleteServers(String regex) {
+        ServerListFilter filter;
         try {
-            Pattern.compile(regex);
+            filter = ServerListFilter.compile(regex, matchField);
         } catch (PatternSyntaxException e) {
-            this.regexTextField.setText("Invalid regex");
+            previewText = Text.of("§cInvalid regex");
             return;
         }
-        MinecraftClient client = MinecraftClient.getInstance();
-        ServerList serverList = ((MultiplayerScreen) parentScreen).getServerList();
+        ServerList serverList = serverList();
         serverList.loadFile();
-        for (int i = 0; i < serverList.size(); i++) {
-            if (serverList.get(i).name != null && serverList.get(i).name.matches(regex)) {
-                serverList.remove(serverList.get(i));
-                i--; // Adjust index after removal
-            }
+        List<ServerInfo> servers = servers(serverList);
+        List<ServerInfo> snapshot = new ArrayList<>(servers);
+        List<ServerInfo> removed = filter.removeMatching(servers);
+        if (removed.isEmpty()) {
+            previewText = Text.of("§eNo servers match");
+            return;
+        }
+        serverList.saveFile();
+
+        undoSnapshot = snapshot;
+        undoButton.active = true;
+        changed = true;
+        previewEntries = List.copyOf(servers);
+        previewGeneration++;
+        previewText = Text.of("§aDeleted " + removed.size() + " servers");
+    }
+
+    private void undoDelete() {
+        if (undoSnapshot == null) {
+            return;
         }
+        ServerList serverList = serverList();
+        List<ServerInfo> servers = servers(serverList);
+        servers.clear();
+        servers.addAll(undoSnapshot);
         serverList.saveFile();
+
+        undoSnapshot = null;
+        undoButton.active = false;
+        previewEntries = List.copyOf(servers);
+        previewGeneration++;
+        previewText = Text.of("§aRestored " + servers.size() + " servers");
+    }
+
+    @Override
+    public void render(DrawContext context, int mouseX, int mouseY, float delta) {
+        super.render(context, mouseX, mouseY, delta);
+        context.drawCenteredTextWithShadow(this.textRenderer, previewText, width/2, 115, 0xFFFFFF);
+    }
+
+    @Override
+    public void close() {
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (!changed) {
+            client.setScreen(parentScreen);
+            return;
+        }
+        // Rebuild the multiplayer screen so its list shows the changes
         MultiplayerScreenInvoker invoker = (MultiplayerScreenInvoker) parentScreen;
-        invoker.setServerList(serverList);
+        invoker.setServerList(serverList());
         client.setScreen(new MultiplayerScreen(parentScreen));
     }
-
-}
\ No newline at end of file
+}
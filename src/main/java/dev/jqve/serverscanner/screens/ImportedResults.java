@@ -0,0 +1,225 @@
+package dev.jqve.serverscanner.screens;
+
+import dev.jqve.serverscanner.scan.Ipv4;
+import dev.jqve.serverscanner.scan.PingProtocol;
+import dev.jqve.serverscanner.scan.ServerStatus;
+import dev.jqve.serverscanner.scan.TargetSource;
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results loaded from result files, kept in packed columns rather than as one {@link ServerInfo} each:
+ * an entry costs about 40 bytes plus its MOTD and version as UTF-8, so even files of hundreds of
+ * thousands of results stay small. {@link #server} builds the entry of a row only when it is shown or
+ * selected.
+ * <p>
+ * Entries are numbered in the order they were added; removed ones keep their number. Only touched on
+ * the render thread.
+ */
+final class ImportedResults {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final PingProtocol[] PROTOCOLS = PingProtocol.values();
+
+    /**
+     * The entry built for a row, which remembers where it came from.
+     */
+    static final class ImportedServer extends ServerInfo {
+        final int index;
+
+        private ImportedServer(int index, String address) {
+            super("Imported #" + (index + 1), address, ServerInfo.ServerType.LAN);
+            this.index = index;
+        }
+    }
+
+    private long[] targets = new long[INITIAL_CAPACITY];
+    private int[] rttMicros = new int[INITIAL_CAPACITY];
+    // Offset of the entry's status in text, or -1 if the file had none
+    private int[] statusOffsets = new int[INITIAL_CAPACITY];
+    private int[] protocolVersions = new int[INITIAL_CAPACITY];
+    private int[] onlinePlayers = new int[INITIAL_CAPACITY];
+    private int[] maxPlayers = new int[INITIAL_CAPACITY];
+    private int[] pingMillis = new int[INITIAL_CAPACITY];
+    private byte[] protocols = new byte[INITIAL_CAPACITY];
+    // MOTD and version of every entry with a status, each as a length-prefixed UTF-8 string
+    private byte[] text = new byte[INITIAL_CAPACITY * 32];
+    private int textSize;
+    private int size;
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+    // Open-addressing set of entry indices + 1 by target, for skipping duplicates
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * Appends an entry unless its address and port are already listed.
+     *
+     * @return whether it was added
+     */
+    boolean add(int address, int port, long rttNanos, ServerStatus status) {
+        long target = TargetSource.pack(address, port);
+        int slot = find(target);
+        if (slots[slot] != 0) {
+            return false;
+        }
+        if (size == targets.length) {
+            grow();
+        }
+        int index = size++;
+        targets[index] = target;
+        rttMicros[index] = (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMicros(rttNanos));
+        if (status != null) {
+            statusOffsets[index] = textSize;
+            appendString(status.motd());
+            appendString(status.versionName());
+            protocolVersions[index] = status.protocolVersion();
+            onlinePlayers[index] = status.onlinePlayers();
+            maxPlayers[index] = status.maxPlayers();
+            pingMillis[index] = (int) Math.min(Integer.MAX_VALUE, status.pingMillis());
+            protocols[index] = (byte) status.protocol().ordinal();
+        } else {
+            statusOffsets[index] = -1;
+        }
+        slots[slot] = index + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return true;
+    }
+
+    /**
+     * @return number of entries ever added, i.e. the bound of valid indices
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return number of entries not removed
+     */
+    int count() {
+        return size - removedCount;
+    }
+
+    boolean isRemoved(int index) {
+        return removed.get(index);
+    }
+
+    void remove(int index) {
+        if (!removed.get(index)) {
+            removed.set(index);
+            removedCount++;
+        }
+    }
+
+    void clear() {
+        size = 0;
+        textSize = 0;
+        removed.clear();
+        removedCount = 0;
+        Arrays.fill(slots, 0);
+    }
+
+    String name(int index) {
+        return "Imported #" + (index + 1);
+    }
+
+    String address(int index) {
+        return Ipv4.format(TargetSource.address(targets[index])) + ":" + TargetSource.port(targets[index]);
+    }
+
+    /**
+     * @return the MOTD, or {@code null} if the file had no status for the entry
+     */
+    String motd(int index) {
+        int offset = statusOffsets[index];
+        return offset < 0 ? null : readString(offset);
+    }
+
+    /**
+     * Builds the list entry for {@code index}, like one found by a scan. Binary result files only tell
+     * that a server answered, not what it said.
+     */
+    ImportedServer server(int index) {
+        ImportedServer server = new ImportedServer(index, address(index));
+        int offset = statusOffsets[index];
+        if (offset >= 0) {
+            String motd = readString(offset);
+            String version = readString(offset + 4 + readLength(offset));
+            ServerScannerScreen.applyStatus(server, new ServerStatus(motd, version, protocolVersions[index],
+                    onlinePlayers[index], maxPlayers[index], pingMillis[index], PROTOCOLS[protocols[index]]));
+            return server;
+        }
+        server.label = Text.literal("Imported, no status saved").formatted(Formatting.GRAY);
+        server.ping = rttMicros[index] / 1000L;
+        server.playerCountLabel = Text.literal("?").formatted(Formatting.GRAY);
+        return server;
+    }
+
+    private void appendString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (text.length - textSize < 4 + bytes.length) {
+            long needed = (long) textSize + 4 + bytes.length;
+            if (needed > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Too much imported text");
+            }
+            text = Arrays.copyOf(text, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, text.length * 2L)));
+        }
+        text[textSize] = (byte) (bytes.length >>> 24);
+        text[textSize + 1] = (byte) (bytes.length >>> 16);
+        text[textSize + 2] = (byte) (bytes.length >>> 8);
+        text[textSize + 3] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, text, textSize + 4, bytes.length);
+        textSize += 4 + bytes.length;
+    }
+
+    private int readLength(int offset) {
+        return (text[offset] & 0xff) << 24 | (text[offset + 1] & 0xff) << 16
+                | (text[offset + 2] & 0xff) << 8 | (text[offset + 3] & 0xff);
+    }
+
+    private String readString(int offset) {
+        return new String(text, offset + 4, readLength(offset), StandardCharsets.UTF_8);
+    }
+
+    private void grow() {
+        int capacity = targets.length * 2;
+        targets = Arrays.copyOf(targets, capacity);
+        rttMicros = Arrays.copyOf(rttMicros, capacity);
+        statusOffsets = Arrays.copyOf(statusOffsets, capacity);
+        protocolVersions = Arrays.copyOf(protocolVersions, capacity);
+        onlinePlayers = Arrays.copyOf(onlinePlayers, capacity);
+        maxPlayers = Arrays.copyOf(maxPlayers, capacity);
+        pingMillis = Arrays.copyOf(pingMillis, capacity);
+        protocols = Arrays.copyOf(protocols, capacity);
+    }
+
+    /**
+     * @return the slot holding {@code target}, or the empty slot where it would go
+     */
+    private int find(long target) {
+        int mask = slots.length - 1;
+        int slot = mix(target) & mask;
+        while (slots[slot] != 0 && targets[slots[slot] - 1] != target) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        for (int index = 0; index < size; index++) {
+            slots[find(targets[index])] = index + 1;
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -1,61 +1,107 @@
 package dev.jqve.serverscanner.screens;
 
-import dev.jqve.serverscanner.mixin.MultiplayerScreenInvoker;
+import dev.jqve.serverscanner.ServerScanner;
+import dev.jqve.serverscanner.scan.AimdController;
+import dev.jqve.serverscanner.scan.ExecutionMode;
+import dev.jqve.serverscanner.scan.HostDiscovery;
+import dev.jqve.serverscanner.scan.Ipv4;
+import dev.jqve.serverscanner.scan.PortStateMap;
+import dev.jqve.serverscanner.scan.ProbeResult;
+import dev.jqve.serverscanner.scan.ProbeType;
+import dev.jqve.serverscanner.scan.ScanCheckpoint;
+import dev.jqve.serverscanner.scan.ScanMetrics;
+import dev.jqve.serverscanner.scan.ScanScheduler;
+import dev.jqve.serverscanner.scan.ScanSummary;
+import dev.jqve.serverscanner.scan.Scanner;
+import dev.jqve.serverscanner.scan.TargetSource;
+import dev.jqve.serverscanner.scan.TargetSpec;
+import dev.jqve.serverscanner.scan.ThroughputReport;
+import dev.jqve.serverscanner.scan.TokenBucket;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.gui.screen.Screen;
-import net.minecraft.client.gui.screen.multiplayer.MultiplayerScreen;
 import net.minecraft.client.gui.tooltip.Tooltip;
 import net.minecraft.client.gui.widget.ButtonWidget;
 import net.minecraft.client.gui.widget.TextFieldWidget;
 import net.minecraft.client.network.ServerInfo;
-import net.minecraft.client.option.ServerList;
 import net.minecraft.text.Text;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.net.Socket;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class PortScannerScreen extends Screen {
     private static final Logger LOGGER = LogManager.getLogger(PortScannerScreen.class);
 
     // Port scanning settings
-    private static final int TIMEOUT_MS = 150;
+    // Timeout until the first RTTs are in; after that timeouts adapt between the min and max
+    private static final int INITIAL_TIMEOUT_MS = 150;
+    private static final int MIN_TIMEOUT_MS = 30;
+    private static final int MAX_TIMEOUT_MS = 2000;
+    // In-flight probes start at the initial window and adapt between min and MAX_IN_FLIGHT
+    private static final int MAX_IN_FLIGHT = 512;
+    private static final int INITIAL_WINDOW = 128;
+    private static final int MIN_WINDOW = 8;
     private static final int THREAD_POOL_SIZE = 25;
+    private static final int MAX_RATE = 1_000_000;
+    private static final String CHECKPOINT_NAME = "port-scan";
+    // Checkpoint key: "127.0.0.1:1-65535 seed <n>", same as the command line's
+    private static final Pattern CHECKPOINT_KEY = Pattern.compile("^(.+):(\\d+)-(\\d+) seed (-?\\d+)$");
     private static final Pattern IP_PATTERN = Pattern.compile(
             "^((25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)$"
     );
 
     // Text fields and button references
     private TextFieldWidget ipTextField;
+    private TextFieldWidget filterTextField;
+    private ButtonWidget addSelectedButton;
+    private ButtonWidget addAllButton;
     private TextFieldWidget startPortTextField;
     private TextFieldWidget endPortTextField;
+    private TextFieldWidget rateTextField;
     private ButtonWidget scanButton;
+    private ButtonWidget resumeButton;
+    private ButtonWidget modeButton;
+    private ExecutionMode executionMode = ExecutionMode.SELECTOR;
 
     // Status text to display scanning progress or errors
     private Text statusText;
 
-    // Collected ports and related server info
-    private final List<Integer> openPorts = new ArrayList<>();
-    private final List<ServerInfo> foundServers = new ArrayList<>();
-    private ExecutorService executorService;
+    // Server entries for the open ports of the current sweep, only touched on the render thread
+    private final ScanResultList results = new ScanResultList();
+    // Open ports found since the last frame
+    private final Queue<ServerInfo> pendingResults = new ConcurrentLinkedQueue<>();
+    private ScanScheduler scanScheduler;
+    // Checks whether the host is up before the sweep starts
+    private HostDiscovery hostDiscovery;
+    // Host that looked down on the last attempt; scanning it again sweeps it regardless
+    private String sweepAnyway;
+    private ScanCheckpoint scanCheckpoint;
+    // Whether an interrupted sweep can be resumed; checked on init instead of every frame
+    private boolean hasCheckpoint;
+    // Keeps showing the last scan's numbers after it ends
+    private final ScanMetricsOverlay metricsOverlay = new ScanMetricsOverlay();
+    // Port states of the running sweep; the progress line is read from them once per frame
+    private PortStateMap portStates;
+    private AimdController congestion;
+    private int shownResolved = -1;
+    // Closed ports a resumed sweep skipped, which never show up in portStates
+    private long resumedPorts;
     private boolean isScanning = false;
 
     // UI layout constants
     private static final int BUTTON_HEIGHT = 20;
-    private static final int BUTTON_SPACING = 4;
-    private static final int RESULTS_START_Y = 120;
-
-    // Dynamic layout variables
-    private int buttonsPerRow;
-    private int dynamicButtonWidth;
+    private static final int RESULT_CONTROLS_Y = 122;
+    private static final int RESULTS_START_Y = 148;
+    private static final int RESULT_CELL_WIDTH = 100;
 
     public PortScannerScreen() {
         super(Text.literal("Minecraft Server Scanner"));
@@ -63,33 +109,13 @@ public class PortScannerScreen extends Screen {
 
     @Override
     protected void init() {
-        // Calculate layout metrics before placing fields and buttons
-        calculateLayoutMetrics();
         initializeTextFields();
         initializeButtons();
+        initializeResultControls();
+        initializeResultList();
         statusText = Text.literal("");
     }
 
-    /**
-     * Computes how many buttons fit per row and then reduces button width by 50%.
-     */
-    private void calculateLayoutMetrics() {
-        int totalWidth = this.width - 40; // 20 px padding on each side
-        if (totalWidth < 1) totalWidth = 1;
-
-        // Approximating each button at ~200 px + spacing
-        int approximateButtonWidth = 200;
-        buttonsPerRow = Math.max(1, totalWidth / (approximateButtonWidth + BUTTON_SPACING));
-
-        // Calculate how much space is left for the buttons plus spacing
-        int totalSpacing = BUTTON_SPACING * (buttonsPerRow - 1);
-        int spaceForButtons = totalWidth - totalSpacing;
-
-        // First determine a "full" width, then reduce by 50%
-        int fullWidth = Math.max(50, spaceForButtons / buttonsPerRow);
-        dynamicButtonWidth = (int) (fullWidth * 0.5); // reduce by 50%
-    }
-
     private void initializeTextFields() {
         // IP Address field
         this.ipTextField = new TextFieldWidget(
@@ -135,6 +161,47 @@ public class PortScannerScreen extends Screen {
         // Added tooltip for clarity
         this.endPortTextField.setTooltip(Tooltip.of(Text.literal("Enter the ending port number (highest port to scan)")));
         this.addDrawableChild(endPortTextField);
+
+        // Probe rate limit, next to the scan button
+        this.rateTextField = new TextFieldWidget(
+                this.textRenderer,
+                this.width / 2 - 204,
+                80,
+                100,
+                20,
+                Text.literal("Rate")
+        );
+        this.rateTextField.setMaxLength(7);
+        this.rateTextField.setPlaceholder(Text.literal("Unlimited pps"));
+        this.rateTextField.setTooltip(Tooltip.of(Text.literal(
+                "Maximum probes per second, spread evenly. Lower it if the host's firewall starts dropping probes. "
+                        + "Can be changed during a scan; empty means unlimited.")));
+        // Applies to a running scan straight away
+        this.rateTextField.setChangedListener(text -> {
+            int rate = parseRate(text);
+            if (rate >= 0 && scanScheduler != null) {
+                scanScheduler.pacer().setRate(rate, TokenBucket.defaultBurst(rate));
+            }
+            if (rate >= 0 && hostDiscovery != null) {
+                hostDiscovery.scheduler().pacer().setRate(rate, TokenBucket.defaultBurst(rate));
+            }
+        });
+        this.addDrawableChild(rateTextField);
+    }
+
+    /**
+     * @return probes per second, 0 for unlimited, or -1 if the text isn't a valid rate
+     */
+    private static int parseRate(String text) {
+        if (text.isBlank()) {
+            return 0;
+        }
+        try {
+            int rate = Integer.parseInt(text.trim());
+            return rate >= 0 && rate <= MAX_RATE ? rate : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
     private void initializeButtons() {
@@ -143,6 +210,44 @@ public class PortScannerScreen extends Screen {
                 .position(this.width / 2 - 100, 80)
                 .build();
         this.addDrawableChild(scanButton);
+
+        this.modeButton = ButtonWidget.builder(Text.literal(executionMode.displayName()), button -> {
+                    executionMode = executionMode.next();
+                    button.setMessage(Text.literal(executionMode.displayName()));
+                })
+                .width(100)
+                .position(this.width / 2 + 104, 80)
+                .tooltip(Tooltip.of(Text.literal("How probes are executed. Run the same scan in several modes to compare throughput.")))
+                .build();
+        this.modeButton.active = !isScanning;
+        this.addDrawableChild(modeButton);
+
+        ButtonWidget metricsButton = ButtonWidget.builder(Text.literal("Metrics"), button -> metricsOverlay.toggle())
+                .width(50)
+                .position(this.width - 55, 5)
+                .tooltip(Tooltip.of(Text.literal("Show live probe rate, result counts and RTTs. A summary of every scan is saved to server-scanner/metrics.")))
+                .build();
+        this.addDrawableChild(metricsButton);
+
+        this.resumeButton = ButtonWidget.builder(Text.literal("Resume"), button -> resumeScanning())
+                .width(100)
+                .position(this.width / 2 + 104, 20)
+                .tooltip(Tooltip.of(Text.literal("Continue the last interrupted sweep without probing the ports it already covered")))
+                .build();
+        this.hasCheckpoint = Files.exists(ServerScanner.checkpointFile(CHECKPOINT_NAME));
+        this.addDrawableChild(resumeButton);
+    }
+
+    private void initializeResultList() {
+        this.addDrawableChild(new ScanResultListWidget(
+                20,
+                RESULTS_START_Y,
+                this.width - 40,
+                Math.max(BUTTON_HEIGHT, this.height - RESULTS_START_Y - 10),
+                RESULT_CELL_WIDTH,
+                results,
+                server -> List.of(Text.literal(server.address))
+        ));
     }
 
     private void handleScanButton(ButtonWidget button) {
@@ -154,6 +259,15 @@ public class PortScannerScreen extends Screen {
     }
 
     private void startScanning() {
+        // A fresh random order per sweep; the checkpoint key keeps it for resuming
+        startScanning(null, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * @param resumed checkpoint of an interrupted sweep of the same ports, or {@code null} to start over
+     * @param seed    seed of the random port order
+     */
+    private void startScanning(ScanCheckpoint resumed, long seed) {
         if (!validateInput()) {
             return;
         }
@@ -161,27 +275,108 @@ public class PortScannerScreen extends Screen {
         String ip = ipTextField.getText();
         int startPort = Integer.parseInt(startPortTextField.getText());
         int endPort = Integer.parseInt(endPortTextField.getText());
+        int rate = parseRate(rateTextField.getText());
 
         isScanning = true;
         scanButton.setMessage(Text.literal("Stop Scanning"));
-        openPorts.clear();
-        foundServers.clear();
+        modeButton.active = false;
+        results.clear();
+        pendingResults.clear();
 
-        // Clear out old server buttons
-        updateServerButtons();
+        // A resumed sweep has already found the host up
+        if (resumed == null && HostDiscovery.isWorthwhile(endPort - startPort + 1) && !ip.equals(sweepAnyway)) {
+            discoverHost(ip, startPort, endPort, seed, rate);
+            return;
+        }
+        sweepAnyway = null;
+        scanPorts(ip, startPort, endPort, seed, rate, resumed != null ? resumed : newCheckpoint(ip, startPort, endPort, seed));
+    }
 
-        executorService = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
-        scanPorts(ip, startPort, endPort);
+    private static ScanCheckpoint newCheckpoint(String ip, int startPort, int endPort, long seed) {
+        return ScanCheckpoint.create(ServerScanner.checkpointFile(CHECKPOINT_NAME),
+                ip + ":" + startPort + "-" + endPort + " seed " + seed, endPort - startPort + 1);
     }
 
-    private void stopScanning() {
-        if (executorService != null) {
-            executorService.shutdownNow();
-            executorService = null;
+    /**
+     * Sends a few probes to common ports first, so a host that is down costs a moment instead of a
+     * timeout on every port of the range.
+     */
+    private void discoverHost(String ip, int startPort, int endPort, long seed, int rate) {
+        HostDiscovery discovery = HostDiscovery.start(TargetSpec.parse(ip), executionMode, rate, "Port-Scanner-Discovery");
+        hostDiscovery = discovery;
+        statusText = Text.literal("§eChecking whether " + ip + " is up...");
+        discovery.result().thenAccept(live -> MinecraftClient.getInstance().execute(() -> {
+            // A stopped or superseded scan has already reset the UI
+            if (hostDiscovery != discovery) {
+                return;
+            }
+            hostDiscovery = null;
+            if (live.size() == 0) {
+                isScanning = false;
+                scanButton.setMessage(Text.literal("Scan Ports"));
+                modeButton.active = true;
+                // Firewalls that drop everything look the same, so let the user insist
+                sweepAnyway = ip;
+                statusText = Text.literal("§c" + ip + " did not answer, it seems to be down. Scan again to sweep it anyway");
+                return;
+            }
+            scanPorts(ip, startPort, endPort, seed, rate, newCheckpoint(ip, startPort, endPort, seed));
+        }));
+    }
+
+    /**
+     * Fills in the address and ports of the sweep saved when the last one was stopped, and continues it.
+     */
+    private void resumeScanning() {
+        Path file = ServerScanner.checkpointFile(CHECKPOINT_NAME);
+        ScanCheckpoint checkpoint;
+        Matcher key;
+        long seed;
+        try {
+            checkpoint = ScanCheckpoint.load(file);
+            key = CHECKPOINT_KEY.matcher(checkpoint.scanKey());
+            if (!key.matches()) {
+                throw new IllegalArgumentException("Unexpected checkpoint key: " + checkpoint.scanKey());
+            }
+            seed = Long.parseLong(key.group(4));
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Could not read port scan checkpoint {}", file, e);
+            statusText = Text.literal("§cThe saved sweep could not be read");
+            return;
         }
+        ipTextField.setText(key.group(1));
+        startPortTextField.setText(key.group(2));
+        endPortTextField.setText(key.group(3));
+        startScanning(checkpoint, seed);
+    }
+
+    private void stopScanning() {
+        releaseScheduler();
         isScanning = false;
         scanButton.setMessage(Text.literal("Scan Ports"));
-        statusText = Text.literal("Scanning stopped");
+        modeButton.active = true;
+        // Stopping saves the checkpoint, so the sweep can be resumed from here
+        hasCheckpoint = Files.exists(ServerScanner.checkpointFile(CHECKPOINT_NAME));
+        statusText = Text.literal("Scanning stopped" + (hasCheckpoint ? ", progress saved" : ""));
+    }
+
+    private void releaseScheduler() {
+        if (hostDiscovery != null) {
+            hostDiscovery.stop();
+            hostDiscovery = null;
+        }
+        if (scanScheduler != null) {
+            scanScheduler.stop();
+            metricsOverlay.detach();
+            scanScheduler = null;
+        }
+        if (scanCheckpoint != null && scanCheckpoint.lastSaveError() != null) {
+            LOGGER.warn("Could not save port scan checkpoint", scanCheckpoint.lastSaveError());
+        }
+        drainPendingResults();
+        scanCheckpoint = null;
+        portStates = null;
+        congestion = null;
     }
 
     private boolean validateInput() {
@@ -202,6 +397,10 @@ public class PortScannerScreen extends Screen {
                 statusText = Text.literal("§cStart port must be ≤ end port");
                 return false;
             }
+            if (parseRate(rateTextField.getText()) < 0) {
+                statusText = Text.literal("§cRate must be between 0 and " + MAX_RATE + " probes per second");
+                return false;
+            }
             return true;
         } catch (NumberFormatException e) {
             statusText = Text.literal("§cInvalid port numbers");
@@ -209,129 +408,151 @@ public class PortScannerScreen extends Screen {
         }
     }
 
-    private void scanPorts(String ip, int startPort, int endPort) {
-        ConcurrentLinkedQueue<Integer> portQueue = new ConcurrentLinkedQueue<>();
-        AtomicInteger processedPorts = new AtomicInteger(0);
-        int totalPorts = endPort - startPort + 1;
-
-        for (int port = startPort; port <= endPort; port++) {
-            final int currentPort = port;
-            executorService.submit(() -> {
-                try (Socket socket = new Socket()) {
-                    socket.connect(new InetSocketAddress(ip, currentPort), TIMEOUT_MS);
-                    portQueue.add(currentPort);
-                    LOGGER.info("Found open port {} on {}", currentPort, ip);
-                } catch (IOException ignored) {
-                    // Port is closed or unreachable
-                } finally {
-                    int processed = processedPorts.incrementAndGet();
-                    updateProgress(processed, totalPorts);
-                }
-            });
-        }
-
-        new Thread(() -> {
-            while (!Thread.currentThread().isInterrupted() && processedPorts.get() < totalPorts) {
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+    private void scanPorts(String ip, int startPort, int endPort, long seed, int rate, ScanCheckpoint checkpoint) {
+        // Two bits per port, written straight from the probe callbacks and readable at any time
+        PortStateMap states = new PortStateMap(startPort, endPort);
+
+        int address = Ipv4.parse(ip);
+        ExecutionMode mode = executionMode;
+        String targetKey = ip + ":" + startPort + "-" + endPort;
+
+        // The scheduler's feeder thread hands ports to the prober as slots free up
+        ScanScheduler scheduler = Scanner.builder()
+                .targets(TargetSource.permuted(TargetSource.ports(address, startPort, endPort), seed))
+                .probeType(ProbeType.CONNECT)
+                .executionMode(mode)
+                .concurrency(MAX_IN_FLIGHT, INITIAL_WINDOW, MIN_WINDOW)
+                .poolSize(THREAD_POOL_SIZE)
+                .timeouts(INITIAL_TIMEOUT_MS, MIN_TIMEOUT_MS, MAX_TIMEOUT_MS)
+                .rateLimit(rate)
+                .cache(ServerScanner.resultCache())
+                .checkpoint(checkpoint)
+                .threadName("Port-Scanner")
+                .start((probedAddress, probedPort, result, rttNanos, status) -> {
+                    states.set(probedPort, PortStateMap.State.of(result));
+                    if (result == ProbeResult.OPEN) {
+                        LOGGER.info("Found open port {} on {}", probedPort, ip);
+                        String hostPort = ip + ":" + probedPort;
+                        ServerInfo server = new ServerInfo(hostPort, hostPort, ServerInfo.ServerType.LAN);
+                        pendingResults.add(server);
+                    }
+                });
+        // Fires once the last port has settled, retries included
+        scheduler.onComplete(completion -> {
+            ScanMetrics.Snapshot metrics = scheduler.metrics().snapshot();
+            ServerScanner.writeScanSummary(new ScanSummary(targetKey, mode, completion, metrics));
+            if (completion.stopped()) {
+                return;
             }
+            // Probes actually sent: cached and checkpointed targets would inflate a repeat run
+            String throughput = ThroughputReport.record(targetKey, mode, metrics.probes(), completion.elapsedNanos());
+            LOGGER.info("Port scan of {} in {} mode: {}", targetKey, mode.displayName(), throughput);
 
             MinecraftClient.getInstance().execute(() -> {
-                openPorts.addAll(portQueue);
-                for (Integer p : openPorts) {
-                    foundServers.add(
-                            new ServerInfo(ip + ":" + p, ip + ":" + p, ServerInfo.ServerType.LAN)
-                    );
+                // A stopped or superseded scan has already reset the UI
+                if (scanScheduler != scheduler) {
+                    return;
                 }
-                updateServerButtons();
                 isScanning = false;
+                releaseScheduler();
+                // A finished sweep deletes its checkpoint
+                hasCheckpoint = false;
                 scanButton.setMessage(Text.literal("Scan Ports"));
-                statusText = Text.literal("§aScanning completed! Found " + openPorts.size() + " open ports");
+                modeButton.active = true;
+                statusText = Text.literal("§aScanning completed! Found " + states.count(PortStateMap.State.OPEN) + " open ports (" + throughput + ")");
             });
-        }).start();
-    }
-
-    private void updateProgress(int processed, int total) {
-        float progress = (float) processed / total * 100;
-        MinecraftClient.getInstance().execute(() -> {
-            String statusString = String.format("Scanning: %.1f%% (%d/%d)", progress, processed, total);
-            statusText = Text.literal(statusString);
         });
+        scanScheduler = scheduler;
+        scanCheckpoint = checkpoint;
+        metricsOverlay.attach(scheduler);
+        portStates = states;
+        // Open ports of a resumed sweep are replayed into states; the closed ones are only counted
+        resumedPorts = checkpoint.completedTargets() - checkpoint.completedHits();
+        congestion = scheduler.congestion();
+        shownResolved = -1;
     }
 
     /**
-     * Rebuilds the server buttons based on the open ports found.
-     * This method applies the updated dynamic button width (reduced by 50%).
+     * Called once per frame: moves ports found since the last frame into the list and refreshes the
+     * progress line, but only formats it when more ports have resolved.
      */
-    private void updateServerButtons() {
-        // Remove old server buttons
-        this.children().removeIf(child ->
-                child instanceof ButtonWidget
-                        && ((ButtonWidget) child).getMessage().getString().contains(":")
-        );
-
-        // Nothing to do if no servers
-        if (foundServers.isEmpty()) return;
-
-        // Recalculate metrics (e.g., buttonsPerRow, dynamicButtonWidth) in case the screen size changed
-        calculateLayoutMetrics();
-
-        // Determine how many rows we'll need
-        int totalServers = foundServers.size();
-        int totalRows = (int) Math.ceil(totalServers / (double) buttonsPerRow);
-
-        // Calculate the total width for the block of buttons, to center them horizontally
-        int totalBlockWidth = buttonsPerRow * dynamicButtonWidth
-                + (buttonsPerRow - 1) * BUTTON_SPACING;
-
-        // Horizontal offset to center them in the screen
-        int offsetX = (this.width - totalBlockWidth) / 2;
-
-        for (int index = 0; index < foundServers.size(); index++) {
-            ServerInfo server = foundServers.get(index);
-            int row = index / buttonsPerRow;
-            int col = index % buttonsPerRow;
-
-            // X-position is offset by offsetX so everything is centered
-            int buttonX = offsetX + col * (dynamicButtonWidth + BUTTON_SPACING);
-            // Y-position remains the same as before, starting from RESULTS_START_Y for row 0
-            int buttonY = RESULTS_START_Y + row * (BUTTON_HEIGHT + BUTTON_SPACING);
-
-            ButtonWidget button = ButtonWidget.builder(Text.literal(server.name), b -> addServerToList(server))
-                    .width(dynamicButtonWidth)
-                    .position(buttonX, buttonY)
-                    .build();
+    private void publishProgress() {
+        drainPendingResults();
+        if (portStates == null || portStates.resolved() == shownResolved) {
+            return;
+        }
+        shownResolved = portStates.resolved();
+        long settled = shownResolved + resumedPorts;
+        float progress = (float) settled / portStates.size() * 100;
+        statusText = Text.literal(String.format("Scanning: %.1f%% (%d/%d), %d open | window %d, loss %.1f%%",
+                progress, settled, portStates.size(), portStates.count(PortStateMap.State.OPEN),
+                congestion.window(), congestion.lossRate() * 100));
+    }
 
-            this.addDrawableChild(button);
+    private void drainPendingResults() {
+        ServerInfo server;
+        while ((server = pendingResults.poll()) != null) {
+            results.add(server);
         }
     }
 
-    private void addServerToList(ServerInfo server) {
-        MinecraftClient client = MinecraftClient.getInstance();
-        MultiplayerScreen multiplayerScreen = new MultiplayerScreen(this);
-        multiplayerScreen.init(client, this.width, this.height);
+    /**
+     * Filter field plus the batch import buttons. "Add all" imports whatever the filter currently shows.
+     */
+    private void initializeResultControls() {
+        int left = this.width / 2 - 179;
+        this.filterTextField = new TextFieldWidget(this.textRenderer, left, RESULT_CONTROLS_Y, 150, BUTTON_HEIGHT, Text.literal("Filter"));
+        this.filterTextField.setPlaceholder(Text.literal("Filter results"));
+        this.filterTextField.setText(results.filterText());
+        this.filterTextField.setChangedListener(text -> {
+            results.setFilter(text);
+            addAllButton.setMessage(addAllButtonText());
+        });
+        this.addDrawableChild(filterTextField);
+
+        this.addSelectedButton = ButtonWidget.builder(Text.literal("Add selected"), button -> importServers(results.selected()))
+                .width(100)
+                .position(left + 154, RESULT_CONTROLS_Y)
+                .tooltip(Tooltip.of(Text.literal("Click results to select them, then add them to the server list in one go")))
+                .build();
+        this.addDrawableChild(addSelectedButton);
 
-        ServerList serverList = new ServerList(client);
-        serverList.loadFile();
+        this.addAllButton = ButtonWidget.builder(addAllButtonText(), button -> importServers(results.visible()))
+                .width(100)
+                .position(left + 258, RESULT_CONTROLS_Y)
+                .build();
+        this.addDrawableChild(addAllButton);
+    }
 
-        MultiplayerScreenInvoker invoker = (MultiplayerScreenInvoker) multiplayerScreen;
-        invoker.setServerList(serverList);
-        invoker.setSelectedEntry(server);
-        invoker.invokeAddEntry(true);
+    private Text addAllButtonText() {
+        return Text.literal(results.isFiltered() ? "Add filtered" : "Add all");
+    }
 
-        client.setScreen(this);
-        foundServers.remove(server);
-        updateServerButtons();
+    /**
+     * Adds the given results to the server list with a single load and save, then drops them from
+     * the results.
+     */
+    private void importServers(List<ServerInfo> servers) {
+        if (servers.isEmpty()) {
+            return;
+        }
+        List<ServerInfo> batch = List.copyOf(servers);
+        int added = ServerListImporter.addAll(batch);
+        results.removeAll(batch);
+        int skipped = batch.size() - added;
+        statusText = Text.literal("§aAdded " + added + " servers to the server list"
+                + (skipped > 0 ? " (" + skipped + " already listed)" : ""));
     }
 
     @Override
     public void render(DrawContext context, int mouseX, int mouseY, float delta) {
+        publishProgress();
+        addSelectedButton.active = results.selectedCount() > 0;
+        addAllButton.active = !results.visible().isEmpty();
+        resumeButton.active = !isScanning && hasCheckpoint;
         this.renderBackground(context, mouseX, mouseY, delta);
         super.render(context, mouseX, mouseY, delta);
+        metricsOverlay.render(context, this.textRenderer, this.width - 5, 30);
 
         // Draw title
         context.drawTextWithShadow(
@@ -356,10 +577,7 @@ public class PortScannerScreen extends Screen {
 
     @Override
     public void removed() {
-        if (executorService != null) {
-            executorService.shutdownNow();
-            executorService = null;
-        }
+        releaseScheduler();
         super.removed();
     }
 
@@ -368,13 +586,13 @@ public class PortScannerScreen extends Screen {
         String tempIp = ipTextField != null ? ipTextField.getText() : "";
         String tempStart = startPortTextField != null ? startPortTextField.getText() : "";
         String tempEnd = endPortTextField != null ? endPortTextField.getText() : "";
+        String tempRate = rateTextField != null ? rateTextField.getText() : "";
 
         this.init(client, width, height);
 
         ipTextField.setText(tempIp);
         startPortTextField.setText(tempStart);
         endPortTextField.setText(tempEnd);
-
-        updateServerButtons();
+        rateTextField.setText(tempRate);
     }
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package dev.jqve.serverscanner.screens;
+
+import dev.jqve.serverscanner.scan.RttHistogram;
+import dev.jqve.serverscanner.scan.ScanMetrics;
+import dev.jqve.serverscanner.scan.ScanScheduler;
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.client.gui.DrawContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional panel with live scan metrics: probe rate, in-flight probes, result counts and an RTT
+ * histogram. Shared by both scanner screens.
+ * <p>
+ * The scheduler's counters are sampled a few times per second rather than every frame, which also
+ * keeps the probe rate from jittering. After a scan ends the panel keeps showing its final numbers.
+ */
+public class ScanMetricsOverlay {
+    private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final int WIDTH = 150;
+    private static final int PADDING = 4;
+    private static final int LINE_HEIGHT = 10;
+    private static final int HISTOGRAM_HEIGHT = 30;
+    private static final int BAR_WIDTH = 4;
+    private static final int BACKGROUND_COLOR = 0xA0000000;
+    private static final int BAR_COLOR = 0xFF55FF55;
+    private static final int TEXT_COLOR = 0xFFFFFF;
+    private static final int LABEL_COLOR = 0xAAAAAA;
+
+    private boolean visible;
+    private ScanScheduler scheduler;
+    private ScanMetrics.Snapshot current;
+    private double probesPerSecond;
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    public void toggle() {
+        visible = !visible;
+    }
+
+    /**
+     * Starts showing the metrics of {@code scheduler}.
+     */
+    public void attach(ScanScheduler scheduler) {
+        this.scheduler = scheduler;
+        this.current = scheduler.metrics().snapshot();
+        this.probesPerSecond = 0;
+    }
+
+    /**
+     * Takes a last sample and stops polling; the final numbers stay on screen.
+     */
+    public void detach() {
+        if (scheduler != null) {
+            sample(scheduler.metrics().snapshot());
+            probesPerSecond = 0;
+            scheduler = null;
+        }
+    }
+
+    private void sample(ScanMetrics.Snapshot snapshot) {
+        probesPerSecond = snapshot.probesPerSecond(current);
+        current = snapshot;
+    }
+
+    public void render(DrawContext context, TextRenderer textRenderer, int right, int top) {
+        if (!visible || current == null) {
+            return;
+        }
+        if (scheduler != null && System.nanoTime() - current.nanoTime() >= SAMPLE_INTERVAL_NANOS) {
+            sample(scheduler.metrics().snapshot());
+        }
+        ScanMetrics.Snapshot metrics = current;
+        String window = scheduler != null ? " / window " + scheduler.congestion().window() : "";
+        String[] lines = {
+                String.format("Probes/s: %.0f", probesPerSecond),
+                "In flight: " + metrics.inFlight() + window,
+                "Open " + metrics.open() + "  Refused " + metrics.closed() + "  Timeout " + metrics.timeout(),
+                "Cached " + metrics.cached() + "  Retries " + metrics.retries(),
+                "RTT p50 " + formatMicros(metrics.rttPercentileMicros(0.5))
+                        + "  p99 " + formatMicros(metrics.rttPercentileMicros(0.99))
+        };
+
+        int left = right - WIDTH;
+        int height = PADDING * 2 + lines.length * LINE_HEIGHT + HISTOGRAM_HEIGHT + LINE_HEIGHT + 2;
+        context.fill(left, top, right, top + height, BACKGROUND_COLOR);
+        int y = top + PADDING;
+        for (String line : lines) {
+            context.drawTextWithShadow(textRenderer, line, left + PADDING, y, TEXT_COLOR);
+            y += LINE_HEIGHT;
+        }
+        drawHistogram(context, textRenderer, metrics.rttBuckets(), left + PADDING, y + 2);
+    }
+
+    /**
+     * One bar per bucket, scaled to the fullest bucket, with the range of the populated buckets below.
+     */
+    private static void drawHistogram(DrawContext context, TextRenderer textRenderer, long[] buckets, int x, int y) {
+        long max = 0;
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] > 0) {
+                max = Math.max(max, buckets[i]);
+                first = first < 0 ? i : first;
+                last = i;
+            }
+        }
+        int bottom = y + HISTOGRAM_HEIGHT;
+        if (max == 0) {
+            context.drawTextWithShadow(textRenderer, "No RTT samples yet", x, y, LABEL_COLOR);
+            return;
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            int barHeight = (int) Math.ceil((double) buckets[i] / max * HISTOGRAM_HEIGHT);
+            int barX = x + i * (BAR_WIDTH + 1);
+            context.fill(barX, bottom - barHeight, barX + BAR_WIDTH, bottom, BAR_COLOR);
+        }
+        long low = first == 0 ? 0 : RttHistogram.upperBoundMicros(first - 1);
+        String range = formatMicros(low) + " - " + formatMicros(RttHistogram.upperBoundMicros(last));
+        context.drawTextWithShadow(textRenderer, range, x, bottom + 2, LABEL_COLOR);
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros < 1000) {
+            return micros + "µs";
+        }
+        if (micros < 1_000_000) {
+            return micros / 1000 + "ms";
+        }
+        return String.format("%.1fs", micros / 1_000_000.0);
+    }
+}
@@ -0,0 +1,378 @@
+package dev.jqve.serverscanner.screens;
+
+import dev.jqve.serverscanner.scan.Ipv4;
+import dev.jqve.serverscanner.scan.ServerStatus;
+import net.minecraft.client.network.ServerInfo;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Results of a scan as shown in a {@link ScanResultListWidget}: every result, the ones matching the
+ * current filter, and the user's selection.
+ * <p>
+ * Owned by the screen so it survives re-initialisation, and only touched on the render thread.
+ * Appending keeps the filtered view up to date in O(1); only changing the filter walks all results.
+ * There is at most one entry per address: adding a result for a listed address replaces the old entry
+ * in place, e.g. when a cached result is confirmed by a fresh probe. Each address knows where its entry
+ * sits, so replacing or removing one is O(1): removed entries leave a gap that is closed in one pass
+ * the next time the view is read, however many were removed since.
+ * <p>
+ * Results loaded from files are kept packed in {@link ImportedResults} and listed after the scanned
+ * ones. Their entries are only built for rows the widget shows (a few hundred are kept around) and
+ * for selected rows, so importing hundreds of thousands of results doesn't create an object each.
+ */
+public class ScanResultList {
+    private static final int SHOWN_IMPORTS_KEPT = 512;
+
+    // Both may hold nulls where entries were removed, see compact()
+    private final List<Slot> all = new ArrayList<>();
+    private final List<Slot> visible = new ArrayList<>();
+    private int gapsInAll;
+    private int gapsInVisible;
+    private final Set<ServerInfo> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<String, Slot> byAddress = new HashMap<>();
+    private final ImportedResults imported = new ImportedResults();
+    // Indices of the imported entries matching the filter, ascending
+    private int[] visibleImported = new int[64];
+    private int visibleImportedCount;
+    // Selected imported entries keep their instance, so the selection sticks
+    private final Map<Integer, ImportedResults.ImportedServer> selectedImported = new TreeMap<>();
+    private final Map<Integer, ImportedResults.ImportedServer> shownImported =
+            new LinkedHashMap<>(SHOWN_IMPORTS_KEPT, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, ImportedResults.ImportedServer> eldest) {
+                    return size() > SHOWN_IMPORTS_KEPT;
+                }
+            };
+    private final List<ServerInfo> visibleView = new VisibleView();
+    private String filterText = "";
+    private String filter = "";
+
+    /**
+     * Where the entry of one address sits in {@link #all} and {@link #visible}.
+     */
+    private static final class Slot {
+        ServerInfo server;
+        int allIndex;
+        // -1 while filtered out
+        int visibleIndex = -1;
+
+        Slot(ServerInfo server, int allIndex) {
+            this.server = server;
+            this.allIndex = allIndex;
+        }
+    }
+
+    public void add(ServerInfo server) {
+        Slot slot = byAddress.get(server.address);
+        if (slot != null) {
+            replace(slot, server);
+            return;
+        }
+        slot = new Slot(server, all.size());
+        byAddress.put(server.address, slot);
+        all.add(slot);
+        if (matches(server)) {
+            show(slot);
+        }
+    }
+
+    private void replace(Slot slot, ServerInfo server) {
+        ServerInfo previous = slot.server;
+        slot.server = server;
+        boolean matches = matches(server);
+        if (slot.visibleIndex >= 0 && !matches) {
+            hide(slot);
+        } else if (slot.visibleIndex < 0 && matches) {
+            show(slot);
+        }
+        if (selected.remove(previous) && matches) {
+            selected.add(server);
+        }
+    }
+
+    private void show(Slot slot) {
+        slot.visibleIndex = visible.size();
+        visible.add(slot);
+    }
+
+    private void hide(Slot slot) {
+        visible.set(slot.visibleIndex, null);
+        slot.visibleIndex = -1;
+        gapsInVisible++;
+    }
+
+    /**
+     * Closes the gaps left by removed and hidden entries, moving the entries after them up. The gaps in
+     * {@link #all} are only closed once they make up half of it, as nothing reads it by position.
+     */
+    private void compact() {
+        if (gapsInVisible > 0) {
+            int kept = 0;
+            for (int i = 0; i < visible.size(); i++) {
+                Slot slot = visible.get(i);
+                if (slot != null) {
+                    slot.visibleIndex = kept;
+                    visible.set(kept++, slot);
+                }
+            }
+            visible.subList(kept, visible.size()).clear();
+            gapsInVisible = 0;
+        }
+        if (gapsInAll > all.size() / 2) {
+            int kept = 0;
+            for (int i = 0; i < all.size(); i++) {
+                Slot slot = all.get(i);
+                if (slot != null) {
+                    slot.allIndex = kept;
+                    all.set(kept++, slot);
+                }
+            }
+            all.subList(kept, all.size()).clear();
+            gapsInAll = 0;
+        }
+    }
+
+    public boolean contains(String address) {
+        return byAddress.containsKey(address);
+    }
+
+    /**
+     * Adds a result read from a file, unless its address is already listed.
+     *
+     * @param status what the server reported, or {@code null} if the file only had its address
+     * @return whether it was added
+     */
+    public boolean addImported(int address, int port, long rttNanos, ServerStatus status) {
+        if (byAddress.containsKey(Ipv4.format(address) + ":" + port) || !imported.add(address, port, rttNanos, status)) {
+            return false;
+        }
+        int index = imported.size() - 1;
+        if (matchesImported(index)) {
+            appendVisibleImported(index);
+        }
+        return true;
+    }
+
+    private void appendVisibleImported(int index) {
+        if (visibleImportedCount == visibleImported.length) {
+            visibleImported = Arrays.copyOf(visibleImported, visibleImportedCount * 2);
+        }
+        visibleImported[visibleImportedCount++] = index;
+    }
+
+    private ServerInfo importedEntry(int index) {
+        ImportedResults.ImportedServer server = selectedImported.get(index);
+        return server != null ? server : shownImported.computeIfAbsent(index, imported::server);
+    }
+
+    /**
+     * Removes the entry for {@code address}, if there is one.
+     */
+    public void remove(String address) {
+        Slot slot = byAddress.remove(address);
+        if (slot != null) {
+            all.set(slot.allIndex, null);
+            gapsInAll++;
+            if (slot.visibleIndex >= 0) {
+                hide(slot);
+            }
+            selected.remove(slot.server);
+        }
+    }
+
+    public void clear() {
+        byAddress.clear();
+        all.clear();
+        visible.clear();
+        gapsInAll = 0;
+        gapsInVisible = 0;
+        selected.clear();
+        imported.clear();
+        visibleImportedCount = 0;
+        selectedImported.clear();
+        shownImported.clear();
+    }
+
+    /**
+     * Removes the given entries from the results, e.g. after they have been imported.
+     */
+    public void removeAll(Collection<ServerInfo> servers) {
+        Set<ServerInfo> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        removed.addAll(servers);
+        for (ServerInfo server : removed) {
+            Slot slot = byAddress.get(server.address);
+            if (slot != null && slot.server == server) {
+                remove(server.address);
+            }
+        }
+        selected.removeAll(removed);
+
+        boolean removedImported = false;
+        for (ServerInfo server : removed) {
+            if (server instanceof ImportedResults.ImportedServer importedServer) {
+                imported.remove(importedServer.index);
+                selectedImported.remove(importedServer.index);
+                shownImported.remove(importedServer.index);
+                removedImported = true;
+            }
+        }
+        if (removedImported) {
+            int kept = 0;
+            for (int i = 0; i < visibleImportedCount; i++) {
+                if (!imported.isRemoved(visibleImported[i])) {
+                    visibleImported[kept++] = visibleImported[i];
+                }
+            }
+            visibleImportedCount = kept;
+        }
+    }
+
+    /**
+     * Shows only results whose name, address or MOTD contains {@code filter}, ignoring case.
+     * Selected entries that drop out of view are deselected.
+     */
+    public void setFilter(String filter) {
+        this.filterText = filter;
+        String normalized = filter.trim().toLowerCase(Locale.ROOT);
+        if (normalized.equals(this.filter)) {
+            return;
+        }
+        this.filter = normalized;
+        visible.clear();
+        gapsInVisible = 0;
+        for (Slot slot : all) {
+            if (slot == null) {
+                continue;
+            }
+            slot.visibleIndex = -1;
+            if (matches(slot.server)) {
+                show(slot);
+            }
+        }
+        visibleImportedCount = 0;
+        for (int index = 0; index < imported.size(); index++) {
+            if (!imported.isRemoved(index) && matchesImported(index)) {
+                appendVisibleImported(index);
+            }
+        }
+        selected.removeIf(server -> !matches(server));
+        selectedImported.values().retainAll(selected);
+    }
+
+    /**
+     * @return the filter as last entered, for restoring the text field
+     */
+    public String filterText() {
+        return filterText;
+    }
+
+    public boolean isFiltered() {
+        return !filter.isEmpty();
+    }
+
+    private boolean matches(ServerInfo server) {
+        if (filter.isEmpty()) {
+            return true;
+        }
+        return matchesFilter(server.name) || matchesFilter(server.address)
+                || (server.label != null && matchesFilter(server.label.getString()));
+    }
+
+    /**
+     * Same as {@link #matches} on the entry {@link ImportedResults#server} would build, without building it.
+     */
+    private boolean matchesImported(int index) {
+        if (filter.isEmpty()) {
+            return true;
+        }
+        String motd = imported.motd(index);
+        return matchesFilter(imported.name(index)) || matchesFilter(imported.address(index))
+                || matchesFilter(motd != null ? motd : "Imported, no status saved");
+    }
+
+    private boolean matchesFilter(String value) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(filter);
+    }
+
+    public void toggleSelected(ServerInfo server) {
+        if (!selected.remove(server)) {
+            selected.add(server);
+            if (server instanceof ImportedResults.ImportedServer importedServer) {
+                selectedImported.put(importedServer.index, importedServer);
+            }
+        } else if (server instanceof ImportedResults.ImportedServer importedServer) {
+            selectedImported.remove(importedServer.index);
+        }
+    }
+
+    public boolean isSelected(ServerInfo server) {
+        return selected.contains(server);
+    }
+
+    /**
+     * @return the selected entries in display order
+     */
+    public List<ServerInfo> selected() {
+        compact();
+        List<ServerInfo> result = new ArrayList<>(selected.size());
+        for (Slot slot : visible) {
+            if (selected.contains(slot.server)) {
+                result.add(slot.server);
+            }
+        }
+        // Imported entries follow the scanned ones in index order
+        result.addAll(selectedImported.values());
+        return result;
+    }
+
+    public int selectedCount() {
+        return selected.size();
+    }
+
+    /**
+     * @return the entries matching the current filter, in the order they were found, then the imported
+     *         ones; imported entries are built as they are fetched
+     */
+    public List<ServerInfo> visible() {
+        return visibleView;
+    }
+
+    public int size() {
+        return byAddress.size() + imported.count();
+    }
+
+    private final class VisibleView extends AbstractList<ServerInfo> implements RandomAccess {
+        @Override
+        public ServerInfo get(int index) {
+            compact();
+            if (index < visible.size()) {
+                return visible.get(index).server;
+            }
+            int importedIndex = index - visible.size();
+            if (importedIndex >= visibleImportedCount) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return importedEntry(visibleImported[importedIndex]);
+        }
+
+        @Override
+        public int size() {
+            compact();
+            return visible.size() + visibleImportedCount;
+        }
+    }
+}
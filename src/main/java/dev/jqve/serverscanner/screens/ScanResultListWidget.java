@@ -0,0 +1,158 @@
+package dev.jqve.serverscanner.screens;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.gui.screen.narration.NarrationMessageBuilder;
+import net.minecraft.client.gui.widget.ClickableWidget;
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.MathHelper;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Scrollable grid of scan results.
+ * <p>
+ * Unlike a column of {@code ButtonWidget}s, no widget exists per result: the grid shows the visible
+ * entries of the screen's {@link ScanResultList}, cells are drawn on the fly and only the rows inside
+ * the viewport are touched each frame. Appending a result is just an {@code add} on the list, and
+ * clicks are mapped to entries by position and toggle their selection.
+ */
+public class ScanResultListWidget extends ClickableWidget {
+    private static final int CELL_HEIGHT = 20;
+    private static final int CELL_SPACING = 4;
+    private static final int ROW_HEIGHT = CELL_HEIGHT + CELL_SPACING;
+    private static final int SCROLLBAR_WIDTH = 4;
+    private static final int SCROLL_STEP = ROW_HEIGHT / 2;
+
+    private static final int CELL_COLOR = 0xA0000000;
+    private static final int CELL_HOVER_COLOR = 0xC0303030;
+    private static final int BORDER_COLOR = 0xFF6F6F6F;
+    private static final int BORDER_HOVER_COLOR = 0xFFFFFFFF;
+    private static final int SCROLLBAR_COLOR = 0x80FFFFFF;
+    private static final int SELECTED_COLOR = 0xA0205020;
+    private static final int BORDER_SELECTED_COLOR = 0xFF55FF55;
+
+    private final ScanResultList results;
+    private final Function<ServerInfo, List<Text>> tooltip;
+    private final int columns;
+    private final int cellWidth;
+    private double scrollY;
+
+    /**
+     * @param approximateCellWidth preferred cell width; the actual width stretches to fill the row
+     * @param results              backing results, owned by the screen and only modified on the render thread
+     * @param tooltip              lines to show while an entry is hovered
+     */
+    public ScanResultListWidget(int x, int y, int width, int height, int approximateCellWidth,
+                                ScanResultList results, Function<ServerInfo, List<Text>> tooltip) {
+        super(x, y, width, height, Text.literal("Scan results"));
+        this.results = results;
+        this.tooltip = tooltip;
+        int usableWidth = Math.max(1, width - SCROLLBAR_WIDTH - CELL_SPACING);
+        this.columns = Math.max(1, usableWidth / (approximateCellWidth + CELL_SPACING));
+        this.cellWidth = Math.max(50, (usableWidth - CELL_SPACING * (columns - 1)) / columns);
+    }
+
+    private int rowCount() {
+        return (results.visible().size() + columns - 1) / columns;
+    }
+
+    private double maxScroll() {
+        return Math.max(0, rowCount() * ROW_HEIGHT - CELL_SPACING - this.height);
+    }
+
+    /**
+     * @return index of the entry under the cursor, or -1
+     */
+    private int indexAt(double mouseX, double mouseY) {
+        if (!this.isMouseOver(mouseX, mouseY)) {
+            return -1;
+        }
+        int relX = (int) (mouseX - this.getX());
+        int relY = (int) (mouseY - this.getY() + scrollY);
+        int column = relX / (cellWidth + CELL_SPACING);
+        int row = relY / ROW_HEIGHT;
+        if (column >= columns || relX % (cellWidth + CELL_SPACING) >= cellWidth || relY % ROW_HEIGHT >= CELL_HEIGHT) {
+            return -1;
+        }
+        int index = row * columns + column;
+        return index < results.visible().size() ? index : -1;
+    }
+
+    @Override
+    protected void renderWidget(DrawContext context, int mouseX, int mouseY, float delta) {
+        scrollY = MathHelper.clamp(scrollY, 0, maxScroll());
+        TextRenderer textRenderer = MinecraftClient.getInstance().textRenderer;
+        List<ServerInfo> entries = results.visible();
+        int hovered = indexAt(mouseX, mouseY);
+
+        // Only the rows intersecting the viewport are visited
+        int firstRow = (int) (scrollY / ROW_HEIGHT);
+        int lastRow = Math.min(rowCount() - 1, (int) ((scrollY + this.height) / ROW_HEIGHT));
+
+        context.enableScissor(this.getX(), this.getY(), this.getRight(), this.getBottom());
+        for (int row = firstRow; row <= lastRow; row++) {
+            int cellY = this.getY() + row * ROW_HEIGHT - (int) scrollY;
+            for (int column = 0; column < columns; column++) {
+                int index = row * columns + column;
+                if (index >= entries.size()) {
+                    break;
+                }
+                int cellX = this.getX() + column * (cellWidth + CELL_SPACING);
+                ServerInfo entry = entries.get(index);
+                boolean isHovered = index == hovered;
+                boolean isSelected = results.isSelected(entry);
+                context.fill(cellX, cellY, cellX + cellWidth, cellY + CELL_HEIGHT,
+                        isSelected ? SELECTED_COLOR : isHovered ? CELL_HOVER_COLOR : CELL_COLOR);
+                context.drawBorder(cellX, cellY, cellWidth, CELL_HEIGHT,
+                        isHovered ? BORDER_HOVER_COLOR : isSelected ? BORDER_SELECTED_COLOR : BORDER_COLOR);
+                String label = textRenderer.trimToWidth(entry.name, cellWidth - 6);
+                context.drawCenteredTextWithShadow(textRenderer, label, cellX + cellWidth / 2,
+                        cellY + (CELL_HEIGHT - 8) / 2, 0xFFFFFF);
+            }
+        }
+        context.disableScissor();
+
+        double maxScroll = maxScroll();
+        if (maxScroll > 0) {
+            int barHeight = Math.max(10, (int) ((long) this.height * this.height / (maxScroll + this.height)));
+            int barY = this.getY() + (int) ((this.height - barHeight) * (scrollY / maxScroll));
+            context.fill(this.getRight() - SCROLLBAR_WIDTH, barY, this.getRight(), barY + barHeight, SCROLLBAR_COLOR);
+        }
+
+        if (hovered >= 0) {
+            context.drawTooltip(textRenderer, tooltip.apply(entries.get(hovered)), mouseX, mouseY);
+        }
+    }
+
+    @Override
+    public boolean mouseClicked(double mouseX, double mouseY, int button) {
+        if (!this.active || !this.visible || button != 0) {
+            return false;
+        }
+        int index = indexAt(mouseX, mouseY);
+        if (index < 0) {
+            return false;
+        }
+        this.playDownSound(MinecraftClient.getInstance().getSoundManager());
+        results.toggleSelected(results.visible().get(index));
+        return true;
+    }
+
+    @Override
+    public boolean mouseScrolled(double mouseX, double mouseY, double horizontalAmount, double verticalAmount) {
+        if (!this.isMouseOver(mouseX, mouseY)) {
+            return false;
+        }
+        scrollY = MathHelper.clamp(scrollY - verticalAmount * SCROLL_STEP, 0, maxScroll());
+        return true;
+    }
+
+    @Override
+    protected void appendClickableNarrations(NarrationMessageBuilder builder) {
+        this.appendDefaultNarrations(builder);
+    }
+}
@@ -0,0 +1,93 @@
+package dev.jqve.serverscanner.screens;
+
+import net.minecraft.client.network.ServerInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A regex over server list entries, compiled once and matched against the name, the address or
+ * either of them. Entries match when the whole field matches, like {@link String#matches}.
+ * <p>
+ * The matcher is reused between entries, so an instance must only be used by one thread at a time.
+ */
+public final class ServerListFilter {
+    public enum Field {
+        NAME("Name"),
+        ADDRESS("Address"),
+        BOTH("Name or address");
+
+        private static final Field[] VALUES = values();
+
+        private final String displayName;
+
+        Field(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String displayName() {
+            return displayName;
+        }
+
+        public Field next() {
+            return VALUES[(ordinal() + 1) % VALUES.length];
+        }
+    }
+
+    private final Field field;
+    private final Matcher matcher;
+
+    private ServerListFilter(Pattern pattern, Field field) {
+        this.field = field;
+        this.matcher = pattern.matcher("");
+    }
+
+    /**
+     * @throws PatternSyntaxException if {@code regex} is not a valid pattern
+     */
+    public static ServerListFilter compile(String regex, Field field) {
+        return new ServerListFilter(Pattern.compile(regex), field);
+    }
+
+    public boolean matches(ServerInfo server) {
+        return switch (field) {
+            case NAME -> matches(server.name);
+            case ADDRESS -> matches(server.address);
+            case BOTH -> matches(server.name) || matches(server.address);
+        };
+    }
+
+    private boolean matches(String value) {
+        return value != null && matcher.reset(value).matches();
+    }
+
+    public int count(List<ServerInfo> servers) {
+        int count = 0;
+        for (ServerInfo server : servers) {
+            if (matches(server)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes every matching entry in a single pass over {@code servers}.
+     *
+     * @return the removed entries, in list order
+     */
+    public List<ServerInfo> removeMatching(List<ServerInfo> servers) {
+        List<ServerInfo> removed = new ArrayList<>();
+        servers.removeIf(server -> {
+            if (matches(server)) {
+                removed.add(server);
+                return true;
+            }
+            return false;
+        });
+        return removed;
+    }
+}
@@ -0,0 +1,48 @@
+package dev.jqve.serverscanner.screens;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.client.option.ServerList;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Adds scan results to the saved server list in one go: servers.dat is read once, every entry is
+ * appended in memory and the file is written once, however many servers are imported.
+ */
+public final class ServerListImporter {
+    private ServerListImporter() {
+    }
+
+    /**
+     * Appends {@code servers} to the server list, skipping addresses that are already on it.
+     *
+     * @return how many servers were added
+     */
+    public static int addAll(Collection<ServerInfo> servers) {
+        if (servers.isEmpty()) {
+            return 0;
+        }
+        ServerList serverList = new ServerList(MinecraftClient.getInstance());
+        serverList.loadFile();
+
+        Set<String> knownAddresses = new HashSet<>();
+        for (int i = 0; i < serverList.size(); i++) {
+            knownAddresses.add(serverList.get(i).address);
+        }
+
+        int added = 0;
+        for (ServerInfo server : servers) {
+            if (knownAddresses.add(server.address)) {
+                serverList.add(server, false);
+                added++;
+            }
+        }
+        if (added > 0) {
+            serverList.saveFile();
+        }
+        return added;
+    }
+}
@@ -0,0 +1,318 @@
+package dev.jqve.serverscanner.screens;
+
+import dev.jqve.serverscanner.scan.Ipv4;
+import dev.jqve.serverscanner.scan.ProbeEngine;
+import dev.jqve.serverscanner.scan.ProbeResult;
+import dev.jqve.serverscanner.scan.ProbeType;
+import dev.jqve.serverscanner.scan.ServerStatus;
+import net.minecraft.SharedConstants;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.Address;
+import net.minecraft.client.network.AllowedAddressResolver;
+import net.minecraft.client.network.ServerAddress;
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.screen.ScreenTexts;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Pings every entry of the saved server list at once, instead of the multiplayer screen's one entry
+ * at a time as they scroll into view.
+ * <p>
+ * Addresses are resolved (SRV records included) on a bounded set of virtual threads and each one goes
+ * straight to a {@link ProbeEngine}, which caps the status exchanges in flight. Answers are applied to
+ * the entries on the render thread as they arrive, so the list fills in live. Entries are marked as
+ * pinging up front, which keeps the screen's own pinger from asking them a second time.
+ * <p>
+ * Latency and player counts aren't saved, so the list is only written if it is tidied afterwards with
+ * {@link #tidy}. Since pruning deletes entries for good, only a refused connection or a connect that
+ * timed out on every attempt marks an entry as down. A port that accepted but sent no status, or an
+ * address that didn't resolve, is unknown and kept.
+ */
+public final class ServerListRefresher {
+    /**
+     * What to do with the list once every entry has answered or timed out.
+     */
+    public enum Tidy {
+        KEEP("Keep order"),
+        SORT("Sort by ping"),
+        PRUNE("Remove dead"),
+        PRUNE_AND_SORT("Remove dead, sort");
+
+        private static final Tidy[] VALUES = values();
+
+        private final String displayName;
+
+        Tidy(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String displayName() {
+            return displayName;
+        }
+
+        public Tidy next() {
+            return VALUES[(ordinal() + 1) % VALUES.length];
+        }
+    }
+
+    private enum Result { UP, UNKNOWN, DOWN, SKIPPED }
+
+    private static final int MAX_IN_FLIGHT = 256;
+    private static final int RESOLVE_CONCURRENCY = 32;
+    // Saved servers are mostly far away, unlike scan targets on the local network
+    private static final int TIMEOUT_MS = 3000;
+    // A dropped SYN must not get a server pruned
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final List<ServerInfo> servers;
+    private final ProbeEngine engine = new ProbeEngine(1, MAX_IN_FLIGHT);
+    private final ExecutorService resolver = Executors.newVirtualThreadPerTaskExecutor();
+    private final Consumer<ServerListRefresher> onChange;
+    private final Consumer<ServerListRefresher> onFinish;
+    // Only touched on the render thread
+    private final Map<ServerInfo, Result> results = new IdentityHashMap<>();
+    private int up;
+    private int unknown;
+    private int down;
+    private volatile boolean cancelled;
+    private boolean finished;
+
+    private ServerListRefresher(List<ServerInfo> servers, Consumer<ServerListRefresher> onChange,
+                                Consumer<ServerListRefresher> onFinish) {
+        this.servers = servers;
+        this.onChange = onChange;
+        this.onFinish = onFinish;
+    }
+
+    /**
+     * Starts pinging {@code servers}. Must be called on the render thread.
+     *
+     * @param servers  entries to ping; must not be empty
+     * @param onChange called on the render thread after each answer
+     * @param onFinish called on the render thread once every entry has settled, or after {@link #cancel()};
+     *                 never before this method has returned
+     */
+    public static ServerListRefresher start(List<ServerInfo> servers, Consumer<ServerListRefresher> onChange,
+                                            Consumer<ServerListRefresher> onFinish) {
+        if (servers.isEmpty()) {
+            throw new IllegalArgumentException("No servers to refresh");
+        }
+        ServerListRefresher refresher = new ServerListRefresher(List.copyOf(servers), onChange, onFinish);
+        for (ServerInfo server : refresher.servers) {
+            server.setStatus(ServerInfo.Status.PINGING);
+            server.label = Text.translatable("multiplayer.status.pinging").formatted(Formatting.GRAY);
+        }
+        Thread feeder = new Thread(refresher::feed, "Server-List-Refresher");
+        feeder.setDaemon(true);
+        feeder.start();
+        return refresher;
+    }
+
+    private void feed() {
+        Semaphore permits = new Semaphore(RESOLVE_CONCURRENCY);
+        try {
+            for (ServerInfo server : servers) {
+                permits.acquire();
+                if (cancelled) {
+                    return;
+                }
+                resolver.execute(() -> {
+                    try {
+                        ping(server);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } catch (InterruptedException | RejectedExecutionException e) {
+            // Cancelled
+        }
+    }
+
+    /**
+     * Resolves the entry's address and starts its status probe. Blocks while the engine is at capacity,
+     * which holds back the resolver too.
+     */
+    private void ping(ServerInfo server) {
+        Optional<InetSocketAddress> address = AllowedAddressResolver.DEFAULT.resolve(ServerAddress.parse(server.address))
+                .map(Address::getInetSocketAddress);
+        if (address.isEmpty()) {
+            // Maybe just a DNS hiccup
+            settle(server, Result.UNKNOWN, null);
+            return;
+        }
+        if (!(address.get().getAddress() instanceof Inet4Address ipv4)) {
+            // The probe engine only speaks IPv4; the screen's own pinger takes these
+            settle(server, Result.SKIPPED, null);
+            return;
+        }
+        probe(server, Ipv4.fromInetAddress(ipv4), address.get().getPort(), 1);
+    }
+
+    private void probe(ServerInfo server, int address, int port, int attempt) {
+        try {
+            engine.probe(address, port, TIMEOUT_MS, ProbeType.STATUS, (probedAddress, probedPort, result, rttNanos, status) -> {
+                if (result == ProbeResult.TIMEOUT && attempt < MAX_ATTEMPTS && !cancelled) {
+                    // Not from the selector thread, which must never block on the engine
+                    try {
+                        resolver.execute(() -> probe(server, address, port, attempt + 1));
+                    } catch (RejectedExecutionException e) {
+                        // Cancelled
+                    }
+                    return;
+                }
+                settle(server, result(result, status), status);
+            });
+        } catch (InterruptedException | IllegalStateException e) {
+            // Cancelled while waiting for a slot
+        }
+    }
+
+    private static Result result(ProbeResult result, ServerStatus status) {
+        if (status != null) {
+            return Result.UP;
+        }
+        return switch (result) {
+            case CLOSED, TIMEOUT -> Result.DOWN;
+            // Open without a status, or a local failure: says nothing about the server
+            case OPEN, UNREACHABLE -> Result.UNKNOWN;
+        };
+    }
+
+    private void settle(ServerInfo server, Result result, ServerStatus status) {
+        MinecraftClient.getInstance().execute(() -> {
+            if (finished) {
+                return;
+            }
+            results.put(server, result);
+            switch (result) {
+                case UP -> {
+                    up++;
+                    ServerScannerScreen.applyStatus(server, status);
+                    if (status.protocolVersion() != SharedConstants.getGameVersion().getProtocolVersion()) {
+                        server.setStatus(ServerInfo.Status.INCOMPATIBLE);
+                    }
+                }
+                case UNKNOWN -> {
+                    unknown++;
+                    server.setStatus(ServerInfo.Status.UNREACHABLE);
+                    server.label = Text.literal("Couldn't check, kept").formatted(Formatting.GRAY);
+                    server.ping = -1L;
+                    server.playerCountLabel = ScreenTexts.EMPTY;
+                }
+                case DOWN -> {
+                    down++;
+                    server.setStatus(ServerInfo.Status.UNREACHABLE);
+                    server.label = Text.translatable("multiplayer.status.cannot_connect").formatted(Formatting.DARK_RED);
+                    server.ping = -1L;
+                    server.playerCountLabel = ScreenTexts.EMPTY;
+                }
+                case SKIPPED -> server.setStatus(ServerInfo.Status.INITIAL);
+            }
+            onChange.accept(this);
+            if (results.size() == servers.size()) {
+                finish();
+            }
+        });
+    }
+
+    /**
+     * Stops pinging. Entries that haven't answered go back to the screen's own pinger.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (ServerInfo server : servers) {
+            if (!results.containsKey(server)) {
+                server.setStatus(ServerInfo.Status.INITIAL);
+            }
+        }
+        finish();
+    }
+
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        engine.close();
+        resolver.shutdownNow();
+        onFinish.accept(this);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int total() {
+        return servers.size();
+    }
+
+    public int settled() {
+        return results.size();
+    }
+
+    public int up() {
+        return up;
+    }
+
+    /**
+     * @return entries whose state couldn't be told, which pruning keeps
+     */
+    public int unknown() {
+        return unknown;
+    }
+
+    public int down() {
+        return down;
+    }
+
+    /**
+     * Removes dead entries from and/or sorts {@code list} (the live list of a {@code ServerList}) by the
+     * results of this refresh. Only entries that refused or timed out on every attempt count as dead.
+     * Sorting is stable: answering servers by ping, then unknown ones, then dead ones. Entries added
+     * since the refresh started keep their place after the rest.
+     *
+     * @return how many entries were removed
+     */
+    public int tidy(List<ServerInfo> list, Tidy tidy) {
+        int before = list.size();
+        if (tidy == Tidy.PRUNE || tidy == Tidy.PRUNE_AND_SORT) {
+            list.removeIf(server -> results.get(server) == Result.DOWN);
+        }
+        if (tidy == Tidy.SORT || tidy == Tidy.PRUNE_AND_SORT) {
+            List<ServerInfo> sorted = new ArrayList<>(list);
+            sorted.sort(Comparator.comparingInt(this::rank)
+                    .thenComparingLong(server -> results.get(server) == Result.UP ? server.ping : 0));
+            list.clear();
+            list.addAll(sorted);
+        }
+        return before - list.size();
+    }
+
+    private int rank(ServerInfo server) {
+        Result result = results.get(server);
+        if (result == null) {
+            return 3;
+        }
+        return switch (result) {
+            case UP -> 0;
+            case UNKNOWN, SKIPPED -> 1;
+            case DOWN -> 2;
+        };
+    }
+}
@@ -1,73 +1,137 @@
 package dev.jqve.serverscanner.screens;
 
-import dev.jqve.serverscanner.mixin.MultiplayerScreenInvoker;
+import dev.jqve.serverscanner.ServerScanner;
+import dev.jqve.serverscanner.scan.AimdController;
+import dev.jqve.serverscanner.scan.ExecutionMode;
+import dev.jqve.serverscanner.scan.HostDiscovery;
+import dev.jqve.serverscanner.scan.Ipv4;
+import dev.jqve.serverscanner.scan.LanListener;
+import dev.jqve.serverscanner.scan.PingProtocol;
+import dev.jqve.serverscanner.scan.PortSpec;
+import dev.jqve.serverscanner.scan.ProbeResult;
+import dev.jqve.serverscanner.scan.ProbeType;
+import dev.jqve.serverscanner.scan.ResultCache;
+import dev.jqve.serverscanner.scan.ResultFormat;
+import dev.jqve.serverscanner.scan.ResultReader;
+import dev.jqve.serverscanner.scan.ResultWriter;
+import dev.jqve.serverscanner.scan.ScanCheckpoint;
+import dev.jqve.serverscanner.scan.ScanProgress;
+import dev.jqve.serverscanner.scan.ScanMetrics;
+import dev.jqve.serverscanner.scan.ScanScheduler;
+import dev.jqve.serverscanner.scan.ScanSummary;
+import dev.jqve.serverscanner.scan.Scanner;
+import dev.jqve.serverscanner.scan.ServerStatus;
+import dev.jqve.serverscanner.scan.TargetSource;
+import dev.jqve.serverscanner.scan.TargetSpec;
+import dev.jqve.serverscanner.scan.TokenBucket;
+import dev.jqve.serverscanner.scan.ThroughputReport;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.gui.screen.Screen;
-import net.minecraft.client.gui.screen.multiplayer.MultiplayerScreen;
 import net.minecraft.client.gui.tooltip.Tooltip;
 import net.minecraft.client.gui.widget.ButtonWidget;
 import net.minecraft.client.gui.widget.TextFieldWidget;
 import net.minecraft.client.network.ServerInfo;
-import net.minecraft.client.option.ServerList;
+import net.minecraft.server.ServerMetadata;
 import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
 import java.net.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 /**
- * An updated ServerScannerScreen that includes scrolling if the buttons exceed
- * the visible rows (in this case, two). Scrolling is handled via mouse wheel.
+ * Scans a network for Minecraft servers. Results are listed in a {@link ScanResultListWidget} below
+ * the controls and can be added to the server list by clicking them.
  */
 public class ServerScannerScreen extends Screen {
     private static final Logger LOGGER = LogManager.getLogger(ServerScannerScreen.class);
 
     // Configuration constants
-    private static final int TIMEOUT_MS = 200;
+    // Timeout until the first RTTs are in; after that timeouts adapt between the min and max
+    private static final int INITIAL_TIMEOUT_MS = 200;
+    private static final int MIN_TIMEOUT_MS = 30;
+    private static final int MAX_TIMEOUT_MS = 2000;
+    // In-flight probes start at the initial window and adapt between min and MAX_IN_FLIGHT
+    private static final int MAX_IN_FLIGHT = 512;
+    private static final int INITIAL_WINDOW = 128;
+    private static final int MIN_WINDOW = 8;
     private static final int THREAD_POOL_SIZE = 50;
-    private static final int DEFAULT_MINECRAFT_PORT = 25565;
-    private static final int SCAN_RANGE_START = 1;
-    private static final int SCAN_RANGE_END = 254;
+    private static final String DEFAULT_PORTS = "25565";
+    // A single address expands to its interface's network, but never to more than a /16
+    private static final int MIN_AUTO_PREFIX_LENGTH = 16;
+    private static final int FALLBACK_PREFIX_LENGTH = 24;
+    private static final int MAX_RATE = 1_000_000;
+    private static final String CHECKPOINT_NAME = "network-scan";
+    // Checkpoint key: "<targets>:<ports> seed <n>", same as the command line's
+    private static final String CHECKPOINT_SEED = " seed ";
 
     // UI constants
     private static final int BUTTON_HEIGHT = 20;
-    private static final int BUTTON_SPACING = 4;
+    private static final int RESULT_CONTROLS_Y = 94;
     private static final int RESULTS_START_Y = 120;
+    private static final int RESULT_CELL_WIDTH = 180;
     private static final int TEXT_FIELD_WIDTH = 200;
-    private static final Pattern IP_PATTERN = Pattern.compile(
-            "^((25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)$"
-    );
+    private static final int TARGETS_MAX_LENGTH = 256;
+    private static final int IMPORT_QUEUE_CAPACITY = 8192;
+    // Spreads a large import over frames instead of freezing one
+    private static final int MAX_IMPORTS_PER_FRAME = 4096;
 
     private final Screen parent;
-    private final Set<ServerInfo> foundServers = Collections.synchronizedSet(new LinkedHashSet<>());
-    private final Queue<Runnable> uiUpdateQueue = new ConcurrentLinkedQueue<>();
-    private final List<ButtonWidget> serverButtons = new ArrayList<>();
+    // Only touched on the render thread; scan callbacks hand results over through pendingResults
+    private final ScanResultList results = new ScanResultList();
+    private final Queue<ServerInfo> pendingResults = new ConcurrentLinkedQueue<>();
+    // Addresses of cached entries that no longer answer
+    private final Queue<String> pendingStale = new ConcurrentLinkedQueue<>();
+    private final Queue<LanListener.Announcement> pendingLan = new ConcurrentLinkedQueue<>();
+    // Records read from result files; bounded, so the reader waits while the list catches up
+    private final BlockingQueue<ImportedRecord> pendingImported = new ArrayBlockingQueue<>(IMPORT_QUEUE_CAPACITY);
 
     private TextFieldWidget ipTextField;
+    private TextFieldWidget portsTextField;
+    private TextFieldWidget rateTextField;
+    private TextFieldWidget filterTextField;
+    private ButtonWidget addSelectedButton;
+    private ButtonWidget addAllButton;
+    private ButtonWidget importButton;
+    private boolean isImporting;
+    // Stops the import reader once the screen is closed
+    private volatile boolean importCancelled;
     private ButtonWidget scanButton;
+    private ButtonWidget resumeButton;
+    private ButtonWidget lanButton;
+    // Listens for worlds opened to LAN while the screen is open, unless turned off
+    private LanListener lanListener;
+    private boolean listenForLan = true;
     private Text statusText;
-    private ExecutorService executorService;
-    private ScheduledExecutorService uiUpdateExecutor;
-    private volatile boolean isScanning;
+    private ScanScheduler scanScheduler;
+    // Finds the live hosts first when many ports are scanned per host
+    private HostDiscovery hostDiscovery;
+    private long shownLiveHosts = -1;
+    private ScanCheckpoint scanCheckpoint;
+    // Whether an interrupted scan can be resumed; checked on init instead of every frame
+    private boolean hasCheckpoint;
+    // Keeps showing the last scan's numbers after it ends
+    private final ScanMetricsOverlay metricsOverlay = new ScanMetricsOverlay();
+    // Published by the probe callbacks, read once per frame while scanning
+    private ScanProgress scanProgress;
+    private AimdController congestion;
+    private long shownSettled = -1;
+    private ExecutionMode executionMode = ExecutionMode.SELECTOR;
+    private ButtonWidget modeButton;
+    private boolean isScanning;
     private String savedIpText = "";
-
-    // Layout-related fields
-    private int buttonsPerRow;
-    private int dynamicButtonWidth;
-
-    // We'll cap the visible rows at 2 for demonstration, then let the rest scroll.
-    private static final int MAX_VISIBLE_ROWS = 2;
-
-    // We'll store the total row count, plus a scroll offset to allow viewing off-screen buttons.
-    private int totalRows;
-    private int scrollOffset = 0;
-    private final int scrollSpeed = 10; // Adjust scroll speed as needed
+    private String savedPortsText = "";
+    private String savedRateText = "";
 
     public ServerScannerScreen(Screen parent) {
         super(Text.literal("Minecraft Server Scanner"));
@@ -77,33 +141,20 @@ public class ServerScannerScreen extends Screen {
     @Override
     protected void init() {
         saveCurrentState();
-        calculateLayoutMetrics();
         initializeTextFields();
         initializeButtons();
+        initializeResultControls();
+        initializeResultList();
         restoreState();
-        startUiUpdateThread();
-    }
-
-    /**
-     * Dynamically calculates how many buttons fit in one row and the button width,
-     * but caps the visible rows to MAX_VISIBLE_ROWS. If more servers occupy more rows,
-     * we'll allow scrolling to see them.
-     */
-    private void calculateLayoutMetrics() {
-        int totalWidth = this.width - 40; // 20px padding on each side
-        if (totalWidth < 1) totalWidth = 1;
-        // Estimate how many buttons can fit using around 180px each + spacing
-        int approximateButtonWidth = 180;
-        buttonsPerRow = Math.max(1, totalWidth / (approximateButtonWidth + BUTTON_SPACING));
-
-        // Now compute how many total "slots" we have per row for that arrangement
-        int spaceForButtons = totalWidth - (BUTTON_SPACING * (buttonsPerRow - 1));
-        dynamicButtonWidth = Math.max(50, spaceForButtons / buttonsPerRow);
+        // After restoreState, so a failure stays on the status line
+        updateLanListener();
     }
 
     private void saveCurrentState() {
         if (this.ipTextField != null) {
             savedIpText = this.ipTextField.getText();
+            savedPortsText = this.portsTextField.getText();
+            savedRateText = this.rateTextField.getText();
         }
     }
 
@@ -114,49 +165,100 @@ public class ServerScannerScreen extends Screen {
                 20,
                 TEXT_FIELD_WIDTH,
                 BUTTON_HEIGHT,
-                Text.literal("IP Address")
+                Text.literal("Targets")
         );
-        this.ipTextField.setMaxLength(15);
-        this.ipTextField.setTooltip(Tooltip.of(Text.literal("Enter IP address (e.g., 192.168.1.1)")));
+        this.ipTextField.setMaxLength(TARGETS_MAX_LENGTH);
+        this.ipTextField.setTooltip(Tooltip.of(Text.literal(
+                "An IP address scans its whole network. Also accepts CIDR blocks and ranges, comma separated "
+                        + "(e.g., 10.0.0.0/16, 192.168.1.10-50)")));
         this.addDrawableChild(ipTextField);
+
+        this.portsTextField = new TextFieldWidget(
+                this.textRenderer,
+                this.width / 2 - 204,
+                20,
+                100,
+                BUTTON_HEIGHT,
+                Text.literal("Ports")
+        );
+        this.portsTextField.setMaxLength(128);
+        this.portsTextField.setPlaceholder(Text.literal(DEFAULT_PORTS));
+        this.portsTextField.setTooltip(Tooltip.of(Text.literal(
+                "Ports to check on every address, comma separated ports and ranges (e.g., 25565,25566-25570). "
+                        + "All ports are probed together, in one random order.")));
+        this.addDrawableChild(portsTextField);
+
+        this.rateTextField = new TextFieldWidget(
+                this.textRenderer,
+                this.width / 2 - 204,
+                50,
+                100,
+                BUTTON_HEIGHT,
+                Text.literal("Rate")
+        );
+        this.rateTextField.setMaxLength(7);
+        this.rateTextField.setPlaceholder(Text.literal("Unlimited pps"));
+        this.rateTextField.setTooltip(Tooltip.of(Text.literal(
+                "Maximum probes per second, spread evenly. Lower it if a router or firewall drops probes. "
+                        + "Can be changed during a scan; empty means unlimited.")));
+        // Applies to a running scan straight away
+        this.rateTextField.setChangedListener(text -> {
+            int rate = parseRate(text);
+            if (rate >= 0 && scanScheduler != null) {
+                scanScheduler.pacer().setRate(rate, TokenBucket.defaultBurst(rate));
+            }
+            if (rate >= 0 && hostDiscovery != null) {
+                hostDiscovery.scheduler().pacer().setRate(rate, TokenBucket.defaultBurst(rate));
+            }
+        });
+        this.addDrawableChild(rateTextField);
+    }
+
+    /**
+     * @return probes per second, 0 for unlimited, or -1 if the text isn't a valid rate
+     */
+    private static int parseRate(String text) {
+        if (text.isBlank()) {
+            return 0;
+        }
+        try {
+            int rate = Integer.parseInt(text.trim());
+            return rate >= 0 && rate <= MAX_RATE ? rate : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Works out what to scan from the text field. A single address is widened to the network of the
+     * local interface that owns it (using the interface's real prefix length), or to its /24 if it
+     * isn't local. Anything else is parsed as a {@link TargetSpec}.
+     */
+    private TargetSpec resolveTargets(String input) {
+        if (input.indexOf(',') >= 0 || input.indexOf('/') >= 0 || input.indexOf('-') >= 0) {
+            return TargetSpec.parse(input);
+        }
+        int address = Ipv4.parse(input);
+        return TargetSpec.cidr(address, getNetworkPrefixLength(input));
     }
 
-    private String getNetworkAddress(String ip) {
+    private int getNetworkPrefixLength(String ip) {
         try {
             InetAddress addr = InetAddress.getByName(ip);
             NetworkInterface networkInterface = NetworkInterface.getByInetAddress(addr);
 
             if (networkInterface != null) {
                 for (InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
-                    if (interfaceAddress.getAddress() instanceof Inet4Address) {
-                        int prefix = interfaceAddress.getNetworkPrefixLength();
-                        byte[] bytes = addr.getAddress();
-                        int mask = 0xffffffff << (32 - prefix);
-
-                        int network = ((bytes[0] & 0xff) << 24) |
-                                ((bytes[1] & 0xff) << 16) |
-                                ((bytes[2] & 0xff) << 8) |
-                                (bytes[3] & 0xff);
-                        network &= mask;
-                        return String.format("%d.%d.%d.",
-                                (network >>> 24) & 0xff,
-                                (network >>> 16) & 0xff,
-                                (network >>> 8) & 0xff);
+                    if (interfaceAddress.getAddress().equals(addr)) {
+                        return Math.max(MIN_AUTO_PREFIX_LENGTH, interfaceAddress.getNetworkPrefixLength());
                     }
                 }
             }
         } catch (Exception e) {
             LOGGER.error("Error determining network address", e);
         }
-        // Fallback: remove last octet
-        return ip.substring(0, ip.lastIndexOf('.') + 1);
-    }
-
-    private void clearServerButtons() {
-        for (ButtonWidget button : serverButtons) {
-            this.remove(button);
-        }
-        serverButtons.clear();
+        // Fallback: scan the surrounding /24
+        return FALLBACK_PREFIX_LENGTH;
     }
 
     private void initializeButtons() {
@@ -171,30 +273,102 @@ public class ServerScannerScreen extends Screen {
                 .position(5, 5)
                 .build();
 
+        this.modeButton = ButtonWidget.builder(modeButtonText(), button -> {
+                    executionMode = executionMode.next();
+                    button.setMessage(modeButtonText());
+                })
+                .width(100)
+                .position(this.width / 2 + 104, 50)
+                .tooltip(Tooltip.of(Text.literal("How probes are executed. Run the same scan in several modes to compare throughput.")))
+                .build();
+        this.modeButton.active = !isScanning;
+
         this.addDrawableChild(scanButton);
+        this.addDrawableChild(modeButton);
         this.addDrawableChild(backButton);
+
+        ButtonWidget metricsButton = ButtonWidget.builder(Text.literal("Metrics"), button -> metricsOverlay.toggle())
+                .width(50)
+                .position(this.width - 55, 5)
+                .tooltip(Tooltip.of(Text.literal("Show live probe rate, result counts and RTTs. A summary of every scan is saved to server-scanner/metrics.")))
+                .build();
+        this.addDrawableChild(metricsButton);
+
+        this.resumeButton = ButtonWidget.builder(Text.literal("Resume"), button -> resumeScanning())
+                .width(100)
+                .position(this.width / 2 + 104, 20)
+                .tooltip(Tooltip.of(Text.literal("Continue the last interrupted scan without probing what it already covered")))
+                .build();
+        this.hasCheckpoint = Files.exists(ServerScanner.checkpointFile(CHECKPOINT_NAME));
+        this.addDrawableChild(resumeButton);
+
+        this.lanButton = ButtonWidget.builder(lanButtonText(), button -> {
+                    listenForLan = !listenForLan;
+                    updateLanListener();
+                    button.setMessage(lanButtonText());
+                })
+                .width(60)
+                .position(this.width - 120, 5)
+                .tooltip(Tooltip.of(Text.literal("List worlds opened to LAN as soon as they announce themselves, without sending any probes")))
+                .build();
+        this.addDrawableChild(lanButton);
     }
 
-    private void restoreState() {
-        statusText = Text.literal("");
-        this.ipTextField.setText(savedIpText.isEmpty() ? "192.168.1.1" : savedIpText);
+    private Text lanButtonText() {
+        return Text.literal(listenForLan ? "LAN: On" : "LAN: Off");
     }
 
-    private void startUiUpdateThread() {
-        uiUpdateExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread thread = new Thread(r, "UI-Update-Thread");
-            thread.setDaemon(true);
-            return thread;
-        });
+    private void updateLanListener() {
+        if (!listenForLan) {
+            closeLanListener();
+            return;
+        }
+        if (lanListener != null) {
+            return;
+        }
+        try {
+            lanListener = LanListener.start(pendingLan::add, "Server-Scanner-Lan");
+        } catch (IOException e) {
+            LOGGER.warn("Could not listen for LAN worlds", e);
+            listenForLan = false;
+            lanButton.setMessage(lanButtonText());
+            statusText = Text.literal("§cCould not listen for LAN worlds: " + e.getMessage());
+        }
+    }
 
-        uiUpdateExecutor.scheduleAtFixedRate(() -> {
-            while (!uiUpdateQueue.isEmpty()) {
-                Runnable update = uiUpdateQueue.poll();
-                if (update != null) {
-                    MinecraftClient.getInstance().execute(update);
-                }
-            }
-        }, 0, 50, TimeUnit.MILLISECONDS);
+    private void closeLanListener() {
+        if (lanListener != null) {
+            lanListener.close();
+            lanListener = null;
+        }
+        pendingLan.clear();
+    }
+
+    /**
+     * The list widget reads straight from {@link #results}, so re-creating it on resize keeps
+     * every result without rebuilding anything per entry.
+     */
+    private void initializeResultList() {
+        this.addDrawableChild(new ScanResultListWidget(
+                20,
+                RESULTS_START_Y,
+                this.width - 40,
+                Math.max(BUTTON_HEIGHT, this.height - RESULTS_START_Y - 10),
+                RESULT_CELL_WIDTH,
+                results,
+                ServerScannerScreen::serverTooltip
+        ));
+    }
+
+    private Text modeButtonText() {
+        return Text.literal(executionMode.displayName());
+    }
+
+    private void restoreState() {
+        statusText = Text.literal("");
+        this.ipTextField.setText(savedIpText.isEmpty() ? "192.168.1.1" : savedIpText);
+        this.portsTextField.setText(savedPortsText.isEmpty() ? DEFAULT_PORTS : savedPortsText);
+        this.rateTextField.setText(savedRateText);
     }
 
     private void handleScanButton(ButtonWidget button) {
@@ -206,203 +380,511 @@ public class ServerScannerScreen extends Screen {
     }
 
     private void startScanning() {
-        String ip = ipTextField.getText().trim();
-        if (!validateInput(ip)) {
+        TargetSpec targets = validateInput(ipTextField.getText().trim());
+        if (targets == null) {
             return;
         }
+        PortSpec ports;
+        try {
+            ports = PortSpec.parse(portsTextField.getText().isBlank() ? DEFAULT_PORTS : portsTextField.getText());
+        } catch (IllegalArgumentException e) {
+            statusText = Text.literal("§c" + e.getMessage());
+            return;
+        }
+        if (targets.size() * ports.size() > ScanCheckpoint.MAX_TARGETS) {
+            statusText = Text.literal("§cToo many addresses and ports for one scan");
+            return;
+        }
+        // A fresh random order per scan; the checkpoint key keeps it for resuming
+        beginScan(targets, ports, ThreadLocalRandom.current().nextLong(), null);
+    }
 
-        String networkIp = getNetworkAddress(ip);
-        isScanning = true;
-        foundServers.clear();
-        clearServerButtons();
+    private static ScanCheckpoint newCheckpoint(TargetSpec targets, PortSpec ports, long seed) {
+        return ScanCheckpoint.create(ServerScanner.checkpointFile(CHECKPOINT_NAME),
+                targets + ":" + ports + CHECKPOINT_SEED + seed, targets.size() * ports.size());
+    }
 
-        queueUiUpdate(() -> {
-            scanButton.setMessage(Text.literal("Stop Scanning"));
-            updateServerList();
-        });
+    /**
+     * Picks up the scan saved when the last one was stopped, with the targets it was started with.
+     */
+    private void resumeScanning() {
+        Path file = ServerScanner.checkpointFile(CHECKPOINT_NAME);
+        ScanCheckpoint checkpoint;
+        TargetSpec targets;
+        PortSpec ports;
+        long seed;
+        try {
+            checkpoint = ScanCheckpoint.load(file);
+            String key = checkpoint.scanKey();
+            int split = key.lastIndexOf(CHECKPOINT_SEED);
+            if (split < 0) {
+                throw new IllegalArgumentException("No seed in checkpoint key: " + key);
+            }
+            // Keys from before port sets lack the ports and scanned the default port only
+            String scanned = key.substring(0, split);
+            int colon = scanned.lastIndexOf(':');
+            targets = TargetSpec.parse(colon < 0 ? scanned : scanned.substring(0, colon));
+            ports = PortSpec.parse(colon < 0 ? DEFAULT_PORTS : scanned.substring(colon + 1));
+            seed = Long.parseLong(key.substring(split + CHECKPOINT_SEED.length()));
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Could not read scan checkpoint {}", file, e);
+            statusText = Text.literal("§cThe saved scan could not be read");
+            return;
+        }
+        // A scan that started with host discovery saved only the live hosts, which may not fit
+        if (targets.toString().length() <= TARGETS_MAX_LENGTH) {
+            ipTextField.setText(targets.toString());
+        }
+        portsTextField.setText(ports.toString());
+        beginScan(targets, ports, seed, checkpoint);
+    }
 
-        executorService = Executors.newFixedThreadPool(THREAD_POOL_SIZE, r -> {
-            Thread thread = new Thread(r, "Server-Scanner-Thread");
-            thread.setDaemon(true);
-            return thread;
-        });
+    /**
+     * @param checkpoint checkpoint of an interrupted scan to resume, or {@code null} to start a new one
+     */
+    private void beginScan(TargetSpec targets, PortSpec ports, long seed, ScanCheckpoint checkpoint) {
+        int rate = parseRate(rateTextField.getText());
+        if (rate < 0) {
+            statusText = Text.literal("§cRate must be between 0 and " + MAX_RATE + " probes per second");
+            return;
+        }
+
+        isScanning = true;
+        results.clear();
+        pendingResults.clear();
+        pendingStale.clear();
+        scanButton.setMessage(Text.literal("Stop Scanning"));
+        modeButton.active = false;
+
+        if (checkpoint != null) {
+            scanNetwork(targets, ports, seed, rate, checkpoint);
+        } else if (HostDiscovery.isWorthwhile(ports.size()) && targets.size() <= HostDiscovery.MAX_HOSTS) {
+            discoverHosts(targets, ports, seed, rate);
+        } else {
+            scanNetwork(targets, ports, seed, rate, newCheckpoint(targets, ports, seed));
+        }
+    }
 
-        scanNetwork(networkIp);
+    /**
+     * Sends each address a few probes to common ports first, so only hosts that are up get every port
+     * probed. The checkpoint then holds just the live hosts, and resuming skips this step.
+     */
+    private void discoverHosts(TargetSpec targets, PortSpec ports, long seed, int rate) {
+        HostDiscovery discovery = HostDiscovery.start(targets, executionMode, rate, "Server-Scanner-Discovery");
+        hostDiscovery = discovery;
+        shownLiveHosts = -1;
+        discovery.result().thenAccept(live -> MinecraftClient.getInstance().execute(() -> {
+            // A stopped or superseded scan has already reset the UI
+            if (hostDiscovery != discovery) {
+                return;
+            }
+            hostDiscovery = null;
+            LOGGER.info("{} of {} addresses in {} are up", live.size(), targets.size(), targets);
+            if (live.size() == 0) {
+                isScanning = false;
+                scanButton.setMessage(Text.literal("Scan Network"));
+                modeButton.active = true;
+                statusText = Text.literal("§cNone of the " + targets.size() + " addresses answered");
+                return;
+            }
+            scanNetwork(live, ports, seed, rate, newCheckpoint(live, ports, seed));
+        }));
     }
 
     private void stopScanning() {
-        if (executorService != null) {
-            executorService.shutdownNow();
-            executorService = null;
-        }
+        releaseScheduler();
         isScanning = false;
-
-        queueUiUpdate(() -> {
-            scanButton.setMessage(Text.literal("Scan Network"));
-            statusText = Text.literal("§cScanning stopped");
-        });
+        scanButton.setMessage(Text.literal("Scan Network"));
+        modeButton.active = true;
+        // Stopping saves the checkpoint, so the scan can be resumed from here
+        hasCheckpoint = Files.exists(ServerScanner.checkpointFile(CHECKPOINT_NAME));
+        statusText = Text.literal("§cScanning stopped" + (hasCheckpoint ? ", progress saved" : ""));
     }
 
-    private boolean validateInput(String ip) {
-        if (!IP_PATTERN.matcher(ip).matches()) {
-            setStatusText("§cInvalid IP address format");
-            return false;
+    private void releaseScheduler() {
+        if (hostDiscovery != null) {
+            hostDiscovery.stop();
+            hostDiscovery = null;
         }
-        return true;
+        if (scanScheduler != null) {
+            scanScheduler.stop();
+            metricsOverlay.detach();
+            scanScheduler = null;
+        }
+        if (scanCheckpoint != null && scanCheckpoint.lastSaveError() != null) {
+            LOGGER.warn("Could not save scan checkpoint", scanCheckpoint.lastSaveError());
+        }
+        drainPendingResults();
+        scanCheckpoint = null;
+        scanProgress = null;
+        congestion = null;
     }
 
-    private void scanNetwork(String baseIp) {
-        AtomicInteger processedIps = new AtomicInteger(0);
-        int totalIps = SCAN_RANGE_END - SCAN_RANGE_START + 1;
+    private TargetSpec validateInput(String input) {
+        try {
+            return resolveTargets(input);
+        } catch (IllegalArgumentException e) {
+            statusText = Text.literal("§c" + e.getMessage());
+            return null;
+        }
+    }
 
-        CompletableFuture<Void> scanTask = CompletableFuture.runAsync(() -> {
-            for (int i = SCAN_RANGE_START; i <= SCAN_RANGE_END && isScanning; i++) {
-                final String ip = baseIp + i;
-                final int currentNumber = i;
+    private void scanNetwork(TargetSpec targets, PortSpec ports, long seed, int rate, ScanCheckpoint checkpoint) {
+        AtomicInteger serverNumber = new AtomicInteger(0);
+        // Every address/port pair is a target of its own
+        TargetSource source = TargetSource.hosts(targets, ports);
+        ScanProgress progress = new ScanProgress(source.size());
+        // Servers found before a resume are replayed through the listener; the rest is just counted
+        progress.recordSkipped(checkpoint.completedTargets() - checkpoint.completedHits());
+        ExecutionMode mode = executionMode;
+        String targetKey = targets + ":" + ports;
+        // Every server found is also streamed to server-scanner/results for other tools
+        ResultWriter resultWriter = openResultWriter();
+
+        // Servers seen recently are listed straight away and re-checked by the scan
+        ResultCache cache = ServerScanner.resultCache();
+        Set<Long> cachedHits = ConcurrentHashMap.newKeySet();
+        cache.forEachFresh(ProbeResult.OPEN, (address, port, rttNanos, statusHash, updatedMillis) -> {
+            if (statusHash != 0 && ports.contains(port) && targets.contains(address)) {
+                cachedHits.add(TargetSource.pack(address, port));
+                results.add(cachedServer(address, port, rttNanos, updatedMillis));
+            }
+        });
 
-                CompletableFuture.runAsync(() -> {
-                    try {
-                        if (isPortOpen(ip)) {
-                            ServerInfo server = new ServerInfo(
-                                    "Server #" + currentNumber,
-                                    ip + ":" + DEFAULT_MINECRAFT_PORT,
-                                    ServerInfo.ServerType.LAN
-                            );
-                            foundServers.add(server);
-                            LOGGER.info("Found server at {}", ip);
-                            queueUiUpdate(this::updateServerList);
+        // Targets are generated on the fly in a random order, so even a /16 never exists as a list
+        // and load is spread over the whole network rather than one segment at a time. Extra ports
+        // share the same window instead of running one sweep per port.
+        ScanScheduler scheduler = Scanner.builder()
+                .targets(TargetSource.permuted(source, seed))
+                .probeType(ProbeType.STATUS)
+                .executionMode(mode)
+                .concurrency(MAX_IN_FLIGHT, INITIAL_WINDOW, MIN_WINDOW)
+                .poolSize(THREAD_POOL_SIZE)
+                .timeouts(INITIAL_TIMEOUT_MS, MIN_TIMEOUT_MS, MAX_TIMEOUT_MS)
+                .rateLimit(rate)
+                .cache(cache)
+                .checkpoint(checkpoint)
+                .threadName("Server-Scanner")
+                .start((address, port, result, rttNanos, status) -> {
+                    boolean wasCached = cachedHits.remove(TargetSource.pack(address, port));
+                    if (status == null && wasCached) {
+                        pendingStale.add(Ipv4.format(address) + ":" + port);
+                    }
+                    // An open port only counts once it has answered the status handshake
+                    if (status != null) {
+                        String ip = Ipv4.format(address);
+                        ServerInfo server = new ServerInfo(
+                                "Server #" + serverNumber.incrementAndGet(),
+                                ip + ":" + port,
+                                ServerInfo.ServerType.LAN
+                        );
+                        applyStatus(server, status);
+                        LOGGER.info("Found server at {}:{} ({}, {}ms)", ip, port, status.versionName(), status.pingMillis());
+                        pendingResults.add(server);
+                        if (resultWriter != null) {
+                            resultWriter.write(address, port, rttNanos, status);
                         }
-                    } finally {
-                        int processed = processedIps.incrementAndGet();
-                        updateProgress(processed, totalIps);
                     }
-                }, executorService);
+                    progress.recordSettled(status != null);
+                });
+        // Fires once the last probe has settled, retries included
+        scheduler.onComplete(completion -> {
+            closeResultWriter(resultWriter);
+            ScanMetrics.Snapshot metrics = scheduler.metrics().snapshot();
+            ServerScanner.writeScanSummary(new ScanSummary(targetKey, mode, completion, metrics));
+            if (completion.stopped()) {
+                return;
             }
-        }, executorService);
-
-        scanTask.whenComplete((result, exception) -> {
-            if (exception != null) {
-                LOGGER.error("Error during scanning", exception);
-                setStatusText("§cError during scanning");
-            }
-            completeScan();
+            // Probes actually sent: cached and checkpointed targets would inflate a repeat run
+            String throughput = ThroughputReport.record(targetKey, mode, metrics.probes(), completion.elapsedNanos());
+            LOGGER.info("Scan of {} in {} mode: {}", targetKey, mode.displayName(), throughput);
+            completeScan(scheduler, throughput);
         });
+        scanScheduler = scheduler;
+        scanCheckpoint = checkpoint;
+        metricsOverlay.attach(scheduler);
+        scanProgress = progress;
+        congestion = scheduler.congestion();
+        shownSettled = -1;
     }
 
-    private boolean isPortOpen(String ip) {
-        try (Socket socket = new Socket()) {
-            socket.connect(new InetSocketAddress(ip, DEFAULT_MINECRAFT_PORT), TIMEOUT_MS);
-            return true;
+    private static ResultWriter openResultWriter() {
+        Path file = ServerScanner.resultsFile(ResultFormat.NDJSON);
+        try {
+            return ResultWriter.open(file, ResultFormat.NDJSON);
         } catch (IOException e) {
-            return false;
+            LOGGER.warn("Could not create results file {}", file, e);
+            return null;
         }
     }
 
-    private void updateProgress(int processed, int total) {
-        float progress = (float) processed / total * 100;
-        setStatusText(String.format("§eScanning: %.1f%% (%d/%d)", progress, processed, total));
+    private static void closeResultWriter(ResultWriter resultWriter) {
+        if (resultWriter == null) {
+            return;
+        }
+        try {
+            resultWriter.close();
+            LOGGER.info("{} results written to {}", resultWriter.count(), resultWriter.file());
+        } catch (IOException e) {
+            LOGGER.warn("Could not write results to {}", resultWriter.file(), e);
+        }
     }
 
-    private void completeScan() {
-        if (!isScanning) return;
-
-        queueUiUpdate(() -> {
-            isScanning = false;
-            scanButton.setMessage(Text.literal("Scan Network"));
-            statusText = Text.literal("§aScanning completed! Found " + foundServers.size() + " servers");
-            updateServerList();
-        });
+    /**
+     * Placeholder for a server the cache remembers, shown until the scan reaches it again.
+     */
+    private static ServerInfo cachedServer(int address, int port, long rttNanos, long updatedMillis) {
+        String ip = Ipv4.format(address);
+        ServerInfo server = new ServerInfo(ip + " (cached)", ip + ":" + port, ServerInfo.ServerType.LAN);
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis() - updatedMillis);
+        server.label = Text.literal("Seen " + minutes + " min ago, checking...").formatted(Formatting.GRAY);
+        server.ping = TimeUnit.NANOSECONDS.toMillis(rttNanos);
+        server.playerCountLabel = Text.literal("?").formatted(Formatting.GRAY);
+        return server;
     }
 
     /**
-     * Updates the server buttons. We calculate the totalRows, then place the buttons.
-     * If the totalRows exceeds MAX_VISIBLE_ROWS, we let the user scroll using the mouse wheel.
+     * Copies a status response into the fields the multiplayer screen renders, so the entry shows its
+     * MOTD, version and player count as soon as it is added.
      */
-    private void updateServerList() {
-        clearServerButtons();
-        if (foundServers.isEmpty()) return;
+    static void applyStatus(ServerInfo server, ServerStatus status) {
+        server.label = Text.literal(status.motd());
+        server.version = Text.literal(status.versionName());
+        if (status.protocol() != PingProtocol.MODERN) {
+            // Only answered the pre-1.7 ping, so the client can't join it anyway
+            server.version = server.version.copy().append(Text.literal(" (legacy)").formatted(Formatting.DARK_GRAY));
+        }
+        server.protocolVersion = status.protocolVersion();
+        server.ping = status.pingMillis();
+        server.players = new ServerMetadata.Players(status.maxPlayers(), status.onlinePlayers(), List.of());
+        server.playerCountLabel = Text.literal(Integer.toString(status.onlinePlayers()))
+                .append(Text.literal("/").formatted(Formatting.DARK_GRAY))
+                .append(Integer.toString(status.maxPlayers()))
+                .formatted(Formatting.GRAY);
+        server.setStatus(ServerInfo.Status.SUCCESSFUL);
+    }
 
-        // Calculate total rows needed for all servers
-        int serverCount = foundServers.size();
-        totalRows = (int) Math.ceil((double) serverCount / buttonsPerRow);
+    /**
+     * Called once per frame: moves results found since the last frame into the list and refreshes
+     * the progress line, but only formats it when something has actually settled.
+     */
+    private void publishProgress() {
+        drainPendingResults();
+        if (hostDiscovery != null && hostDiscovery.liveHosts() != shownLiveHosts) {
+            shownLiveHosts = hostDiscovery.liveHosts();
+            statusText = Text.literal("§eFinding live hosts: " + shownLiveHosts + " up so far");
+        }
+        if (scanProgress == null) {
+            return;
+        }
+        ScanProgress.Snapshot snapshot = scanProgress.snapshot();
+        if (snapshot.settled() == shownSettled) {
+            return;
+        }
+        shownSettled = snapshot.settled();
+        statusText = Text.literal(String.format("§eScanning: %.1f%% (%d/%d) | window %d, loss %.1f%%",
+                snapshot.percent(), snapshot.settled(), snapshot.total(), congestion.window(), congestion.lossRate() * 100));
+    }
 
-        // The actual loop to create buttons
-        int idx = 0;
-        int buttonYStart = RESULTS_START_Y - scrollOffset; // offset by scroll
-        for (ServerInfo server : foundServers) {
-            // compute row, col
-            int row = idx / buttonsPerRow;
-            int col = idx % buttonsPerRow;
-            // the Y position is offset by the scrollOffset
-            int buttonY = buttonYStart + row * (BUTTON_HEIGHT + BUTTON_SPACING);
-            int buttonX = 20 + col * (dynamicButtonWidth + BUTTON_SPACING);
+    private void drainPendingResults() {
+        ServerInfo server;
+        while ((server = pendingResults.poll()) != null) {
+            results.add(server);
+        }
+        String address;
+        while ((address = pendingStale.poll()) != null) {
+            results.remove(address);
+        }
+        ImportedRecord imported;
+        for (int i = 0; i < MAX_IMPORTS_PER_FRAME && (imported = pendingImported.poll()) != null; i++) {
+            results.addImported(imported.address(), imported.port(), imported.rttNanos(), imported.status());
+        }
+        // Worlds announce themselves every 1.5 seconds; a scanned entry has more to show, so it stays
+        LanListener.Announcement announcement;
+        while ((announcement = pendingLan.poll()) != null) {
+            String lanAddress = Ipv4.format(announcement.address()) + ":" + announcement.port();
+            if (!results.contains(lanAddress)) {
+                results.add(lanServer(announcement.motd(), lanAddress));
+            }
+        }
+    }
 
-            ButtonWidget button = ButtonWidget.builder(Text.literal(server.name), (btn) -> addServerToList(server))
-                    .width(dynamicButtonWidth)
-                    .position(buttonX, buttonY)
-                    .build();
+    /**
+     * Entry for an announced LAN world, which only tells its MOTD and address.
+     */
+    private static ServerInfo lanServer(String motd, String address) {
+        ServerInfo server = new ServerInfo(motd, address, ServerInfo.ServerType.LAN);
+        server.label = Text.literal(motd).append(Text.literal(" (LAN world)").formatted(Formatting.GRAY));
+        server.playerCountLabel = Text.literal("?").formatted(Formatting.GRAY);
+        return server;
+    }
 
-            this.serverButtons.add(button);
-            this.addDrawableChild(button);
+    private void completeScan(ScanScheduler scheduler, String throughput) {
+        MinecraftClient.getInstance().execute(() -> {
+            // A stopped or superseded scan has already reset the UI
+            if (scanScheduler != scheduler) return;
+            isScanning = false;
+            releaseScheduler();
+            // A finished scan deletes its checkpoint
+            hasCheckpoint = false;
+            scanButton.setMessage(Text.literal("Scan Network"));
+            modeButton.active = true;
+            statusText = Text.literal("§aScanning completed! Found " + results.size() + " servers (" + throughput + ")");
+        });
+    }
 
-            idx++;
-        }
+    private static List<Text> serverTooltip(ServerInfo server) {
+        return List.of(
+                Text.literal(server.address + " - " + server.ping + "ms"),
+                server.label,
+                server.version.copy().formatted(Formatting.GRAY)
+                        .append(Text.literal("  "))
+                        .append(server.playerCountLabel)
+        );
     }
 
-    private void addServerToList(ServerInfo server) {
-        MinecraftClient client = MinecraftClient.getInstance();
-        MultiplayerScreen multiplayerScreen = new MultiplayerScreen(this);
-        multiplayerScreen.init(client, this.width, this.height);
+    /**
+     * Filter field plus the batch import buttons. "Add all" imports whatever the filter currently shows.
+     */
+    private void initializeResultControls() {
+        int left = this.width / 2 - 179;
+        this.filterTextField = new TextFieldWidget(this.textRenderer, left, RESULT_CONTROLS_Y, 96, BUTTON_HEIGHT, Text.literal("Filter"));
+        this.filterTextField.setPlaceholder(Text.literal("Filter results"));
+        this.filterTextField.setText(results.filterText());
+        this.filterTextField.setChangedListener(text -> {
+            results.setFilter(text);
+            addAllButton.setMessage(addAllButtonText());
+        });
+        this.addDrawableChild(filterTextField);
 
-        ServerList serverList = new ServerList(client);
-        serverList.loadFile();
+        this.importButton = ButtonWidget.builder(Text.literal("Import"), button -> importResultFiles())
+                .width(50)
+                .position(left + 100, RESULT_CONTROLS_Y)
+                .tooltip(Tooltip.of(Text.literal("List the results saved in server-scanner/import (.ndjson or .msr files, "
+                        + "e.g. from the command line scanner or another machine). Every scan saves its servers to server-scanner/results.")))
+                .build();
+        this.addDrawableChild(importButton);
 
-        MultiplayerScreenInvoker invoker = (MultiplayerScreenInvoker) multiplayerScreen;
-        invoker.setServerList(serverList);
-        invoker.setSelectedEntry(server);
-        invoker.invokeAddEntry(true);
+        this.addSelectedButton = ButtonWidget.builder(Text.literal("Add selected"), button -> importServers(results.selected()))
+                .width(100)
+                .position(left + 154, RESULT_CONTROLS_Y)
+                .tooltip(Tooltip.of(Text.literal("Click results to select them, then add them to the server list in one go")))
+                .build();
+        this.addDrawableChild(addSelectedButton);
 
-        client.setScreen(this);
-        foundServers.remove(server);
-        updateServerList();
+        this.addAllButton = ButtonWidget.builder(addAllButtonText(), button -> importServers(results.visible()))
+                .width(100)
+                .position(left + 258, RESULT_CONTROLS_Y)
+                .build();
+        this.addDrawableChild(addAllButton);
     }
 
-    private void queueUiUpdate(Runnable update) {
-        uiUpdateQueue.offer(update);
+    private Text addAllButtonText() {
+        return Text.literal(results.isFiltered() ? "Add filtered" : "Add all");
     }
 
-    private void setStatusText(String message) {
-        queueUiUpdate(() -> statusText = Text.literal(message));
+    /**
+     * Adds the given results to the server list with a single load and save, then drops them from
+     * the results.
+     */
+    private void importServers(List<ServerInfo> servers) {
+        if (servers.isEmpty()) {
+            return;
+        }
+        List<ServerInfo> batch = List.copyOf(servers);
+        int added = ServerListImporter.addAll(batch);
+        results.removeAll(batch);
+        int skipped = batch.size() - added;
+        statusText = Text.literal("§aAdded " + added + " servers to the server list"
+                + (skipped > 0 ? " (" + skipped + " already listed)" : ""));
     }
 
     /**
-     * We override mouseScrolled to allow vertical scrolling if total rows exceed MAX_VISIBLE_ROWS.
+     * Lists the results of every file in {@code server-scanner/import}. Files are streamed on a background
+     * thread through a bounded queue, a batch per frame, into the packed store of {@link ScanResultList},
+     * so even a file of hundreds of thousands of results is never loaded as a whole.
      */
+    private void importResultFiles() {
+        Path directory = ServerScanner.importDirectory();
+        List<Path> files;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(file -> ResultFormat.of(file) != null).sorted().toList();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not list result files in {}", directory, e);
+            statusText = Text.literal("§cCould not read server-scanner/import");
+            return;
+        }
+        if (files.isEmpty()) {
+            statusText = Text.literal("§ePut .ndjson or .msr result files into server-scanner/import to list them");
+            return;
+        }
+        isImporting = true;
+        importCancelled = false;
+        statusText = Text.literal("§eImporting " + files.size() + " result files...");
+        CompletableFuture.supplyAsync(() -> readResultFiles(files)).thenAccept(message ->
+                MinecraftClient.getInstance().execute(() -> {
+                    isImporting = false;
+                    statusText = message;
+                }));
+    }
 
-    public boolean mouseScrolled(double mouseX, double mouseY, double amount) {
-        // If totalRows > MAX_VISIBLE_ROWS, enable scrolling
-        int maxRowsVisible = MAX_VISIBLE_ROWS;
-        if (totalRows > maxRowsVisible) {
-            // total height needed for all rows
-            int totalHeight = totalRows * (BUTTON_HEIGHT + BUTTON_SPACING);
-            int maxVisibleHeight = maxRowsVisible * (BUTTON_HEIGHT + BUTTON_SPACING);
-            int maxScroll = Math.max(0, totalHeight - maxVisibleHeight);
-
-            // Adjust scroll based on mouse wheel
-            scrollOffset -= amount * scrollSpeed;
-            if (scrollOffset < 0) scrollOffset = 0;
-            if (scrollOffset > maxScroll) scrollOffset = maxScroll;
+    private Text readResultFiles(List<Path> files) {
+        AtomicLong read = new AtomicLong();
+        int failed = 0;
+        for (Path file : files) {
+            try {
+                ResultReader.read(file, (address, port, rttNanos, statusHash, status) -> {
+                    handOverImported(new ImportedRecord(address, port, rttNanos, status));
+                    read.incrementAndGet();
+                });
+            } catch (CancellationException e) {
+                return Text.literal("§cImport cancelled");
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Could not import results from {}", file, e);
+                failed++;
+            }
+        }
+        return Text.literal((failed > 0 ? "§e" : "§a") + "Imported " + read.get() + " results from " + files.size() + " files"
+                + (failed > 0 ? " (" + failed + " could not be read completely, see the log)" : ""));
+    }
 
-            // Re-draw the server buttons with new offset
-            updateServerList();
+    /**
+     * Waits for room in {@link #pendingImported}, which the render thread drains a batch per frame.
+     *
+     * @throws CancellationException once the screen has been closed
+     */
+    private void handOverImported(ImportedRecord record) {
+        try {
+            while (!pendingImported.offer(record, 100, TimeUnit.MILLISECONDS)) {
+                if (importCancelled) {
+                    throw new CancellationException();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
         }
-        return super.mouseScrolled(mouseX, mouseY, amount, amount);
+    }
+
+    /**
+     * A result read from a file, on its way to {@link ScanResultList#addImported}.
+     */
+    private record ImportedRecord(int address, int port, long rttNanos, ServerStatus status) {
     }
 
     @Override
     public void render(DrawContext context, int mouseX, int mouseY, float delta) {
+        publishProgress();
+        addSelectedButton.active = results.selectedCount() > 0;
+        addAllButton.active = !results.visible().isEmpty();
+        importButton.active = !isImporting;
+        resumeButton.active = !isScanning && hasCheckpoint;
         this.renderBackground(context, mouseX, mouseY, delta);
         super.render(context, mouseX, mouseY, delta);
+        metricsOverlay.render(context, this.textRenderer, this.width - 5, 30);
 
         // Draw title
         context.drawTextWithShadow(
@@ -427,11 +909,10 @@ public class ServerScannerScreen extends Screen {
 
     @Override
     public void removed() {
+        importCancelled = true;
+        pendingImported.clear();
         stopScanning();
-        if (uiUpdateExecutor != null) {
-            uiUpdateExecutor.shutdownNow();
-            uiUpdateExecutor = null;
-        }
+        closeLanListener();
         super.removed();
     }
 
@@ -440,6 +921,5 @@ public class ServerScannerScreen extends Screen {
         String text = this.ipTextField != null ? this.ipTextField.getText() : "";
         this.init(client, width, height);
         this.ipTextField.setText(text);
-        updateServerList(); // Recalculate button layout after resize
     }
 }
\ No newline at end of file